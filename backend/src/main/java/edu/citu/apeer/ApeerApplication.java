@@ -1,6 +1,8 @@
 package edu.citu.apeer;
 
+import edu.citu.apeer.service.AnalysisCacheService;
 import edu.citu.apeer.service.DataInitializationService;
+import edu.citu.apeer.service.StudentScoreAggregateService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.CommandLineRunner;
@@ -14,6 +16,8 @@ import org.springframework.context.annotation.Bean;
 public class ApeerApplication {
     
     private final DataInitializationService dataInitService;
+    private final StudentScoreAggregateService aggregateService;
+    private final AnalysisCacheService analysisCacheService;
     
     public static void main(String[] args) {
         SpringApplication.run(ApeerApplication.class, args);
@@ -29,6 +33,8 @@ public class ApeerApplication {
             log.info("Starting data initialization...");
             dataInitService.initializeSampleData();
             log.info("Data initialization complete");
+            aggregateService.rebuildIfEmpty();
+            analysisCacheService.purgeStaleVersions();
         };
     }
 }
@@ -0,0 +1,50 @@
+package edu.citu.apeer.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+
+/**
+ * In-process caches for lookups that are read on most requests but rarely written.
+ * Each cache has its own Caffeine spec (size bound and TTL) from {@code cache.<name>.spec}.
+ * Evictions are deferred until the writing transaction commits, so a concurrent reader
+ * cannot put the old row back in between.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+    
+    /** {@code CurrentUser} snapshots by email, see {@code UserLookupService} */
+    public static final String USERS = "users";
+    /** Rubric DTOs, keyed by id or {@code 'all'} */
+    public static final String RUBRICS = "rubrics";
+    /** Activity lists, keyed by repository method */
+    public static final String ACTIVITIES = "activities";
+    
+    @Value("${cache.users.spec:maximumSize=10000,expireAfterWrite=5m}")
+    private String usersSpec;
+    
+    @Value("${cache.rubrics.spec:maximumSize=200,expireAfterWrite=1h}")
+    private String rubricsSpec;
+    
+    @Value("${cache.activities.spec:maximumSize=50,expireAfterWrite=1m}")
+    private String activitiesSpec;
+    
+    @Bean
+    public CacheManager cacheManager() {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        // Only the caches below exist; a misspelled cache name fails instead of creating an unbounded cache
+        cacheManager.setCacheNames(List.of());
+        cacheManager.registerCustomCache(USERS, Caffeine.from(usersSpec).recordStats().build());
+        cacheManager.registerCustomCache(RUBRICS, Caffeine.from(rubricsSpec).recordStats().build());
+        cacheManager.registerCustomCache(ACTIVITIES, Caffeine.from(activitiesSpec).recordStats().build());
+        return new TransactionAwareCacheManagerProxy(cacheManager);
+    }
+}
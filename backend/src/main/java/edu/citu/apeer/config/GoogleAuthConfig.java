@@ -0,0 +1,40 @@
+package edu.citu.apeer.config;
+
+import com.google.api.client.googleapis.auth.oauth2.GoogleIdTokenVerifier;
+import com.google.api.client.googleapis.auth.oauth2.GooglePublicKeysManager;
+import com.google.api.client.http.javanet.NetHttpTransport;
+import com.google.api.client.json.gson.GsonFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.Collections;
+
+/**
+ * One Google ID token verifier for the whole application, so Google's signing certificates are
+ * fetched once and cached instead of on every login. The certificate URL is configurable so a
+ * local stub serving the same format can stand in for Google.
+ */
+@Configuration
+public class GoogleAuthConfig {
+    
+    @Value("${google.client.id}")
+    private String googleClientId;
+    
+    @Value("${google.certs-url:https://www.googleapis.com/oauth2/v1/certs}")
+    private String certsUrl;
+    
+    @Bean
+    public GooglePublicKeysManager googlePublicKeysManager() {
+        return new GooglePublicKeysManager.Builder(new NetHttpTransport(), GsonFactory.getDefaultInstance())
+                .setPublicCertsEncodedUrl(certsUrl)
+                .build();
+    }
+    
+    @Bean
+    public GoogleIdTokenVerifier googleIdTokenVerifier(GooglePublicKeysManager publicKeys) {
+        return new GoogleIdTokenVerifier.Builder(publicKeys)
+                .setAudience(Collections.singletonList(googleClientId))
+                .build();
+    }
+}
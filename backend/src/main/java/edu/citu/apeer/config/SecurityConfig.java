@@ -1,9 +1,11 @@
 package edu.citu.apeer.config;
 
 import edu.citu.apeer.security.JwtAuthenticationFilter;
+import jakarta.servlet.DispatcherType;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
@@ -24,7 +26,28 @@ public class SecurityConfig {
     
     private final JwtAuthenticationFilter jwtAuthFilter;
     
+    /**
+     * Uploaded files are public and never depend on who asks, so they skip token parsing,
+     * and the controller's long-lived Cache-Control isn't overwritten with no-store.
+     */
     @Bean
+    @Order(1)
+    public SecurityFilterChain fileSecurityFilterChain(HttpSecurity http) throws Exception {
+        http
+            .securityMatcher("/api/files/**")
+            .csrf(csrf -> csrf.disable())
+            .cors(cors -> cors.configurationSource(corsConfigurationSource()))
+            .sessionManagement(session -> 
+                session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+            .requestCache(cache -> cache.disable())
+            .headers(headers -> headers.cacheControl(cacheControl -> cacheControl.disable()))
+            .authorizeHttpRequests(auth -> auth.anyRequest().permitAll());
+        
+        return http.build();
+    }
+    
+    @Bean
+    @Order(2)
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
         http
             .csrf(csrf -> csrf.disable())
@@ -32,10 +55,11 @@ public class SecurityConfig {
             .sessionManagement(session -> 
                 session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
             .authorizeHttpRequests(auth -> auth
+                // Streamed responses (StreamingResponseBody) finish on an async dispatch; the request was already authorized
+                .dispatcherTypeMatchers(DispatcherType.ASYNC, DispatcherType.ERROR).permitAll()
                 // Public endpoints
                 .requestMatchers("/api/auth/**").permitAll()
                 .requestMatchers("/api/health").permitAll()
-                .requestMatchers("/api/files/**").permitAll() // Allow public access to uploaded files
                 // Student endpoints
                 .requestMatchers("/api/student/**").hasAnyRole("STUDENT", "TEACHER", "ADMIN")
                 // Teacher endpoints
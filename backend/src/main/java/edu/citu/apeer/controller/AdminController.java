@@ -1,17 +1,33 @@
 package edu.citu.apeer.controller;
 
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
 import edu.citu.apeer.dto.*;
 import edu.citu.apeer.entity.User;
+import edu.citu.apeer.entity.UserRole;
 import edu.citu.apeer.entity.UserStatus;
 import edu.citu.apeer.repository.UserRepository;
+import edu.citu.apeer.service.AnalysisCacheService;
+import edu.citu.apeer.service.FileStorageService;
+import edu.citu.apeer.service.ReportService;
+import edu.citu.apeer.service.StudentScoreAggregateService;
+import edu.citu.apeer.service.UserLookupService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
 
 @RestController
 @RequestMapping("/api/admin")
@@ -21,25 +37,52 @@ import java.util.stream.Collectors;
 public class AdminController {
     
     private final UserRepository userRepository;
+    private final StudentScoreAggregateService aggregateService;
+    private final AnalysisCacheService analysisCacheService;
+    private final CacheManager cacheManager;
+    private final FileStorageService fileStorageService;
+    private final ReportService reportService;
+    private final UserLookupService userLookupService;
+    
+    private static final int MAX_PAGE_SIZE = 100;
     
     @GetMapping("/users")
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<List<UserDTO>> getAllUsers() {
-        List<User> users = userRepository.findAll();
-        
-        List<UserDTO> userDTOs = users.stream()
-                .map(user -> UserDTO.builder()
-                        .id(user.getId())
-                        .name(user.getName())
-                        .email(user.getEmail())
-                        .role(capitalize(user.getRole().name()))
-                        .status(capitalize(user.getStatus().name()))
-                        .build())
-                .collect(Collectors.toList());
+        List<UserDTO> userDTOs = userRepository.searchUsers(null, null, null, null,
+                        Pageable.unpaged(Sort.by("name")))
+                .map(this::toUserDTO)
+                .getContent();
         
         return ResponseEntity.ok(userDTOs);
     }
     
+    /**
+     * One page of users, optionally filtered by role, status and group and searched by
+     * a substring of name or email
+     */
+    @GetMapping("/users/page")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Page<UserDTO>> getUserPage(
+            @RequestParam(value = "page", defaultValue = "0") int page,
+            @RequestParam(value = "size", defaultValue = "50") int size,
+            @RequestParam(value = "role", required = false) String role,
+            @RequestParam(value = "status", required = false) String status,
+            @RequestParam(value = "groupId", required = false) String groupId,
+            @RequestParam(value = "q", required = false) String query,
+            @RequestParam(value = "sort", required = false) String sort) {
+        Pageable pageable = PageRequest.of(Math.max(page, 0), Math.min(Math.max(size, 1), MAX_PAGE_SIZE),
+                toUserSort(sort));
+        Page<UserDTO> users = userRepository.searchUsers(
+                        parseEnum(UserRole.class, role, "role"),
+                        parseEnum(UserStatus.class, status, "status"),
+                        groupId == null || groupId.isBlank() ? null : groupId,
+                        toSearchPattern(query),
+                        pageable)
+                .map(this::toUserDTO);
+        return ResponseEntity.ok(users);
+    }
+    
     @PutMapping("/users/{id}/status")
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<UserDTO> updateUserStatus(
@@ -55,6 +98,7 @@ public class AdminController {
         
         user.setStatus(newStatus);
         user = userRepository.save(user);
+        userLookupService.evict(user);
         
         UserDTO userDTO = UserDTO.builder()
                 .id(user.getId())
@@ -67,6 +111,89 @@ public class AdminController {
         return ResponseEntity.ok(userDTO);
     }
     
+    @PostMapping("/aggregates/rebuild")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Integer>> rebuildScoreAggregates() {
+        int rows = aggregateService.rebuild();
+        return ResponseEntity.ok(Map.of("rows", rows));
+    }
+    
+    @GetMapping("/analysis-cache/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getAnalysisCacheStats() {
+        return ResponseEntity.ok(analysisCacheService.getStats());
+    }
+    
+    /**
+     * Hit rates and sizes of the lookup caches configured in {@code CacheConfig}
+     */
+    @GetMapping("/caches/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Map<String, Object>>> getCacheStats() {
+        Map<String, Map<String, Object>> result = new TreeMap<>();
+        for (String name : cacheManager.getCacheNames()) {
+            Cache cache = cacheManager.getCache(name);
+            if (cache != null && cache.getNativeCache() instanceof com.github.benmanes.caffeine.cache.Cache<?, ?> caffeine) {
+                CacheStats stats = caffeine.stats();
+                Map<String, Object> entry = new LinkedHashMap<>();
+                entry.put("entries", caffeine.estimatedSize());
+                entry.put("hits", stats.hitCount());
+                entry.put("misses", stats.missCount());
+                entry.put("hitRate", stats.hitRate());
+                entry.put("evictions", stats.evictionCount());
+                result.put(name, entry);
+            }
+        }
+        result.put("avatarFiles", fileStorageService.getHotCacheStats());
+        result.put("personalReports", reportService.getCacheStats());
+        return ResponseEntity.ok(result);
+    }
+    
+    private UserDTO toUserDTO(UserListRow row) {
+        return UserDTO.builder()
+                .id(row.getId())
+                .name(row.getName())
+                .email(row.getEmail())
+                .role(capitalize(row.getRole().name()))
+                .status(capitalize(row.getStatus().name()))
+                .build();
+    }
+    
+    private Sort toUserSort(String sort) {
+        String key = sort != null ? sort.toLowerCase() : "name";
+        return switch (key) {
+            case "name" -> Sort.by("name").and(Sort.by("id"));
+            case "email" -> Sort.by("email");
+            case "newest" -> Sort.by(Sort.Direction.DESC, "createdAt").and(Sort.by("id"));
+            default -> throw new RuntimeException("Unsupported sort field: " + sort);
+        };
+    }
+    
+    /**
+     * Lowercase LIKE pattern matching the term anywhere, with LIKE wildcards in the term escaped
+     */
+    private String toSearchPattern(String query) {
+        if (query == null || query.isBlank()) {
+            return null;
+        }
+        String term = query.trim().toLowerCase(Locale.ROOT)
+                .replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_");
+        return "%" + term + "%";
+    }
+    
+    private <E extends Enum<E>> E parseEnum(Class<E> type, String value, String name) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return Enum.valueOf(type, value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("Unknown " + name + ": " + value);
+        }
+    }
+    
     private String capitalize(String str) {
         if (str == null || str.isEmpty()) return str;
         return str.substring(0, 1).toUpperCase() + str.substring(1).toLowerCase();
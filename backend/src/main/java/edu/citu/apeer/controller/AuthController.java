@@ -7,6 +7,7 @@ import edu.citu.apeer.entity.UserStatus;
 import edu.citu.apeer.repository.UserRepository;
 import edu.citu.apeer.security.JwtUtil;
 import edu.citu.apeer.service.GoogleTokenVerificationService;
+import edu.citu.apeer.service.UserLookupService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -24,6 +25,7 @@ public class AuthController {
     private final UserRepository userRepository;
     private final JwtUtil jwtUtil;
     private final GoogleTokenVerificationService googleTokenService;
+    private final UserLookupService userLookupService;
     
     @PostMapping("/google")
     public ResponseEntity<?> googleAuth(@RequestBody GoogleAuthRequest request) {
@@ -60,6 +62,7 @@ public class AuthController {
             if (!user.getName().equals(name)) {
                 user.setName(name);
                 user = userRepository.save(user);
+                userLookupService.evict(user);
             }
             
             // Generate JWT token
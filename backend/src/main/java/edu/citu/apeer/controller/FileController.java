@@ -1,17 +1,25 @@
 package edu.citu.apeer.controller;
 
+import edu.citu.apeer.service.BlobStore;
+import edu.citu.apeer.service.FileStorageService;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.AbstractResource;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.FileSystemResource;
 import org.springframework.core.io.Resource;
-import org.springframework.core.io.UrlResource;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.time.Duration;
 
 @RestController
 @RequestMapping("/api/files")
@@ -20,47 +28,124 @@ import java.nio.file.Paths;
 @CrossOrigin(origins = {"http://localhost:5173", "http://localhost:5174", "http://localhost:3000"})
 public class FileController {
     
-    @Value("${file.upload-dir:uploads}")
-    private String uploadDir;
+    // Tomcat sends the file itself with sendfile(2) after the servlet returns
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
     
+    // A stored file never changes under its name, so browsers may keep it for good
+    private static final CacheControl IMMUTABLE = CacheControl.maxAge(Duration.ofDays(365)).cachePublic().immutable();
+    // The original standing in for a thumbnail that isn't generated yet
+    private static final CacheControl PROVISIONAL = CacheControl.maxAge(Duration.ofMinutes(1)).cachePublic();
+    
+    private final FileStorageService fileStorageService;
+    
+    /**
+     * Serve an avatar; with {@code size} (pixels), the closest pre-generated square thumbnail.
+     * Supports conditional and range requests. Small files come from memory; larger local ones are
+     * handed to the container to send without copying through the heap, remote ones are streamed.
+     */
     @GetMapping("/avatars/{filename:.+}")
-    public ResponseEntity<Resource> getAvatar(@PathVariable String filename) {
+    public ResponseEntity<Resource> getAvatar(
+            @PathVariable String filename,
+            @RequestParam(value = "size", required = false) Integer size,
+            WebRequest webRequest,
+            HttpServletRequest request) {
         try {
-            // Resolve file path: uploadDir/avatars/filename
-            Path filePath = Paths.get(uploadDir, "avatars").resolve(filename).normalize();
-            
-            // Security check: ensure the path is within the upload directory
-            Path uploadBase = Paths.get(uploadDir, "avatars").normalize();
-            if (!filePath.startsWith(uploadBase)) {
+            // Only plain stored file names resolve
+            String servedName = fileStorageService.resolveAvatar(filename, size);
+            if (servedName == null) {
                 log.warn("Attempted to access file outside upload directory: {}", filename);
                 return ResponseEntity.status(403).build();
             }
             
-            Resource resource = new UrlResource(filePath.toUri());
-            
-            if (resource.exists() && resource.isReadable()) {
-                String contentType = "image/jpeg";
-                String lowerFilename = filename.toLowerCase();
-                if (lowerFilename.endsWith(".png")) {
-                    contentType = "image/png";
-                } else if (lowerFilename.endsWith(".gif")) {
-                    contentType = "image/gif";
-                } else if (lowerFilename.endsWith(".webp")) {
-                    contentType = "image/webp";
-                }
-                
-                return ResponseEntity.ok()
-                        .contentType(MediaType.parseMediaType(contentType))
-                        .header(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + filename + "\"")
-                        .body(resource);
-            } else {
-                log.warn("File not found or not readable: {}", filePath);
+            BlobStore.BlobInfo info = fileStorageService.statAvatar(servedName);
+            if (info == null) {
+                log.warn("File not found or not readable: {}", servedName);
                 return ResponseEntity.notFound().build();
             }
+            
+            String etag = "\"" + servedName + "\"";
+            long lastModified = info.getLastModified().toEpochMilli();
+            boolean provisional = size != null && servedName.equals(filename);
+            
+            // Sets 304 and the validators on the response when the client's copy is current
+            if (webRequest.checkNotModified(etag, lastModified)) {
+                return null;
+            }
+            
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                    .contentType(MediaType.parseMediaType(FileStorageService.contentType(servedName)))
+                    .cacheControl(provisional ? PROVISIONAL : IMMUTABLE)
+                    .eTag(etag)
+                    .lastModified(lastModified)
+                    .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + filename + "\"");
+            
+            byte[] hot = fileStorageService.getHotFile(servedName, info.getSize());
+            if (hot != null) {
+                // Spring turns a Range request into a 206 for any resource body
+                return response.body(new ByteArrayResource(hot));
+            }
+            
+            Path localPath = fileStorageService.localAvatarPath(servedName);
+            if (localPath == null) {
+                return response.body(new BlobResource(servedName, info.getSize()));
+            }
+            
+            if (request.getHeader(HttpHeaders.RANGE) == null
+                    && "GET".equals(request.getMethod())
+                    && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+                request.setAttribute(SENDFILE_FILENAME, localPath.toString());
+                request.setAttribute(SENDFILE_START, 0L);
+                request.setAttribute(SENDFILE_END, info.getSize());
+                return response.contentLength(info.getSize()).build();
+            }
+            
+            return response.body(new FileSystemResource(localPath));
         } catch (Exception e) {
             log.error("Error loading file: {}", filename, e);
             return ResponseEntity.notFound().build();
         }
     }
+    
+    /**
+     * A stored avatar read from the blob store on demand; the length is known up front, so
+     * Spring can answer range requests from it
+     */
+    private class BlobResource extends AbstractResource {
+        private final String name;
+        private final long length;
+        
+        BlobResource(String name, long length) {
+            this.name = name;
+            this.length = length;
+        }
+        
+        @Override
+        public String getDescription() {
+            return "avatar " + name;
+        }
+        
+        @Override
+        public InputStream getInputStream() throws IOException {
+            return fileStorageService.openAvatar(name);
+        }
+        
+        @Override
+        public boolean exists() {
+            return true;
+        }
+        
+        @Override
+        public long contentLength() {
+            return length;
+        }
+        
+        @Override
+        public String getFilename() {
+            return name;
+        }
+    }
 }
-
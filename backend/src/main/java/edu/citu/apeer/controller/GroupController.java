@@ -8,6 +8,7 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
 
 import java.util.List;
 
@@ -34,6 +35,26 @@ public class GroupController {
         return ResponseEntity.status(HttpStatus.CREATED).body(group);
     }
     
+    /**
+     * Assign students to groups from a CSV of {@code email,group} rows; missing groups are created
+     */
+    @PostMapping(value = "/import", consumes = {"multipart/form-data"})
+    @PreAuthorize("hasAnyRole('TEACHER', 'ADMIN')")
+    public ResponseEntity<List<GroupDTO>> importRoster(@RequestParam("file") MultipartFile file) {
+        List<GroupDTO> groups = groupService.importRoster(file);
+        return ResponseEntity.ok(groups);
+    }
+    
+    /**
+     * Split all ungrouped students into new balanced groups
+     */
+    @PostMapping("/auto")
+    @PreAuthorize("hasAnyRole('TEACHER', 'ADMIN')")
+    public ResponseEntity<List<GroupDTO>> autoGroup(@RequestBody AutoGroupRequest request) {
+        List<GroupDTO> groups = groupService.autoGroup(request);
+        return ResponseEntity.status(HttpStatus.CREATED).body(groups);
+    }
+    
     @PostMapping("/{groupId}/assign")
     @PreAuthorize("hasAnyRole('TEACHER', 'ADMIN')")
     public ResponseEntity<GroupDTO> assignStudent(
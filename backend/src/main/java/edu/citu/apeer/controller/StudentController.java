@@ -5,15 +5,19 @@ import edu.citu.apeer.entity.User;
 import edu.citu.apeer.service.StudentService;
 import edu.citu.apeer.service.EvaluationService;
 import edu.citu.apeer.service.ActivityService;
+import edu.citu.apeer.service.ReportService;
 import edu.citu.apeer.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 import java.util.stream.Collectors;
@@ -28,6 +32,7 @@ public class StudentController {
     private final StudentService studentService;
     private final EvaluationService evaluationService;
     private final ActivityService activityService;
+    private final ReportService reportService;
     private final UserRepository userRepository;
     
     @GetMapping("/dashboard")
@@ -49,11 +54,28 @@ public class StudentController {
         return ResponseEntity.ok(response);
     }
     
+    /**
+     * Submit evaluations for several group members in one request; either all are saved or none
+     */
+    @PostMapping("/evaluations/submit-bulk")
+    @PreAuthorize("hasRole('STUDENT')")
+    public ResponseEntity<List<EvaluationSubmissionResponse>> submitEvaluations(
+            @RequestBody BulkEvaluationSubmissionRequest request,
+            Authentication auth) {
+        String email = auth.getName();
+        List<EvaluationSubmissionResponse> responses = 
+                evaluationService.submitEvaluations(email, request);
+        return ResponseEntity.ok(responses);
+    }
+    
     @GetMapping("/feedback-history")
     @PreAuthorize("hasAnyRole('STUDENT', 'TEACHER', 'ADMIN')")
-    public ResponseEntity<List<FeedbackHistoryDTO>> getFeedbackHistory(Authentication auth) {
+    public ResponseEntity<FeedbackHistoryPage> getFeedbackHistory(
+            Authentication auth,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
         String email = auth.getName();
-        List<FeedbackHistoryDTO> history = studentService.getFeedbackHistory(email);
+        FeedbackHistoryPage history = studentService.getFeedbackHistory(email, cursor, size);
         return ResponseEntity.ok(history);
     }
     
@@ -78,17 +100,27 @@ public class StudentController {
     
     @GetMapping("/export/pdf")
     @PreAuthorize("hasAnyRole('STUDENT', 'TEACHER', 'ADMIN')")
-    public ResponseEntity<byte[]> exportPersonalReport(Authentication auth) {
-        String email = auth.getName();
-        byte[] report = studentService.generatePersonalReport(email);
+    public ResponseEntity<StreamingResponseBody> exportPersonalReport(Authentication auth, WebRequest webRequest) {
+        User student = reportService.getStudent(auth.getName());
+        String version = reportService.getReportVersion(student);
+        
+        // The browser revalidates its copy and gets a 304 until new feedback arrives
+        String etag = "\"" + version + "\"";
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+        
+        StreamingResponseBody body = out -> reportService.writePersonalReport(student, version, out);
         
         HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.parseMediaType("application/pdf"));
+        headers.setContentType(MediaType.APPLICATION_PDF);
         headers.setContentDispositionFormData("attachment", "personal_report.pdf");
         
         return ResponseEntity.ok()
                 .headers(headers)
-                .body(report);
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .eTag(etag)
+                .body(body);
     }
     
     @GetMapping("/activities")
@@ -3,22 +3,25 @@ package edu.citu.apeer.controller;
 import edu.citu.apeer.dto.*;
 import edu.citu.apeer.entity.*;
 import edu.citu.apeer.repository.*;
+import edu.citu.apeer.service.ActivityExportService;
+import edu.citu.apeer.service.ReportBatchService;
 import edu.citu.apeer.service.TeacherService;
 import edu.citu.apeer.service.ActivityService;
 import edu.citu.apeer.service.RubricService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.data.domain.Page;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
-import java.io.OutputStreamWriter;
-import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -32,12 +35,9 @@ public class TeacherController {
     private final TeacherService teacherService;
     private final ActivityService activityService;
     private final RubricService rubricService;
-    private final EvaluationActivityRepository activityRepository;
-    private final EvaluationSubmissionRepository submissionRepository;
+    private final ActivityExportService exportService;
+    private final ReportBatchService reportBatchService;
     private final UserRepository userRepository;
-    private final StudentGroupRepository groupRepository;
-    private final CriterionScoreRepository scoreRepository;
-    private final AnalysisResultRepository analysisRepository;
     
     @GetMapping("/class-overview")
     @PreAuthorize("hasAnyRole('TEACHER', 'ADMIN')")
@@ -48,8 +48,21 @@ public class TeacherController {
     
     @GetMapping("/students")
     @PreAuthorize("hasAnyRole('TEACHER', 'ADMIN')")
-    public ResponseEntity<List<StudentSummaryDTO>> getStudents() {
-        List<StudentSummaryDTO> students = teacherService.getStudentList();
+    public ResponseEntity<List<StudentSummaryDTO>> getStudents(
+            @RequestParam(value = "sort", required = false) String sort,
+            @RequestParam(value = "direction", required = false) String direction) {
+        List<StudentSummaryDTO> students = teacherService.getStudentList(sort, direction);
+        return ResponseEntity.ok(students);
+    }
+    
+    @GetMapping("/students/page")
+    @PreAuthorize("hasAnyRole('TEACHER', 'ADMIN')")
+    public ResponseEntity<Page<StudentSummaryDTO>> getStudentPage(
+            @RequestParam(value = "page", defaultValue = "0") int page,
+            @RequestParam(value = "size", defaultValue = "50") int size,
+            @RequestParam(value = "sort", required = false) String sort,
+            @RequestParam(value = "direction", required = false) String direction) {
+        Page<StudentSummaryDTO> students = teacherService.getStudentPage(page, size, sort, direction);
         return ResponseEntity.ok(students);
     }
     
@@ -93,102 +106,77 @@ public class TeacherController {
     
     @GetMapping(value = {"/activities/{id}/export", "/activities/{id}/export"}, produces = "text/csv")
     @PreAuthorize("hasAnyRole('TEACHER', 'ADMIN')")
-    public ResponseEntity<byte[]> exportActivityCSV(@PathVariable("id") String id) {
-        EvaluationActivity activity = activityRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Activity not found"));
+    public ResponseEntity<StreamingResponseBody> exportActivityCSV(@PathVariable("id") String id) {
+        EvaluationActivity activity = exportService.getActivity(id);
         
-        List<EvaluationSubmission> submissions = submissionRepository.findByActivityId(id);
+        // Rows are written from an async worker so the request thread is released immediately
+        StreamingResponseBody body = out -> exportService.writeActivityCsv(id, out);
         
-        // Get all unique students who received evaluations
-        List<String> studentIds = submissions.stream()
-                .map(s -> s.getTarget().getId())
-                .distinct()
-                .collect(Collectors.toList());
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.parseMediaType("text/csv; charset=utf-8"));
+        headers.setContentDispositionFormData("attachment", exportService.exportFilename(activity));
         
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        try (OutputStreamWriter writer = new OutputStreamWriter(baos, StandardCharsets.UTF_8)) {
-            // Write BOM for Excel compatibility
-            baos.write(0xEF);
-            baos.write(0xBB);
-            baos.write(0xBF);
-            
-            // Write header
-            writer.write("Student Name,Email,Group,Evaluations Received,Average Score,AI Flagged?\n");
-            
-            // Write data rows
-            for (String studentId : studentIds) {
-                User student = userRepository.findById(studentId).orElse(null);
-                if (student == null) continue;
-                
-                // Find group membership (using new @ManyToOne relationship)
-                String groupName = "Ungrouped";
-                if (student.getGroup() != null) {
-                    groupName = student.getGroup().getName();
-                }
-                
-                // Count evaluations received
-                long evalCount = submissions.stream()
-                        .filter(s -> s.getTarget().getId().equals(studentId))
-                        .count();
-                
-                // Calculate average score
-                List<EvaluationSubmission> studentSubmissions = submissions.stream()
-                        .filter(s -> s.getTarget().getId().equals(studentId))
-                        .collect(Collectors.toList());
-                
-                double avgScore = 0.0;
-                if (!studentSubmissions.isEmpty()) {
-                    int totalScore = 0;
-                    int maxScore = 0;
-                    for (EvaluationSubmission sub : studentSubmissions) {
-                        List<CriterionScore> scores = scoreRepository.findBySubmissionId(sub.getId());
-                        for (CriterionScore score : scores) {
-                            totalScore += score.getScore();
-                            maxScore += score.getMaxScore();
-                        }
-                    }
-                    if (maxScore > 0) {
-                        avgScore = (double) totalScore / maxScore * 100;
-                    }
-                }
-                
-                // Check if AI flagged
-                boolean isFlagged = studentSubmissions.stream()
-                        .anyMatch(s -> {
-                            AnalysisResult analysis = s.getAnalysisResult();
-                            return analysis != null && analysis.getIsFlagged();
-                        });
-                
-                writer.write(String.format("%s,%s,%s,%d,%.2f,%s\n",
-                        escapeCSV(student.getName()),
-                        escapeCSV(student.getEmail()),
-                        escapeCSV(groupName),
-                        evalCount,
-                        avgScore,
-                        isFlagged ? "Yes" : "No"));
-            }
-            
-            writer.flush();
-        } catch (IOException e) {
-            throw new RuntimeException("Error generating CSV", e);
-        }
+        return ResponseEntity.ok()
+                .headers(headers)
+                .body(body);
+    }
+    
+    /**
+     * Every active student's report as one ZIP (optionally one group, or the groups of one
+     * activity), streamed as reports finish. The X-Report-Batch header carries the batch id
+     * for polling progress at /reports/batches/{id}.
+     */
+    @GetMapping(value = "/reports/export", produces = "application/zip")
+    @PreAuthorize("hasAnyRole('TEACHER', 'ADMIN')")
+    public ResponseEntity<StreamingResponseBody> exportReports(
+            @RequestParam(value = "groupId", required = false) String groupId,
+            @RequestParam(value = "activityId", required = false) String activityId,
+            Authentication auth) {
+        ReportBatchStatus batch = reportBatchService.createBatch(groupId, activityId, auth.getName());
+        
+        StreamingResponseBody body = out -> reportBatchService.writeZip(batch.getId(), out);
         
         HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.parseMediaType("text/csv; charset=utf-8"));
-        headers.setContentDispositionFormData("attachment", 
-                "activity_" + activity.getName().replaceAll("[^a-zA-Z0-9]", "_") + ".csv");
+        headers.setContentType(MediaType.parseMediaType("application/zip"));
+        headers.setContentDispositionFormData("attachment", reportBatchService.exportFilename());
+        headers.set("X-Report-Batch", batch.getId());
         
         return ResponseEntity.ok()
                 .headers(headers)
-                .body(baos.toByteArray());
+                .body(body);
     }
     
-    private String escapeCSV(String value) {
-        if (value == null) return "";
-        if (value.contains(",") || value.contains("\"") || value.contains("\n")) {
-            return "\"" + value.replace("\"", "\"\"") + "\"";
-        }
-        return value;
+    /**
+     * Build the same ZIP on the server in the background; poll the returned batch until it is
+     * downloadable, then fetch it from /reports/batches/{id}/download
+     */
+    @PostMapping("/reports/batches")
+    @PreAuthorize("hasAnyRole('TEACHER', 'ADMIN')")
+    public ResponseEntity<ReportBatchStatus> startReportBatch(
+            @RequestParam(value = "groupId", required = false) String groupId,
+            @RequestParam(value = "activityId", required = false) String activityId,
+            Authentication auth) {
+        ReportBatchStatus batch = reportBatchService.createBatch(groupId, activityId, auth.getName());
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(reportBatchService.startFileBatch(batch.getId()));
+    }
+    
+    @GetMapping("/reports/batches/{id}")
+    @PreAuthorize("hasAnyRole('TEACHER', 'ADMIN')")
+    public ResponseEntity<ReportBatchStatus> getReportBatch(@PathVariable("id") String id) {
+        return ResponseEntity.ok(reportBatchService.getStatus(id));
+    }
+    
+    @GetMapping(value = "/reports/batches/{id}/download", produces = "application/zip")
+    @PreAuthorize("hasAnyRole('TEACHER', 'ADMIN')")
+    public ResponseEntity<Resource> downloadReportBatch(@PathVariable("id") String id) {
+        FileSystemResource archive = new FileSystemResource(reportBatchService.getBatchFile(id));
+        
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.parseMediaType("application/zip"));
+        headers.setContentDispositionFormData("attachment", reportBatchService.exportFilename());
+        
+        return ResponseEntity.ok()
+                .headers(headers)
+                .body(archive);
     }
 }
-
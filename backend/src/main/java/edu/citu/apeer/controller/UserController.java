@@ -4,6 +4,7 @@ import edu.citu.apeer.dto.*;
 import edu.citu.apeer.entity.User;
 import edu.citu.apeer.repository.UserRepository;
 import edu.citu.apeer.service.FileStorageService;
+import edu.citu.apeer.service.UserLookupService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
@@ -21,6 +22,7 @@ public class UserController {
     
     private final UserRepository userRepository;
     private final FileStorageService fileStorageService;
+    private final UserLookupService userLookupService;
     
     @GetMapping("/profile")
     @PreAuthorize("isAuthenticated()")
@@ -59,14 +61,16 @@ public class UserController {
         // Handle avatar upload
         if (avatarFile != null && !avatarFile.isEmpty()) {
             try {
-                // Delete old avatar if exists
-                if (user.getAvatarUrl() != null && !user.getAvatarUrl().isEmpty()) {
-                    fileStorageService.deleteFile(user.getAvatarUrl());
-                }
-                
                 // Store new avatar
+                String oldAvatarUrl = user.getAvatarUrl();
                 String avatarUrl = fileStorageService.storeFile(avatarFile, user.getId());
                 user.setAvatarUrl(avatarUrl);
+                
+                // Delete old avatar unless it's the same file or another user's avatar too (uploads are deduplicated)
+                if (oldAvatarUrl != null && !oldAvatarUrl.isEmpty() && !oldAvatarUrl.equals(avatarUrl)
+                        && !userRepository.existsByAvatarUrlAndIdNot(oldAvatarUrl, user.getId())) {
+                    fileStorageService.deleteFile(oldAvatarUrl);
+                }
                 log.info("Avatar uploaded successfully for user {}: {}", email, avatarUrl);
             } catch (Exception e) {
                 log.error("Error uploading avatar for user {}: ", email, e);
@@ -75,6 +79,7 @@ public class UserController {
         }
         
         user = userRepository.save(user);
+        userLookupService.evict(user);
         
         ProfileDTO profile = ProfileDTO.builder()
                 .id(user.getId())
@@ -14,6 +14,8 @@ public class ActivityDTO {
     private String status;
     private Integer participants;
     private Integer submissionCount; // Number of submissions received
+    private Integer evaluatorCount; // Distinct students who submitted at least one evaluation
+    private Integer completionRate; // evaluatorCount as a percentage of participants
     private Integer totalParticipants; // Total number of participants
 }
 
@@ -0,0 +1,27 @@
+package edu.citu.apeer.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Per-student totals for one activity, as returned by the grouped export query.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ActivityExportRow {
+    private String studentName;
+    private String email;
+    private String groupName;
+    private Long evaluationsReceived;
+    private Long scoreTotal;
+    private Long maxTotal;
+    private Integer flagged; // 1 if any received evaluation was flagged
+    
+    public double averageScore() {
+        return maxTotal == 0 ? 0.0 : (double) scoreTotal / maxTotal * 100;
+    }
+}
@@ -0,0 +1,17 @@
+package edu.citu.apeer.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Submissions received for one activity and how many distinct students gave them.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ActivitySubmissionCount {
+    private String activityId;
+    private Long submissionCount;
+    private Long evaluatorCount;
+}
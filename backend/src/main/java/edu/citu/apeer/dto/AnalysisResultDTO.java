@@ -13,5 +13,6 @@ public class AnalysisResultDTO {
     private Integer usefulnessScore;
     private Boolean isFlagged;
     private String flagReason;
+    private String analyzerVersion;
 }
 
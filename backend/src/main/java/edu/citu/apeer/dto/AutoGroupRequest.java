@@ -0,0 +1,18 @@
+package edu.citu.apeer.dto;
+
+import lombok.*;
+
+/**
+ * Split the students who have no group into new groups. Give either the number of
+ * groups or the target group size.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AutoGroupRequest {
+    private Integer groupCount;
+    private Integer groupSize;
+    private Boolean balanceByScore; // spread high and low average scores evenly across groups
+    private String namePrefix; // groups are named "<prefix> 1", "<prefix> 2", ...; defaults to "Group"
+    private String activityId;
+}
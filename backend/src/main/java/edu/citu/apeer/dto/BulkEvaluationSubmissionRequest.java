@@ -0,0 +1,16 @@
+package edu.citu.apeer.dto;
+
+import lombok.*;
+import java.util.List;
+
+/**
+ * All of a student's evaluations for one activity, typically one per group member.
+ * The activity is taken from this request; an activityId on an item must match it or be left out.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkEvaluationSubmissionRequest {
+    private String activityId;
+    private List<EvaluationSubmissionRequest> evaluations;
+}
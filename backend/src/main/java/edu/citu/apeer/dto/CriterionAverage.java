@@ -0,0 +1,25 @@
+package edu.citu.apeer.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Average score a student received on one rubric criterion, across all evaluations.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CriterionAverage {
+    private String criterionName;
+    private Double averageScore;
+    private Double averageMaxScore;
+    private Long scoreCount;
+    
+    /**
+     * Average score as a percentage of the criterion's maximum, or 0 without a maximum
+     */
+    public double percentage() {
+        return averageMaxScore == null || averageMaxScore == 0 ? 0 : averageScore / averageMaxScore * 100;
+    }
+}
@@ -0,0 +1,26 @@
+package edu.citu.apeer.dto;
+
+import edu.citu.apeer.entity.User;
+import edu.citu.apeer.entity.UserRole;
+import edu.citu.apeer.entity.UserStatus;
+import lombok.Value;
+
+/**
+ * Immutable snapshot of the columns most requests need about the signed-in user. Safe to
+ * cache and share between threads, unlike the {@link User} entity it is read from.
+ */
+@Value
+public class CurrentUser {
+    String id;
+    String email;
+    String name;
+    UserRole role;
+    UserStatus status;
+    String groupId;
+    
+    public static CurrentUser of(User user) {
+        // The id of a lazy group proxy is read without loading the group
+        return new CurrentUser(user.getId(), user.getEmail(), user.getName(), user.getRole(), user.getStatus(),
+                user.getGroup() != null ? user.getGroup().getId() : null);
+    }
+}
@@ -9,6 +9,7 @@ import lombok.*;
 public class EvaluationSubmissionResponse {
     private String id;
     private String message;
+    private String analysisStatus; // PENDING until the analysis worker has processed the comment
     private AnalysisResultDTO analysis;
 }
 
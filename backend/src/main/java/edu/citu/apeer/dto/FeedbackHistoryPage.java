@@ -0,0 +1,14 @@
+package edu.citu.apeer.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class FeedbackHistoryPage {
+    private List<FeedbackHistoryDTO> items;
+    private String nextCursor; // pass back as ?cursor= for the next page; null on the last page
+}
@@ -0,0 +1,23 @@
+package edu.citu.apeer.dto;
+
+import edu.citu.apeer.entity.UserRole;
+import edu.citu.apeer.entity.UserStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One group joined with one of its members; the member fields are null for an empty group.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class GroupMemberRow {
+    private String groupId;
+    private String groupName;
+    private String userId;
+    private String userName;
+    private String userEmail;
+    private UserRole userRole;
+    private UserStatus userStatus;
+}
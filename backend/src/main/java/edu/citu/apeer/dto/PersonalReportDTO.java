@@ -0,0 +1,33 @@
+package edu.citu.apeer.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Everything printed in a student's personal report.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PersonalReportDTO {
+    private String studentId;
+    private String name;
+    private String email;
+    private LocalDateTime generatedAt;
+    private Integer overallScore;
+    private Integer participationRate;
+    private Integer evaluationsGiven;
+    private Integer evaluationsReceived;
+    private Integer feedbackQuality;
+    private List<CriterionAverage> criterionAverages;
+    private List<SentimentTrendDTO> weeklySentiment; // Oldest week first
+    private String aiSummary;
+    private FeedbackSummaryDTO feedbackSummary;
+    private List<RecentActivityDTO> recentActivity;
+}
@@ -0,0 +1,25 @@
+package edu.citu.apeer.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Cheap fingerprint of the feedback a student received: it changes when a new evaluation
+ * arrives or an earlier one finishes analysis.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReceivedFeedbackStamp {
+    private String targetId; // only set when stamps are read for many students at once
+    private LocalDateTime latestSubmittedAt;
+    private Long receivedCount;
+    private Long analyzedCount;
+    
+    public ReceivedFeedbackStamp(LocalDateTime latestSubmittedAt, Long receivedCount, Long analyzedCount) {
+        this(null, latestSubmittedAt, receivedCount, analyzedCount);
+    }
+}
@@ -0,0 +1,21 @@
+package edu.citu.apeer.dto;
+
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ReportBatchStatus {
+    private String id;
+    private String state; // QUEUED, RUNNING, COMPLETED or FAILED
+    private int total;
+    private int completed;
+    private int failed; // reports that could not be built; listed in the ZIP's errors.txt
+    private LocalDateTime createdAt;
+    private LocalDateTime finishedAt;
+    private boolean downloadable; // a finished batch written to disk, available until it expires
+    private String error;
+}
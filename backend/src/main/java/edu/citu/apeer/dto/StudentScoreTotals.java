@@ -0,0 +1,46 @@
+package edu.citu.apeer.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Sum of a student's {@code StudentScoreAggregate} rows across all activities.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class StudentScoreTotals {
+    private String studentId;
+    private Long scoreTotal;
+    private Long maxTotal;
+    private Long receivedCount;
+    private Long givenCount;
+    private Long analyzedCount;
+    private Long usefulnessSum;
+    private Long flaggedCount;
+    
+    public static StudentScoreTotals empty(String studentId) {
+        return new StudentScoreTotals(studentId, 0L, 0L, 0L, 0L, 0L, 0L, 0L);
+    }
+    
+    /**
+     * Received score as a percentage of the maximum possible, or 0 without scores
+     */
+    public int overallScore() {
+        return maxTotal == 0 ? 0 : (int) ((double) scoreTotal / maxTotal * 100);
+    }
+    
+    /**
+     * Average usefulness of the analyzed evaluations this student gave, or 0 without any
+     */
+    public int averageUsefulness() {
+        return analyzedCount == 0 ? 0 : (int) ((double) usefulnessSum / analyzedCount);
+    }
+    
+    public boolean isFlagged() {
+        return flaggedCount > 0;
+    }
+}
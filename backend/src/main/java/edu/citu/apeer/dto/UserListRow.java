@@ -0,0 +1,23 @@
+package edu.citu.apeer.dto;
+
+import edu.citu.apeer.entity.UserRole;
+import edu.citu.apeer.entity.UserStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * The columns of a user the admin listing shows, read without loading the entity.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserListRow {
+    private String id;
+    private String name;
+    private String email;
+    private UserRole role;
+    private UserStatus status;
+    private String groupId;
+    private String groupName;
+}
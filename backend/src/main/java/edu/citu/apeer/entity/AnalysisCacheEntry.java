@@ -0,0 +1,45 @@
+package edu.citu.apeer.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * Stored analysis for a normalized comment text, keyed by a SHA-256 of the analyzer version
+ * and the text. Shared by every backend node behind the in-process cache tier.
+ */
+@Entity
+@Table(name = "analysis_cache")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AnalysisCacheEntry {
+    @Id
+    @Column(length = 64)
+    private String contentHash;
+    
+    @Column(name = "analyzer_version", nullable = false, length = 50)
+    private String analyzerVersion;
+    
+    @Column(nullable = false, length = 500)
+    private String tags; // comma separated
+    
+    @Column(nullable = false)
+    private Double sentimentScore;
+    
+    @Column(nullable = false)
+    private Integer usefulnessScore;
+    
+    @Column(nullable = false)
+    @Builder.Default
+    private Boolean isFlagged = false;
+    
+    @Column(length = 500)
+    private String flagReason;
+    
+    @CreationTimestamp
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,47 @@
+package edu.citu.apeer.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * Outbox entry for a submission whose comment still needs AI analysis. Written in the
+ * submit transaction and deleted once its {@link AnalysisResult} has been stored.
+ */
+@Entity
+@Table(name = "analysis_jobs")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AnalysisJob {
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private String id;
+    
+    @OneToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "submission_id", nullable = false, unique = true)
+    private EvaluationSubmission submission;
+    
+    @Builder.Default
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private AnalysisJobStatus status = AnalysisJobStatus.PENDING;
+    
+    @Builder.Default
+    @Column(nullable = false)
+    private Integer attempts = 0;
+    
+    @Column(nullable = false)
+    private LocalDateTime availableAt; // not picked up before this time (retry backoff)
+    
+    private LocalDateTime lockedAt; // when a worker claimed it; stale claims are retried
+    
+    @Column(length = 1000)
+    private String lastError;
+    
+    @CreationTimestamp
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,5 @@
+package edu.citu.apeer.entity;
+
+public enum AnalysisJobStatus {
+    PENDING, PROCESSING, FAILED
+}
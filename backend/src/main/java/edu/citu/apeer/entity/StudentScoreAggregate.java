@@ -0,0 +1,64 @@
+package edu.citu.apeer.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * Running per-student, per-activity sums maintained on every evaluation submit so dashboard
+ * and teacher reads do not have to rescan criterion scores and analysis results.
+ * Received-side columns describe evaluations about the student, given-side columns the ones they wrote.
+ */
+@Entity
+@Table(name = "student_score_aggregate",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"student_id", "activity_id"}))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class StudentScoreAggregate {
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private String id;
+    
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "student_id", nullable = false)
+    private User student;
+    
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "activity_id", nullable = false)
+    private EvaluationActivity activity;
+    
+    @Builder.Default
+    @Column(nullable = false)
+    private Integer scoreTotal = 0; // sum of received criterion scores
+    
+    @Builder.Default
+    @Column(nullable = false)
+    private Integer maxTotal = 0; // sum of received criterion max scores
+    
+    @Builder.Default
+    @Column(nullable = false)
+    private Integer receivedCount = 0;
+    
+    @Builder.Default
+    @Column(nullable = false)
+    private Integer givenCount = 0;
+    
+    @Builder.Default
+    @Column(nullable = false)
+    private Integer analyzedCount = 0; // given evaluations that have an analysis result
+    
+    @Builder.Default
+    @Column(nullable = false)
+    private Integer usefulnessSum = 0; // over analyzed given evaluations
+    
+    @Builder.Default
+    @Column(nullable = false)
+    private Integer flaggedCount = 0; // analyzed given evaluations that were flagged
+    
+    @UpdateTimestamp
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,36 @@
+package edu.citu.apeer.repository;
+
+import edu.citu.apeer.entity.AnalysisCacheEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface AnalysisCacheRepository extends JpaRepository<AnalysisCacheEntry, String> {
+    
+    /**
+     * Two workers analyzing the same text at once both try to store it; the second insert is a no-op.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO analysis_cache (content_hash, analyzer_version, tags, sentiment_score, " +
+                   "usefulness_score, is_flagged, flag_reason, created_at) " +
+                   "VALUES (:hash, :version, :tags, :sentiment, :usefulness, :flagged, :flagReason, now()) " +
+                   "ON CONFLICT (content_hash) DO NOTHING",
+           nativeQuery = true)
+    int insertIfAbsent(@Param("hash") String hash,
+                       @Param("version") String version,
+                       @Param("tags") String tags,
+                       @Param("sentiment") Double sentiment,
+                       @Param("usefulness") Integer usefulness,
+                       @Param("flagged") Boolean flagged,
+                       @Param("flagReason") String flagReason);
+    
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM AnalysisCacheEntry e WHERE e.analyzerVersion <> :version")
+    int deleteByAnalyzerVersionNot(@Param("version") String version);
+}
@@ -0,0 +1,41 @@
+package edu.citu.apeer.repository;
+
+import edu.citu.apeer.entity.AnalysisJob;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface AnalysisJobRepository extends JpaRepository<AnalysisJob, String> {
+    
+    /**
+     * Lock up to {@code limit} runnable jobs: pending ones that are due, and claims older than
+     * {@code staleBefore} left behind by a worker that died. SKIP LOCKED lets several
+     * backend nodes poll the same table without handing out a job twice.
+     */
+    @Query(value = "SELECT * FROM analysis_jobs " +
+                   "WHERE (status = 'PENDING' AND available_at <= :now) " +
+                   "OR (status = 'PROCESSING' AND locked_at < :staleBefore) " +
+                   "ORDER BY created_at " +
+                   "LIMIT :limit " +
+                   "FOR UPDATE SKIP LOCKED",
+           nativeQuery = true)
+    List<AnalysisJob> lockRunnable(@Param("now") LocalDateTime now,
+                                   @Param("staleBefore") LocalDateTime staleBefore,
+                                   @Param("limit") int limit);
+    
+    @Query("SELECT j.id, s.id, s.comment FROM AnalysisJob j JOIN j.submission s WHERE j.id IN :ids")
+    List<Object[]> findPayloads(@Param("ids") Collection<String> ids);
+    
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT j FROM AnalysisJob j WHERE j.id = :id")
+    Optional<AnalysisJob> findByIdForUpdate(@Param("id") String id);
+}
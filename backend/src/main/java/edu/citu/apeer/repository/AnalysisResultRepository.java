@@ -14,7 +14,10 @@ public interface AnalysisResultRepository extends JpaRepository<AnalysisResult,
     @Query("SELECT ar FROM AnalysisResult ar WHERE ar.submission.id = :submissionId")
     Optional<AnalysisResult> findBySubmissionId(@Param("submissionId") String submissionId);
     
-    @Query("SELECT a FROM AnalysisResult a WHERE a.isFlagged = true")
+    @Query("SELECT a FROM AnalysisResult a " +
+           "JOIN FETCH a.submission s " +
+           "JOIN FETCH s.evaluator " +
+           "WHERE a.isFlagged = true")
     List<AnalysisResult> findAllFlagged();
     
     @Query("SELECT AVG(a.sentimentScore) FROM AnalysisResult a " +
@@ -1,16 +1,28 @@
 package edu.citu.apeer.repository;
 
+import edu.citu.apeer.dto.CriterionAverage;
 import edu.citu.apeer.entity.CriterionScore;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface CriterionScoreRepository extends JpaRepository<CriterionScore, String> {
     @Query("SELECT cs FROM CriterionScore cs WHERE cs.submission.id = :submissionId")
     List<CriterionScore> findBySubmissionId(@Param("submissionId") String submissionId);
+    
+    @Query("SELECT cs FROM CriterionScore cs WHERE cs.submission.id IN :submissionIds")
+    List<CriterionScore> findBySubmissionIdIn(@Param("submissionIds") Collection<String> submissionIds);
+    
+    @Query("SELECT new edu.citu.apeer.dto.CriterionAverage(cs.criterionName, AVG(cs.score), AVG(cs.maxScore), COUNT(cs)) " +
+           "FROM CriterionScore cs " +
+           "WHERE cs.submission.target.id = :targetId " +
+           "GROUP BY cs.criterionName " +
+           "ORDER BY cs.criterionName")
+    List<CriterionAverage> averageByCriterionForTarget(@Param("targetId") String targetId);
 }
 
@@ -1,7 +1,10 @@
 package edu.citu.apeer.repository;
 
+import edu.citu.apeer.config.CacheConfig;
 import edu.citu.apeer.entity.EvaluationActivity;
 import edu.citu.apeer.entity.ActivityStatus;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
@@ -11,9 +14,23 @@ import java.util.List;
 @Repository
 public interface EvaluationActivityRepository extends JpaRepository<EvaluationActivity, String> {
     List<EvaluationActivity> findByStatus(ActivityStatus status);
+    
+    @Cacheable(cacheNames = CacheConfig.ACTIVITIES, key = "'all'")
     List<EvaluationActivity> findAllByOrderByCreatedAtDesc();
     
+    /**
+     * Cached for the {@code activities} TTL, so callers should still check the due date
+     */
+    @Cacheable(cacheNames = CacheConfig.ACTIVITIES, key = "'active'")
     @Query("SELECT a FROM EvaluationActivity a WHERE a.status = 'ACTIVE' AND a.dueDate > CURRENT_TIMESTAMP")
     List<EvaluationActivity> findActiveActivities();
+    
+    @Override
+    @CacheEvict(cacheNames = CacheConfig.ACTIVITIES, allEntries = true)
+    <S extends EvaluationActivity> S save(S activity);
+    
+    @Override
+    @CacheEvict(cacheNames = CacheConfig.ACTIVITIES, allEntries = true)
+    <S extends EvaluationActivity> List<S> saveAll(Iterable<S> activities);
 }
 
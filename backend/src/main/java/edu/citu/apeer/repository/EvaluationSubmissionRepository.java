@@ -1,12 +1,22 @@
 package edu.citu.apeer.repository;
 
+import edu.citu.apeer.dto.ActivityExportRow;
+import edu.citu.apeer.dto.ActivitySubmissionCount;
+import edu.citu.apeer.dto.ReceivedFeedbackStamp;
 import edu.citu.apeer.entity.EvaluationSubmission;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface EvaluationSubmissionRepository extends JpaRepository<EvaluationSubmission, String> {
@@ -24,6 +34,69 @@ public interface EvaluationSubmissionRepository extends JpaRepository<Evaluation
     @Query("SELECT s FROM EvaluationSubmission s WHERE s.target.id = :targetId")
     List<EvaluationSubmission> findAllReceivedByStudent(@Param("targetId") String targetId);
     
+    /**
+     * Load every submission a student received together with its activity, rubric,
+     * analysis result and tags in a single statement, newest first.
+     */
+    @Query("SELECT s FROM EvaluationSubmission s " +
+           "JOIN FETCH s.activity a " +
+           "LEFT JOIN FETCH a.rubric " +
+           "LEFT JOIN FETCH s.analysisResult ar " +
+           "LEFT JOIN FETCH ar.tags " +
+           "WHERE s.target.id = :targetId " +
+           "ORDER BY s.submittedAt DESC")
+    List<EvaluationSubmission> findReceivedWithAnalysis(@Param("targetId") String targetId);
+    
+    @Query("SELECT new edu.citu.apeer.dto.ReceivedFeedbackStamp(MAX(s.submittedAt), COUNT(s), COUNT(ar)) " +
+           "FROM EvaluationSubmission s " +
+           "LEFT JOIN s.analysisResult ar " +
+           "WHERE s.target.id = :targetId")
+    ReceivedFeedbackStamp findReceivedStamp(@Param("targetId") String targetId);
+    
+    /**
+     * {@link #findReceivedStamp} for every student who has received feedback
+     */
+    @Query("SELECT new edu.citu.apeer.dto.ReceivedFeedbackStamp(s.target.id, MAX(s.submittedAt), COUNT(s), COUNT(ar)) " +
+           "FROM EvaluationSubmission s " +
+           "LEFT JOIN s.analysisResult ar " +
+           "GROUP BY s.target.id")
+    List<ReceivedFeedbackStamp> findReceivedStamps();
+    
+    /**
+     * First page of a student's feedback history, newest first, with evaluator, activity and
+     * analysis joined in. Tags and criterion scores are loaded separately for the page.
+     */
+    @Query("SELECT s FROM EvaluationSubmission s " +
+           "JOIN FETCH s.evaluator " +
+           "JOIN FETCH s.activity " +
+           "LEFT JOIN FETCH s.analysisResult " +
+           "WHERE s.target.id = :targetId " +
+           "ORDER BY s.submittedAt DESC, s.id DESC")
+    List<EvaluationSubmission> findHistoryByTargetId(@Param("targetId") String targetId, Limit limit);
+    
+    /**
+     * The page of history after the (submittedAt, id) of the last row already shown. Walks the
+     * (target_id, submitted_at, id) index, so later pages cost the same as the first.
+     */
+    @Query("SELECT s FROM EvaluationSubmission s " +
+           "JOIN FETCH s.evaluator " +
+           "JOIN FETCH s.activity " +
+           "LEFT JOIN FETCH s.analysisResult " +
+           "WHERE s.target.id = :targetId " +
+           "AND (s.submittedAt < :submittedAt OR (s.submittedAt = :submittedAt AND s.id < :id)) " +
+           "ORDER BY s.submittedAt DESC, s.id DESC")
+    List<EvaluationSubmission> findHistoryByTargetIdAfter(@Param("targetId") String targetId,
+                                                          @Param("submittedAt") LocalDateTime submittedAt,
+                                                          @Param("id") String id,
+                                                          Limit limit);
+    
+    /**
+     * Submission and distinct-evaluator counts per activity; activities without submissions have no row
+     */
+    @Query("SELECT new edu.citu.apeer.dto.ActivitySubmissionCount(s.activity.id, COUNT(s), COUNT(DISTINCT s.evaluator.id)) " +
+           "FROM EvaluationSubmission s WHERE s.activity.id IN :activityIds GROUP BY s.activity.id")
+    List<ActivitySubmissionCount> countByActivityIds(@Param("activityIds") Collection<String> activityIds);
+    
     @Query("SELECT COUNT(s) FROM EvaluationSubmission s WHERE s.evaluator.id = :userId")
     long countByEvaluatorId(@Param("userId") String userId);
     
@@ -34,6 +107,36 @@ public interface EvaluationSubmissionRepository extends JpaRepository<Evaluation
            "WHERE cs.submission.target.id = :studentId")
     Double calculateAverageScore(@Param("studentId") String studentId);
     
+    /**
+     * Per-target totals for an activity, grouped in the database and streamed through a
+     * server-side cursor. Must be consumed inside a transaction and closed afterwards.
+     */
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT new edu.citu.apeer.dto.ActivityExportRow(t.name, t.email, g.name, " +
+           "COUNT(DISTINCT s.id), COALESCE(SUM(cs.score), 0), COALESCE(SUM(cs.maxScore), 0), " +
+           "MAX(CASE WHEN ar.isFlagged = true THEN 1 ELSE 0 END)) " +
+           "FROM EvaluationSubmission s " +
+           "JOIN s.target t " +
+           "LEFT JOIN t.group g " +
+           "LEFT JOIN s.scores cs " +
+           "LEFT JOIN s.analysisResult ar " +
+           "WHERE s.activity.id = :activityId " +
+           "GROUP BY t.id, t.name, t.email, g.name " +
+           "ORDER BY t.name, t.id")
+    Stream<ActivityExportRow> streamExportRowsByActivityId(@Param("activityId") String activityId);
+    
+    /**
+     * Which of {@code targetIds} the evaluator has already evaluated for the activity
+     */
+    @Query("SELECT s.target.id FROM EvaluationSubmission s " +
+           "WHERE s.evaluator.id = :evaluatorId AND s.activity.id = :activityId AND s.target.id IN :targetIds")
+    List<String> findEvaluatedTargetIds(@Param("evaluatorId") String evaluatorId,
+                                        @Param("activityId") String activityId,
+                                        @Param("targetIds") Collection<String> targetIds);
+    
     boolean existsByEvaluatorIdAndTargetIdAndActivityId(
         String evaluatorId, String targetId, String activityId);
 }
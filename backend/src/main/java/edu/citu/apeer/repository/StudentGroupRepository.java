@@ -1,13 +1,36 @@
 package edu.citu.apeer.repository;
 
+import edu.citu.apeer.dto.GroupMemberRow;
 import edu.citu.apeer.entity.StudentGroup;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface StudentGroupRepository extends JpaRepository<StudentGroup, String> {
     List<StudentGroup> findAllByOrderByNameAsc();
+    List<StudentGroup> findByNameIn(Collection<String> names);
+    
+    /**
+     * Every group with its members, one row per member (or one row with null member fields
+     * for an empty group), ordered by group name then member name
+     */
+    @Query("SELECT new edu.citu.apeer.dto.GroupMemberRow(g.id, g.name, u.id, u.name, u.email, u.role, u.status) " +
+           "FROM StudentGroup g LEFT JOIN g.members u " +
+           "ORDER BY g.name, g.id, u.name")
+    List<GroupMemberRow> findAllWithMembers();
+    
+    @Query("SELECT new edu.citu.apeer.dto.GroupMemberRow(g.id, g.name, u.id, u.name, u.email, u.role, u.status) " +
+           "FROM StudentGroup g LEFT JOIN g.members u " +
+           "WHERE g.id = :groupId ORDER BY u.name")
+    List<GroupMemberRow> findWithMembers(@Param("groupId") String groupId);
+    
+    @Query("SELECT new edu.citu.apeer.dto.GroupMemberRow(g.id, g.name, u.id, u.name, u.email, u.role, u.status) " +
+           "FROM StudentGroup g LEFT JOIN g.members u " +
+           "WHERE g.id IN :groupIds ORDER BY g.name, g.id, u.name")
+    List<GroupMemberRow> findWithMembers(@Param("groupIds") Collection<String> groupIds);
 }
-
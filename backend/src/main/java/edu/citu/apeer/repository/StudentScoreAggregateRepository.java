@@ -0,0 +1,137 @@
+package edu.citu.apeer.repository;
+
+import edu.citu.apeer.dto.StudentScoreTotals;
+import edu.citu.apeer.entity.StudentScoreAggregate;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface StudentScoreAggregateRepository extends JpaRepository<StudentScoreAggregate, String> {
+    
+    /**
+     * Add deltas to the (student, activity) row, creating it on first use.
+     * A single upsert keeps concurrent submits for the same student race-free.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO student_score_aggregate " +
+                   "(id, student_id, activity_id, score_total, max_total, received_count, given_count, " +
+                   "analyzed_count, usefulness_sum, flagged_count, updated_at) " +
+                   "VALUES (:id, :studentId, :activityId, :scoreTotal, :maxTotal, :receivedCount, :givenCount, " +
+                   ":analyzedCount, :usefulnessSum, :flaggedCount, now()) " +
+                   "ON CONFLICT (student_id, activity_id) DO UPDATE SET " +
+                   "score_total = student_score_aggregate.score_total + EXCLUDED.score_total, " +
+                   "max_total = student_score_aggregate.max_total + EXCLUDED.max_total, " +
+                   "received_count = student_score_aggregate.received_count + EXCLUDED.received_count, " +
+                   "given_count = student_score_aggregate.given_count + EXCLUDED.given_count, " +
+                   "analyzed_count = student_score_aggregate.analyzed_count + EXCLUDED.analyzed_count, " +
+                   "usefulness_sum = student_score_aggregate.usefulness_sum + EXCLUDED.usefulness_sum, " +
+                   "flagged_count = student_score_aggregate.flagged_count + EXCLUDED.flagged_count, " +
+                   "updated_at = now()",
+           nativeQuery = true)
+    void applyDelta(@Param("id") String id,
+                    @Param("studentId") String studentId,
+                    @Param("activityId") String activityId,
+                    @Param("scoreTotal") int scoreTotal,
+                    @Param("maxTotal") int maxTotal,
+                    @Param("receivedCount") int receivedCount,
+                    @Param("givenCount") int givenCount,
+                    @Param("analyzedCount") int analyzedCount,
+                    @Param("usefulnessSum") int usefulnessSum,
+                    @Param("flaggedCount") int flaggedCount);
+    
+    /**
+     * Make concurrent upserts wait until the calling transaction ends. EXCLUSIVE still allows
+     * reads but conflicts with the ROW EXCLUSIVE lock every INSERT/UPDATE takes.
+     */
+    @Modifying
+    @Query(value = "LOCK TABLE student_score_aggregate IN EXCLUSIVE MODE", nativeQuery = true)
+    void lockExclusive();
+    
+    /**
+     * Recompute every row from the raw submission, score and analysis tables.
+     */
+    @Modifying
+    @Query(value = "WITH submission_scores AS (" +
+                   "  SELECT submission_id, SUM(score) AS score_sum, SUM(max_score) AS max_sum " +
+                   "  FROM criterion_scores GROUP BY submission_id), " +
+                   "received AS (" +
+                   "  SELECT s.target_id AS student_id, s.activity_id, COUNT(*) AS received_count, " +
+                   "         COALESCE(SUM(ss.score_sum), 0) AS score_total, COALESCE(SUM(ss.max_sum), 0) AS max_total " +
+                   "  FROM evaluation_submissions s " +
+                   "  LEFT JOIN submission_scores ss ON ss.submission_id = s.id " +
+                   "  GROUP BY s.target_id, s.activity_id), " +
+                   "given AS (" +
+                   "  SELECT s.evaluator_id AS student_id, s.activity_id, COUNT(*) AS given_count, " +
+                   "         COUNT(ar.id) AS analyzed_count, COALESCE(SUM(ar.usefulness_score), 0) AS usefulness_sum, " +
+                   "         COUNT(*) FILTER (WHERE ar.is_flagged) AS flagged_count " +
+                   "  FROM evaluation_submissions s " +
+                   "  LEFT JOIN analysis_results ar ON ar.submission_id = s.id " +
+                   "  GROUP BY s.evaluator_id, s.activity_id) " +
+                   "INSERT INTO student_score_aggregate " +
+                   "(id, student_id, activity_id, score_total, max_total, received_count, given_count, " +
+                   "analyzed_count, usefulness_sum, flagged_count, updated_at) " +
+                   "SELECT CAST(gen_random_uuid() AS VARCHAR), " +
+                   "       COALESCE(r.student_id, g.student_id), COALESCE(r.activity_id, g.activity_id), " +
+                   "       COALESCE(r.score_total, 0), COALESCE(r.max_total, 0), COALESCE(r.received_count, 0), " +
+                   "       COALESCE(g.given_count, 0), COALESCE(g.analyzed_count, 0), " +
+                   "       COALESCE(g.usefulness_sum, 0), COALESCE(g.flagged_count, 0), now() " +
+                   "FROM received r " +
+                   "FULL OUTER JOIN given g ON g.student_id = r.student_id AND g.activity_id = r.activity_id",
+           nativeQuery = true)
+    int rebuildFromSubmissions();
+    
+    @Query("SELECT new edu.citu.apeer.dto.StudentScoreTotals(a.student.id, " +
+           "SUM(a.scoreTotal), SUM(a.maxTotal), SUM(a.receivedCount), SUM(a.givenCount), " +
+           "SUM(a.analyzedCount), SUM(a.usefulnessSum), SUM(a.flaggedCount)) " +
+           "FROM StudentScoreAggregate a WHERE a.student.id = :studentId GROUP BY a.student.id")
+    Optional<StudentScoreTotals> findTotalsByStudentId(@Param("studentId") String studentId);
+    
+    @Query("SELECT new edu.citu.apeer.dto.StudentScoreTotals(a.student.id, " +
+           "SUM(a.scoreTotal), SUM(a.maxTotal), SUM(a.receivedCount), SUM(a.givenCount), " +
+           "SUM(a.analyzedCount), SUM(a.usefulnessSum), SUM(a.flaggedCount)) " +
+           "FROM StudentScoreAggregate a GROUP BY a.student.id")
+    List<StudentScoreTotals> findTotalsForAllStudents();
+    
+    /**
+     * One row per student with their aggregate sums, sortable and pageable on the
+     * aliases {@code name}, {@code scoreRatio}, {@code flaggedCount} and {@code givenCount}.
+     */
+    @Query(value = "SELECT u.id AS id, u.name AS name, u.email AS email, " +
+                   "COALESCE(SUM(a.scoreTotal), 0) AS scoreTotal, COALESCE(SUM(a.maxTotal), 0) AS maxTotal, " +
+                   "COALESCE(SUM(a.receivedCount), 0) AS receivedCount, COALESCE(SUM(a.givenCount), 0) AS givenCount, " +
+                   "COALESCE(SUM(a.analyzedCount), 0) AS analyzedCount, COALESCE(SUM(a.usefulnessSum), 0) AS usefulnessSum, " +
+                   "COALESCE(SUM(a.flaggedCount), 0) AS flaggedCount, " +
+                   "CASE WHEN COALESCE(SUM(a.maxTotal), 0) = 0 THEN 0.0 " +
+                   "ELSE SUM(a.scoreTotal) * 1.0 / SUM(a.maxTotal) END AS scoreRatio " +
+                   "FROM User u LEFT JOIN StudentScoreAggregate a ON a.student = u " +
+                   "WHERE u.role = 'STUDENT' " +
+                   "GROUP BY u.id, u.name, u.email",
+           countQuery = "SELECT COUNT(u) FROM User u WHERE u.role = 'STUDENT'")
+    Page<StudentSummaryRow> findStudentSummaries(Pageable pageable);
+    
+    interface StudentSummaryRow {
+        String getId();
+        String getName();
+        String getEmail();
+        Long getScoreTotal();
+        Long getMaxTotal();
+        Long getReceivedCount();
+        Long getGivenCount();
+        Long getAnalyzedCount();
+        Long getUsefulnessSum();
+        Long getFlaggedCount();
+        
+        default StudentScoreTotals toTotals() {
+            return new StudentScoreTotals(getId(), getScoreTotal(), getMaxTotal(), getReceivedCount(),
+                    getGivenCount(), getAnalyzedCount(), getUsefulnessSum(), getFlaggedCount());
+        }
+    }
+}
@@ -1,28 +1,88 @@
 package edu.citu.apeer.repository;
 
+import edu.citu.apeer.dto.UserListRow;
+import edu.citu.apeer.entity.StudentGroup;
 import edu.citu.apeer.entity.User;
 import edu.citu.apeer.entity.UserRole;
+import edu.citu.apeer.entity.UserStatus;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, String> {
     Optional<User> findByEmail(String email);
+    
     boolean existsByEmail(String email);
+    
+    boolean existsByAvatarUrlAndIdNot(String avatarUrl, String id);
     List<User> findByRole(UserRole role);
     
+    String USER_SEARCH_FILTER = "WHERE (:role IS NULL OR u.role = :role) " +
+            "AND (:status IS NULL OR u.status = :status) " +
+            "AND (:groupId IS NULL OR g.id = :groupId) " +
+            "AND (:search IS NULL OR LOWER(u.name) LIKE :search ESCAPE '\\' OR LOWER(u.email) LIKE :search ESCAPE '\\')";
+    
+    /**
+     * Admin listing as projections. Null filters are ignored; {@code search} is a lowercase
+     * LIKE pattern, served by the trigram indexes on name and email.
+     */
+    @Query(value = "SELECT new edu.citu.apeer.dto.UserListRow(u.id, u.name, u.email, u.role, u.status, g.id, g.name) " +
+                   "FROM User u LEFT JOIN u.group g " + USER_SEARCH_FILTER,
+           countQuery = "SELECT COUNT(u) FROM User u LEFT JOIN u.group g " + USER_SEARCH_FILTER)
+    Page<UserListRow> searchUsers(@Param("role") UserRole role,
+                                  @Param("status") UserStatus status,
+                                  @Param("groupId") String groupId,
+                                  @Param("search") String search,
+                                  Pageable pageable);
+    
     @Query("SELECT COUNT(u) FROM User u WHERE u.role = :role AND u.status = 'ACTIVE'")
     long countByRoleAndActive(@Param("role") UserRole role);
     
     @Query("SELECT u FROM User u WHERE u.group.id = :groupId")
     List<User> findByGroupId(@Param("groupId") String groupId);
     
+    /**
+     * The subset of {@code ids} that are active students in the given group
+     */
+    @Query("SELECT u FROM User u WHERE u.id IN :ids AND u.group.id = :groupId " +
+           "AND u.role = 'STUDENT' AND u.status = 'ACTIVE'")
+    List<User> findActiveStudentsInGroup(@Param("ids") Collection<String> ids, @Param("groupId") String groupId);
+    
+    @Query("SELECT u FROM User u WHERE u.id IN :ids AND u.role = 'STUDENT' AND u.status = 'ACTIVE'")
+    List<User> findActiveStudents(@Param("ids") Collection<String> ids);
+    
     @Query("SELECT u FROM User u WHERE u.group IS NULL AND u.role = 'STUDENT'")
     List<User> findUngroupedStudents();
+    
+    /**
+     * Active students with their group, for batch reports; null filters are ignored,
+     * {@code activityId} selects the members of that activity's groups
+     */
+    @Query("SELECT u FROM User u LEFT JOIN FETCH u.group g " +
+           "WHERE u.role = 'STUDENT' AND u.status = 'ACTIVE' " +
+           "AND (:groupId IS NULL OR g.id = :groupId) " +
+           "AND (:activityId IS NULL OR g.activity.id = :activityId) " +
+           "ORDER BY g.name, u.name")
+    List<User> findActiveStudentsForReports(@Param("groupId") String groupId,
+                                            @Param("activityId") String activityId);
+    
+    List<User> findByEmailIn(Collection<String> emails);
+    
+    /**
+     * Move all of {@code ids} into {@code group} with one statement. Bypasses the
+     * persistence context, so callers evict the moved users from the lookup cache.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE User u SET u.group = :group, u.updatedAt = CURRENT_TIMESTAMP WHERE u.id IN :ids")
+    int assignGroup(@Param("group") StudentGroup group, @Param("ids") Collection<String> ids);
 }
 
@@ -21,6 +21,12 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     
     private final JwtUtil jwtUtil;
     
+    /** Public files are served the same to everyone; don't parse a token for every avatar */
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return request.getRequestURI().startsWith(request.getContextPath() + "/api/files/");
+    }
+    
     @Override
     protected void doFilterInternal(
             HttpServletRequest request,
@@ -37,15 +43,13 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         String token = authHeader.substring(7);
         
         try {
-            if (jwtUtil.validateToken(token)) {
-                String email = jwtUtil.getEmailFromToken(token);
-                String role = jwtUtil.getRoleFromToken(token);
-                
-                SimpleGrantedAuthority authority = new SimpleGrantedAuthority("ROLE_" + role.toUpperCase());
+            JwtPrincipal principal = jwtUtil.parse(token).orElse(null);
+            if (principal != null) {
+                SimpleGrantedAuthority authority = new SimpleGrantedAuthority("ROLE_" + principal.getRole().toUpperCase());
                 
                 UsernamePasswordAuthenticationToken authentication = 
                     new UsernamePasswordAuthenticationToken(
-                        email,
+                        principal.getEmail(),
                         null,
                         Collections.singletonList(authority)
                     );
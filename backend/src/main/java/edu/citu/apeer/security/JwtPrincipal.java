@@ -0,0 +1,17 @@
+package edu.citu.apeer.security;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.Instant;
+
+/**
+ * Identity carried by a verified APEER token
+ */
+@Getter
+@AllArgsConstructor
+public class JwtPrincipal {
+    private final String email;
+    private final String role;
+    private final Instant expiresAt;
+}
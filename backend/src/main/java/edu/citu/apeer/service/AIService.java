@@ -0,0 +1,25 @@
+package edu.citu.apeer.service;
+
+import edu.citu.apeer.dto.AnalysisResultDTO;
+
+import java.util.List;
+
+/**
+ * Comment analysis contract shared by the local keyword analyzer and the remote NLP client.
+ */
+public interface AIService {
+    
+    /**
+     * Analyze one comment. {@code AnalysisCacheService} passes the normalized text it keys the
+     * cache by, so implementations need not fold case or whitespace themselves.
+     */
+    AnalysisResultDTO analyzeComment(String comment);
+    
+    /**
+     * Identifies the rules or model behind {@link #analyzeComment}. Cached results are keyed by it,
+     * so changing the analyzer's output must come with a new version.
+     */
+    String getVersion();
+    
+    String generateSummary(List<String> comments);
+}
@@ -0,0 +1,84 @@
+package edu.citu.apeer.service;
+
+import edu.citu.apeer.dto.ActivityExportRow;
+import edu.citu.apeer.entity.EvaluationActivity;
+import edu.citu.apeer.repository.EvaluationActivityRepository;
+import edu.citu.apeer.repository.EvaluationSubmissionRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Activity results export shared by the teacher and activity endpoints. Rows are aggregated
+ * by the database and written to the output as they arrive, so memory use does not grow
+ * with the number of submissions.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ActivityExportService {
+    
+    private static final byte[] UTF8_BOM = {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF};
+    
+    private final EvaluationActivityRepository activityRepository;
+    private final EvaluationSubmissionRepository submissionRepository;
+    
+    public EvaluationActivity getActivity(String activityId) {
+        return activityRepository.findById(activityId)
+                .orElseThrow(() -> new RuntimeException("Activity not found"));
+    }
+    
+    public String exportFilename(EvaluationActivity activity) {
+        return "activity_" + activity.getName().replaceAll("[^a-zA-Z0-9]", "_") + ".csv";
+    }
+    
+    /**
+     * Write the CSV for an activity to the given stream. The transaction keeps the database
+     * cursor open while rows are written; the stream itself is not closed.
+     */
+    @Transactional(readOnly = true)
+    public void writeActivityCsv(String activityId, OutputStream out) throws IOException {
+        // Write BOM for Excel compatibility
+        out.write(UTF8_BOM);
+        
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write("Student Name,Email,Group,Evaluations Received,Average Score,AI Flagged?\n");
+        
+        int rowCount = 0;
+        try (Stream<ActivityExportRow> rows = submissionRepository.streamExportRowsByActivityId(activityId)) {
+            Iterator<ActivityExportRow> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                ActivityExportRow row = iterator.next();
+                writer.write(String.format("%s,%s,%s,%d,%.2f,%s\n",
+                        escapeCSV(row.getStudentName()),
+                        escapeCSV(row.getEmail()),
+                        escapeCSV(row.getGroupName() != null ? row.getGroupName() : "Ungrouped"),
+                        row.getEvaluationsReceived(),
+                        row.averageScore(),
+                        row.getFlagged() == 1 ? "Yes" : "No"));
+                rowCount++;
+            }
+        }
+        
+        writer.flush();
+        log.debug("Exported {} rows for activity {}", rowCount, activityId);
+    }
+    
+    private String escapeCSV(String value) {
+        if (value == null) return "";
+        if (value.contains(",") || value.contains("\"") || value.contains("\n")) {
+            return "\"" + value.replace("\"", "\"\"") + "\"";
+        }
+        return value;
+    }
+}
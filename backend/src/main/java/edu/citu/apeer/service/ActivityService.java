@@ -12,7 +12,10 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -26,17 +29,16 @@ public class ActivityService {
     private final EvaluationSubmissionRepository submissionRepository;
     
     public List<ActivityDTO> getAllActivities() {
-        return activityRepository.findAllByOrderByCreatedAtDesc()
-                .stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return convertToDTOs(activityRepository.findAllByOrderByCreatedAtDesc());
     }
     
     public List<ActivityDTO> getActiveActivities() {
-        return activityRepository.findActiveActivities()
+        // The list may be cached from up to a minute ago, so activities that just closed are dropped here
+        LocalDateTime now = LocalDateTime.now();
+        return convertToDTOs(activityRepository.findActiveActivities()
                 .stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+                .filter(activity -> activity.getDueDate().isAfter(now))
+                .collect(Collectors.toList()));
     }
     
     public ActivityDTO createActivity(CreateActivityRequest request) {
@@ -71,12 +73,34 @@ public class ActivityService {
         
         activity = activityRepository.save(activity);
         
-        return convertToDTO(activity);
+        return convertToDTO(activity, null);
+    }
+    
+    /**
+     * Convert a list of activities, counting the submissions of all of them in one grouped query
+     */
+    private List<ActivityDTO> convertToDTOs(List<EvaluationActivity> activities) {
+        if (activities.isEmpty()) {
+            return new ArrayList<>();
+        }
+        
+        List<String> ids = activities.stream().map(EvaluationActivity::getId).collect(Collectors.toList());
+        Map<String, ActivitySubmissionCount> counts = submissionRepository.countByActivityIds(ids).stream()
+                .collect(Collectors.toMap(ActivitySubmissionCount::getActivityId, Function.identity()));
+        
+        return activities.stream()
+                .map(activity -> convertToDTO(activity, counts.get(activity.getId())))
+                .collect(Collectors.toList());
     }
     
-    private ActivityDTO convertToDTO(EvaluationActivity activity) {
-        // Calculate submission count for this activity
-        int submissionCount = submissionRepository.findByActivityId(activity.getId()).size();
+    private ActivityDTO convertToDTO(EvaluationActivity activity, ActivitySubmissionCount counts) {
+        int submissionCount = counts != null ? counts.getSubmissionCount().intValue() : 0;
+        int evaluatorCount = counts != null ? counts.getEvaluatorCount().intValue() : 0;
+        
+        // Share of participants who have submitted at least one evaluation
+        int participants = activity.getParticipants() != null ? activity.getParticipants() : 0;
+        int completionRate = participants == 0 ? 0
+                : Math.min(100, (int) Math.round(evaluatorCount * 100.0 / participants));
         
         return ActivityDTO.builder()
                 .id(activity.getId())
@@ -86,6 +110,8 @@ public class ActivityService {
                 .status(activity.getStatus().name().toLowerCase())
                 .participants(activity.getParticipants())
                 .submissionCount(submissionCount)
+                .evaluatorCount(evaluatorCount)
+                .completionRate(completionRate)
                 .totalParticipants(activity.getParticipants())
                 .build();
     }
@@ -0,0 +1,188 @@
+package edu.citu.apeer.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import edu.citu.apeer.dto.AnalysisResultDTO;
+import edu.citu.apeer.entity.AnalysisCacheEntry;
+import edu.citu.apeer.repository.AnalysisCacheRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * Content-addressed cache in front of {@link AIService}. Results are keyed by a SHA-256 of the
+ * analyzer version and the normalized comment, so repeated comments skip inference and a new
+ * analyzer version simply stops matching old entries. Lookups go to a bounded in-process
+ * Caffeine (W-TinyLFU) tier first, then to the {@code analysis_cache} table.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class AnalysisCacheService {
+    
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    // Widths of analysis_cache.tags and flag_reason
+    private static final int TAGS_MAX_LENGTH = 500;
+    private static final int FLAG_REASON_MAX_LENGTH = 500;
+    
+    private final AIService aiService;
+    private final AnalysisCacheRepository cacheRepository;
+    
+    @Value("${ai.analysis.cache.max-entries:10000}")
+    private long maxEntries;
+    
+    private Cache<String, AnalysisResultDTO> memory;
+    private final LongAdder databaseHits = new LongAdder();
+    private final LongAdder databaseMisses = new LongAdder();
+    
+    @PostConstruct
+    void init() {
+        memory = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .recordStats()
+                .build();
+    }
+    
+    /**
+     * Case, surrounding whitespace, runs of whitespace and Unicode compatibility forms
+     * don't change what a comment says, so they don't change its cache key either.
+     */
+    public static String normalize(String comment) {
+        if (comment == null) {
+            return "";
+        }
+        String text = Normalizer.normalize(comment, Normalizer.Form.NFKC);
+        return WHITESPACE.matcher(text.trim()).replaceAll(" ").toLowerCase(Locale.ROOT);
+    }
+    
+    public AnalysisResultDTO analyze(String comment) {
+        String version = aiService.getVersion();
+        // Analyze the text that was hashed, so every comment sharing a key gets the same answer
+        String normalized = normalize(comment);
+        String key = contentHash(version, normalized);
+        
+        AnalysisResultDTO cached = memory.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+        
+        AnalysisCacheEntry stored = cacheRepository.findById(key).orElse(null);
+        if (stored != null) {
+            databaseHits.increment();
+            AnalysisResultDTO result = toDTO(stored);
+            memory.put(key, result);
+            return result;
+        }
+        databaseMisses.increment();
+        
+        AnalysisResultDTO result = fitColumns(aiService.analyzeComment(normalized));
+        
+        // A remote analyzer may have answered with its local fallback; that result belongs to another version
+        if (version.equals(result.getAnalyzerVersion())) {
+            memory.put(key, result);
+            cacheRepository.insertIfAbsent(key, version, String.join(",", result.getTags()),
+                    result.getSentimentScore(), result.getUsefulnessScore(),
+                    result.getIsFlagged(), result.getFlagReason());
+        }
+        return result;
+    }
+    
+    /**
+     * Drop stored analyses from earlier analyzer versions; they can no longer be hit.
+     */
+    public int purgeStaleVersions() {
+        int removed = cacheRepository.deleteByAnalyzerVersionNot(aiService.getVersion());
+        if (removed > 0) {
+            log.info("Removed {} cached analyses from previous analyzer versions", removed);
+        }
+        return removed;
+    }
+    
+    public Map<String, Object> getStats() {
+        CacheStats stats = memory.stats();
+        long dbHits = databaseHits.sum();
+        long dbMisses = databaseMisses.sum();
+        
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("analyzerVersion", aiService.getVersion());
+        result.put("memoryEntries", memory.estimatedSize());
+        result.put("memoryHits", stats.hitCount());
+        result.put("memoryMisses", stats.missCount());
+        result.put("memoryEvictions", stats.evictionCount());
+        result.put("databaseHits", dbHits);
+        result.put("databaseMisses", dbMisses);
+        result.put("hitRate", stats.requestCount() == 0 ? 0.0
+                : (double) (stats.hitCount() + dbHits) / stats.requestCount());
+        return result;
+    }
+    
+    /**
+     * Keep the leading tags whose comma-joined form fits the tags column and cut an over-long
+     * flag reason, so a verbose remote answer is stored instead of failing the insert. Applied
+     * before the result is returned as well, so a fresh answer and a cached one look the same.
+     */
+    static AnalysisResultDTO fitColumns(AnalysisResultDTO result) {
+        List<String> tags = result.getTags() == null ? List.of() : result.getTags();
+        List<String> kept = new ArrayList<>();
+        int length = 0;
+        for (String tag : tags) {
+            if (tag == null || tag.isBlank() || tag.contains(",")) {
+                continue;
+            }
+            int added = kept.isEmpty() ? tag.length() : tag.length() + 1;
+            if (length + added > TAGS_MAX_LENGTH) {
+                break;
+            }
+            kept.add(tag);
+            length += added;
+        }
+        result.setTags(kept);
+        
+        String reason = result.getFlagReason();
+        if (reason != null && reason.length() > FLAG_REASON_MAX_LENGTH) {
+            result.setFlagReason(reason.substring(0, FLAG_REASON_MAX_LENGTH));
+        }
+        return result;
+    }
+    
+    private AnalysisResultDTO toDTO(AnalysisCacheEntry entry) {
+        List<String> tags = entry.getTags().isEmpty() ? List.of() : Arrays.asList(entry.getTags().split(","));
+        return AnalysisResultDTO.builder()
+                .tags(tags)
+                .sentimentScore(entry.getSentimentScore())
+                .usefulnessScore(entry.getUsefulnessScore())
+                .isFlagged(entry.getIsFlagged())
+                .flagReason(entry.getFlagReason())
+                .analyzerVersion(entry.getAnalyzerVersion())
+                .build();
+    }
+    
+    private static String contentHash(String version, String normalized) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(version.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(normalized.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,303 @@
+package edu.citu.apeer.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.citu.apeer.dto.AnalysisResultDTO;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Client for the Flask NLP service at {@code ai.service.url}. Concurrent
+ * {@link #analyzeComment} calls are collected into micro-batches (up to
+ * {@code ai.service.batch-size} comments, waiting at most {@code ai.service.linger} ms)
+ * and sent as one request, with at most {@code ai.service.max-in-flight} requests open at once.
+ * Calls that fail or exceed {@code ai.service.timeout} are answered by the local
+ * {@link FakeAIService}; after a connection failure the remote is skipped for
+ * {@code ai.service.cooldown} ms.
+ */
+@Service
+@Primary
+@ConditionalOnProperty(name = "ai.service.enabled", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class AnalysisClient implements AIService {
+    
+    private final FakeAIService fallback;
+    private final ObjectMapper objectMapper;
+    
+    @Value("${ai.service.url}")
+    private String serviceUrl;
+    
+    @Value("${ai.service.batch-path:/api/analyze_batch}")
+    private String batchPath;
+    
+    @Value("${ai.service.model-version:remote-1}")
+    private String modelVersion;
+    
+    @Value("${ai.service.timeout:30000}")
+    private long timeoutMs;
+    
+    @Value("${ai.service.summary-timeout:3000}")
+    private long summaryTimeoutMs;
+    
+    @Value("${ai.service.batch-size:16}")
+    private int batchSize;
+    
+    @Value("${ai.service.linger:20}")
+    private long lingerMs;
+    
+    @Value("${ai.service.max-in-flight:4}")
+    private int maxInFlight;
+    
+    @Value("${ai.service.cooldown:30000}")
+    private long cooldownMs;
+    
+    private final BlockingQueue<PendingAnalysis> queue = new LinkedBlockingQueue<>();
+    private HttpClient httpClient;
+    private Semaphore inFlight;
+    private Thread dispatcher;
+    private volatile boolean running;
+    private volatile long remoteDownUntil;
+    
+    @PostConstruct
+    void start() {
+        httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofMillis(Math.min(timeoutMs, 5000)))
+                .build();
+        inFlight = new Semaphore(maxInFlight);
+        running = true;
+        dispatcher = new Thread(this::dispatchLoop, "analysis-batcher");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+        log.info("Remote analysis enabled at {} (batch size {}, linger {}ms, max in flight {})",
+                serviceUrl, batchSize, lingerMs, maxInFlight);
+    }
+    
+    @PreDestroy
+    void stop() {
+        running = false;
+        dispatcher.interrupt();
+        List<PendingAnalysis> abandoned = new ArrayList<>();
+        queue.drainTo(abandoned);
+        abandoned.forEach(p -> p.result.completeExceptionally(new IllegalStateException("Client stopped")));
+    }
+    
+    @Override
+    public String getVersion() {
+        return modelVersion;
+    }
+    
+    /**
+     * Results answered by the local fallback carry the local analyzer's version, so they are
+     * never cached as if the remote model had produced them.
+     */
+    @Override
+    public AnalysisResultDTO analyzeComment(String comment) {
+        if (isRemoteDown()) {
+            return fallback.analyzeComment(comment);
+        }
+        
+        PendingAnalysis pending = new PendingAnalysis(comment);
+        queue.add(pending);
+        try {
+            return pending.result.get(timeoutMs + lingerMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            pending.result.cancel(false);
+            log.warn("Remote analysis timed out after {}ms, using local analyzer", timeoutMs);
+        } catch (ExecutionException e) {
+            log.debug("Remote analysis failed, using local analyzer: {}", e.getCause().getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return fallback.analyzeComment(comment);
+    }
+    
+    @Override
+    public String generateSummary(List<String> comments) {
+        if (comments.isEmpty() || isRemoteDown()) {
+            return fallback.generateSummary(comments);
+        }
+        
+        boolean acquired = false;
+        try {
+            acquired = inFlight.tryAcquire(summaryTimeoutMs, TimeUnit.MILLISECONDS);
+            if (!acquired) {
+                return fallback.generateSummary(comments);
+            }
+            
+            HttpRequest request = jsonPost("/api/summarize", Map.of("comments", comments), summaryTimeoutMs);
+            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200) {
+                throw new IOException("AI service returned HTTP " + response.statusCode());
+            }
+            
+            JsonNode summary = objectMapper.readTree(response.body()).path("summary");
+            String strengths = summary.path("strengths").asText("");
+            return strengths.isEmpty() ? fallback.generateSummary(comments) : strengths;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            onRemoteFailure(e);
+        } finally {
+            if (acquired) {
+                inFlight.release();
+            }
+        }
+        return fallback.generateSummary(comments);
+    }
+    
+    private void dispatchLoop() {
+        while (running) {
+            try {
+                List<PendingAnalysis> batch = new ArrayList<>(batchSize);
+                batch.add(queue.take());
+                queue.drainTo(batch, batchSize - batch.size());
+                
+                // Linger briefly so comments submitted together travel in one request
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(lingerMs);
+                while (batch.size() < batchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    PendingAnalysis next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : null;
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                    queue.drainTo(batch, batchSize - batch.size());
+                }
+                
+                // Callers that already gave up are not worth sending
+                batch.removeIf(p -> p.result.isDone());
+                if (batch.isEmpty()) {
+                    continue;
+                }
+                
+                inFlight.acquire();
+                send(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+    
+    private void send(List<PendingAnalysis> batch) {
+        HttpRequest request;
+        try {
+            List<String> texts = batch.stream().map(p -> p.comment).toList();
+            request = jsonPost(batchPath, Map.of("texts", texts), timeoutMs);
+        } catch (IOException e) {
+            inFlight.release();
+            batch.forEach(p -> p.result.completeExceptionally(e));
+            return;
+        }
+        
+        httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                .whenComplete((response, error) -> {
+                    inFlight.release();
+                    try {
+                        if (error != null) {
+                            throw error instanceof CompletionException && error.getCause() != null
+                                    ? error.getCause() : error;
+                        }
+                        if (response.statusCode() != 200) {
+                            throw new IOException("AI service returned HTTP " + response.statusCode());
+                        }
+                        
+                        JsonNode results = objectMapper.readTree(response.body()).path("results");
+                        if (!results.isArray() || results.size() != batch.size()) {
+                            throw new IOException("AI service returned " + results.size()
+                                    + " results for " + batch.size() + " comments");
+                        }
+                        for (int i = 0; i < batch.size(); i++) {
+                            batch.get(i).result.complete(toAnalysis(results.get(i)));
+                        }
+                    } catch (Throwable t) {
+                        onRemoteFailure(t);
+                        batch.forEach(p -> p.result.completeExceptionally(t));
+                    }
+                });
+    }
+    
+    private HttpRequest jsonPost(String path, Object body, long timeout) throws IOException {
+        return HttpRequest.newBuilder(URI.create(serviceUrl + path))
+                .timeout(Duration.ofMillis(timeout))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(body)))
+                .build();
+    }
+    
+    private AnalysisResultDTO toAnalysis(JsonNode node) {
+        List<String> tags = new ArrayList<>();
+        node.path("tags").forEach(tag -> tags.add(tag.asText()));
+        if (tags.isEmpty()) {
+            tags.add("Neutral");
+        }
+        
+        double sentiment = Math.max(-1.0, Math.min(1.0, node.path("polarity_score").asDouble(0.0)));
+        int usefulness = Math.max(0, Math.min(100, node.path("usefulness_score").asInt(50)));
+        boolean flagged = node.path("flagged").asBoolean(false);
+        String flagReason = node.hasNonNull("flag_reason") ? node.get("flag_reason").asText() : null;
+        
+        return AnalysisResultDTO.builder()
+                .tags(tags)
+                .sentimentScore(sentiment)
+                .usefulnessScore(usefulness)
+                .isFlagged(flagged)
+                .flagReason(flagged ? (flagReason != null ? flagReason : "Flagged by AI service") : null)
+                .analyzerVersion(modelVersion)
+                .build();
+    }
+    
+    private boolean isRemoteDown() {
+        return System.currentTimeMillis() < remoteDownUntil;
+    }
+    
+    /**
+     * A slow answer only costs the caller its timeout; an unreachable or failing
+     * service is skipped entirely for the cooldown period.
+     */
+    private void onRemoteFailure(Throwable error) {
+        if (error instanceof HttpTimeoutException) {
+            log.warn("AI service request timed out: {}", error.getMessage());
+            return;
+        }
+        if (!isRemoteDown()) {
+            log.warn("AI service unavailable, using local analyzer for {}ms: {}", cooldownMs, error.toString());
+        }
+        remoteDownUntil = System.currentTimeMillis() + cooldownMs;
+    }
+    
+    private static class PendingAnalysis {
+        private final String comment;
+        private final CompletableFuture<AnalysisResultDTO> result = new CompletableFuture<>();
+        
+        private PendingAnalysis(String comment) {
+            this.comment = comment;
+        }
+    }
+}
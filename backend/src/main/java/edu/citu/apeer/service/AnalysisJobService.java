@@ -0,0 +1,146 @@
+package edu.citu.apeer.service;
+
+import edu.citu.apeer.dto.AnalysisResultDTO;
+import edu.citu.apeer.entity.*;
+import edu.citu.apeer.repository.AnalysisJobRepository;
+import edu.citu.apeer.repository.AnalysisResultRepository;
+import edu.citu.apeer.repository.EvaluationSubmissionRepository;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Durable queue of pending comment analyses backed by the {@code analysis_jobs} table.
+ * Each step is its own short transaction so no connection is held while a model runs.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Transactional
+public class AnalysisJobService {
+    
+    private final AnalysisJobRepository jobRepository;
+    private final EvaluationSubmissionRepository submissionRepository;
+    private final AnalysisResultRepository analysisRepository;
+    private final StudentScoreAggregateService aggregateService;
+    
+    @Value("${ai.analysis.max-attempts:5}")
+    private int maxAttempts;
+    
+    @Value("${ai.analysis.lease-timeout:120000}")
+    private long leaseTimeoutMs;
+    
+    /**
+     * Queue a submission for analysis; joins the caller's transaction
+     */
+    public void enqueue(EvaluationSubmission submission) {
+        AnalysisJob job = AnalysisJob.builder()
+                .submission(submission)
+                .availableAt(LocalDateTime.now())
+                .build();
+        jobRepository.save(job);
+    }
+    
+    /**
+     * Queue several submissions at once; the jobs are inserted as one batch
+     */
+    public void enqueueAll(List<EvaluationSubmission> submissions) {
+        LocalDateTime now = LocalDateTime.now();
+        List<AnalysisJob> jobs = submissions.stream()
+                .map(submission -> AnalysisJob.builder()
+                        .submission(submission)
+                        .availableAt(now)
+                        .build())
+                .collect(Collectors.toList());
+        jobRepository.saveAll(jobs);
+    }
+    
+    /**
+     * Mark up to {@code limit} runnable jobs as processing and return what is needed to run them
+     */
+    public List<ClaimedJob> claim(int limit) {
+        LocalDateTime now = LocalDateTime.now();
+        List<AnalysisJob> jobs = jobRepository.lockRunnable(
+                now, now.minusNanos(leaseTimeoutMs * 1_000_000), limit);
+        if (jobs.isEmpty()) {
+            return new ArrayList<>();
+        }
+        
+        for (AnalysisJob job : jobs) {
+            job.setStatus(AnalysisJobStatus.PROCESSING);
+            job.setLockedAt(now);
+            job.setAttempts(job.getAttempts() + 1);
+        }
+        
+        List<String> ids = jobs.stream().map(AnalysisJob::getId).collect(Collectors.toList());
+        return jobRepository.findPayloads(ids).stream()
+                .map(row -> new ClaimedJob((String) row[0], (String) row[1], (String) row[2]))
+                .collect(Collectors.toList());
+    }
+    
+    /**
+     * Store the analysis and drop the job. A job already completed by another worker
+     * (e.g. after a stale claim was retried) is ignored.
+     */
+    public void complete(ClaimedJob claimed, AnalysisResultDTO analysis) {
+        AnalysisJob job = jobRepository.findByIdForUpdate(claimed.getJobId()).orElse(null);
+        if (job == null) {
+            log.debug("Analysis job {} was already completed", claimed.getJobId());
+            return;
+        }
+        
+        EvaluationSubmission submission = submissionRepository.getReferenceById(claimed.getSubmissionId());
+        AnalysisResult analysisResult = AnalysisResult.builder()
+                .submission(submission)
+                .tags(new ArrayList<>(analysis.getTags()))
+                .sentimentScore(analysis.getSentimentScore())
+                .usefulnessScore(analysis.getUsefulnessScore())
+                .isFlagged(analysis.getIsFlagged())
+                .flagReason(analysis.getFlagReason())
+                .build();
+        
+        analysisRepository.save(analysisResult);
+        aggregateService.recordAnalysis(submission, analysisResult);
+        jobRepository.delete(job);
+    }
+    
+    /**
+     * Put the job back with exponential backoff, or park it as failed after the last attempt
+     */
+    public void fail(ClaimedJob claimed, Exception error) {
+        jobRepository.findByIdForUpdate(claimed.getJobId()).ifPresent(job -> {
+            String message = String.valueOf(error.getMessage());
+            job.setLastError(message.length() > 1000 ? message.substring(0, 1000) : message);
+            job.setLockedAt(null);
+            
+            if (job.getAttempts() >= maxAttempts) {
+                job.setStatus(AnalysisJobStatus.FAILED);
+                log.error("Analysis of submission {} failed after {} attempts: {}",
+                        claimed.getSubmissionId(), job.getAttempts(), message);
+            } else {
+                long backoffSeconds = 1L << Math.min(job.getAttempts(), 10);
+                job.setStatus(AnalysisJobStatus.PENDING);
+                job.setAvailableAt(LocalDateTime.now().plusSeconds(backoffSeconds));
+                log.warn("Analysis of submission {} failed (attempt {}), retrying in {}s: {}",
+                        claimed.getSubmissionId(), job.getAttempts(), backoffSeconds, message);
+            }
+        });
+    }
+    
+    @Getter
+    @AllArgsConstructor
+    public static class ClaimedJob {
+        private final String jobId;
+        private final String submissionId;
+        private final String comment;
+    }
+}
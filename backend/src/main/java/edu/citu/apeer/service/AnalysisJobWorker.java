@@ -0,0 +1,96 @@
+package edu.citu.apeer.service;
+
+import edu.citu.apeer.dto.AnalysisResultDTO;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Polls the analysis outbox and runs claimed jobs on a fixed worker pool. Only as many jobs
+ * are claimed as there are idle workers, so nothing sits locked in a local queue.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class AnalysisJobWorker {
+    
+    private final AnalysisJobService jobService;
+    private final AnalysisCacheService analysisCache;
+    
+    @Value("${ai.analysis.workers:4}")
+    private int workers;
+    
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private ExecutorService pool;
+    
+    @PostConstruct
+    void start() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        pool = Executors.newFixedThreadPool(workers, runnable -> {
+            Thread thread = new Thread(runnable, "analysis-worker-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    @PreDestroy
+    void stop() throws InterruptedException {
+        // Unfinished jobs stay claimed in the table and are retried once their lease expires
+        pool.shutdown();
+        pool.awaitTermination(10, TimeUnit.SECONDS);
+    }
+    
+    @Scheduled(fixedDelayString = "${ai.analysis.poll-interval:1000}")
+    public void poll() {
+        int idle = workers - inFlight.get();
+        if (idle <= 0) {
+            return;
+        }
+        
+        List<AnalysisJobService.ClaimedJob> jobs;
+        try {
+            jobs = jobService.claim(idle);
+        } catch (Exception e) {
+            log.error("Could not claim analysis jobs: ", e);
+            return;
+        }
+        
+        for (AnalysisJobService.ClaimedJob job : jobs) {
+            inFlight.incrementAndGet();
+            pool.execute(() -> {
+                try {
+                    run(job);
+                } finally {
+                    inFlight.decrementAndGet();
+                }
+            });
+        }
+    }
+    
+    private void run(AnalysisJobService.ClaimedJob job) {
+        AnalysisResultDTO analysis;
+        try {
+            analysis = analysisCache.analyze(job.getComment() != null ? job.getComment() : "");
+        } catch (Exception e) {
+            jobService.fail(job, e);
+            return;
+        }
+        
+        try {
+            jobService.complete(job, analysis);
+        } catch (Exception e) {
+            log.error("Could not store analysis for submission {}: ", job.getSubmissionId(), e);
+            jobService.fail(job, e);
+        }
+    }
+}
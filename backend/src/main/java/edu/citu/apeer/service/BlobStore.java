@@ -0,0 +1,44 @@
+package edu.citu.apeer.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.time.Instant;
+
+/**
+ * Where uploaded files are kept: a sharded local directory ({@link LocalBlobStore}) or an
+ * S3-compatible bucket shared by every backend node ({@link S3BlobStore}), chosen with
+ * {@code file.storage.type}. Keys are relative paths like {@code avatars/<name>}; a blob is
+ * written once and never changed afterwards.
+ */
+public interface BlobStore {
+    
+    /**
+     * Store a finished local file as {@code key}. The blob appears whole or not at all; the
+     * file is moved or copied, and the caller may delete whatever is left of it.
+     */
+    void put(String key, Path file, String contentType) throws IOException;
+    
+    /** Size and modification time, or null if there's no such blob */
+    BlobInfo stat(String key) throws IOException;
+    
+    /** @throws java.nio.file.NoSuchFileException if there's no such blob */
+    InputStream open(String key) throws IOException;
+    
+    void delete(String key) throws IOException;
+    
+    /** The blob as a file on this machine, so it can be sent without copying; null for remote stores */
+    default Path localPath(String key) {
+        return null;
+    }
+    
+    @Getter
+    @AllArgsConstructor
+    class BlobInfo {
+        private final long size;
+        private final Instant lastModified;
+    }
+}
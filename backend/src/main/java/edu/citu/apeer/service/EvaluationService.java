@@ -8,7 +8,13 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -19,20 +25,22 @@ public class EvaluationService {
     private final UserRepository userRepository;
     private final EvaluationActivityRepository activityRepository;
     private final EvaluationSubmissionRepository submissionRepository;
-    private final CriterionScoreRepository scoreRepository;
-    private final AnalysisResultRepository analysisRepository;
-    private final FakeAIService aiService;
+    private final StudentScoreAggregateService aggregateService;
+    private final AnalysisJobService analysisJobService;
+    private final UserLookupService userLookupService;
+    
+    private static final int MAX_BULK_EVALUATIONS = 50;
     
     /**
      * Get list of students that the current student can evaluate
      * Based on group membership - students can only evaluate peers in their group
      */
     public List<User> getStudentsToEvaluate(String currentStudentEmail) {
-        User currentUser = userRepository.findByEmail(currentStudentEmail)
+        CurrentUser currentUser = userLookupService.findByEmail(currentStudentEmail)
                 .orElseThrow(() -> new RuntimeException("Student not found"));
         
         // If user has no group, return empty list (or all students if class-wide activity)
-        if (currentUser.getGroup() == null) {
+        if (currentUser.getGroupId() == null) {
             // Return all students except self (for class-wide activities)
             return userRepository.findByRole(UserRole.STUDENT).stream()
                     .filter(u -> !u.getId().equals(currentUser.getId()))
@@ -41,7 +49,7 @@ public class EvaluationService {
         }
         
         // Get all students in the same group, excluding self
-        String groupId = currentUser.getGroup().getId();
+        String groupId = currentUser.getGroupId();
         return userRepository.findByGroupId(groupId).stream()
                 .filter(u -> !u.getId().equals(currentUser.getId()))
                 .filter(u -> u.getStatus() == UserStatus.ACTIVE)
@@ -52,7 +60,7 @@ public class EvaluationService {
             String evaluatorEmail,
             EvaluationSubmissionRequest request) {
         
-        User evaluator = userRepository.findByEmail(evaluatorEmail)
+        CurrentUser evaluator = userLookupService.findByEmail(evaluatorEmail)
                 .orElseThrow(() -> new RuntimeException("Evaluator not found"));
         
         if (request.getTargetStudentId() == null || request.getTargetStudentId().isEmpty()) {
@@ -74,43 +82,130 @@ public class EvaluationService {
             throw new RuntimeException("You have already evaluated this student for this activity");
         }
         
-        EvaluationSubmission submission = EvaluationSubmission.builder()
-                .evaluator(evaluator)
-                .target(target)
-                .activity(activity)
-                .comment(request.getComment())
-                .build();
+        EvaluationSubmission submission = buildSubmission(
+                userRepository.getReferenceById(evaluator.getId()), target, activity, request);
         
         submission = submissionRepository.save(submission);
+        aggregateService.recordSubmission(submission, submission.getScores());
+        
+        // Analysis runs later on the worker pool; the job commits with the submission
+        analysisJobService.enqueue(submission);
+        
+        return EvaluationSubmissionResponse.builder()
+                .id(submission.getId())
+                .message("Evaluation submitted successfully")
+                .analysisStatus("PENDING")
+                .build();
+    }
+    
+    /**
+     * Submit one evaluation per target for a single activity, all or nothing. Targets are
+     * checked against the evaluator's group and earlier submissions with one query each,
+     * the submissions and their scores are inserted in JDBC batches, and the comments are
+     * queued for analysis together.
+     */
+    public List<EvaluationSubmissionResponse> submitEvaluations(
+            String evaluatorEmail,
+            BulkEvaluationSubmissionRequest request) {
         
-        for (CriterionScoreRequest scoreReq : request.getScores()) {
-            CriterionScore score = CriterionScore.builder()
-                    .submission(submission)
-                    .criterionName(scoreReq.getCriterionName())
-                    .score(scoreReq.getScore())
-                    .maxScore(5)
-                    .build();
-            scoreRepository.save(score);
+        CurrentUser evaluator = userLookupService.findByEmail(evaluatorEmail)
+                .orElseThrow(() -> new RuntimeException("Evaluator not found"));
+        
+        if (request.getActivityId() == null || request.getActivityId().isEmpty()) {
+            throw new RuntimeException("Activity ID is required");
         }
         
-        AnalysisResultDTO analysisDTO = aiService.analyzeComment(request.getComment());
+        List<EvaluationSubmissionRequest> evaluations = request.getEvaluations();
+        if (evaluations == null || evaluations.isEmpty()) {
+            throw new RuntimeException("At least one evaluation is required");
+        }
+        if (evaluations.size() > MAX_BULK_EVALUATIONS) {
+            throw new RuntimeException("At most " + MAX_BULK_EVALUATIONS + " evaluations can be submitted at once");
+        }
         
-        AnalysisResult analysisResult = AnalysisResult.builder()
-                .submission(submission)
-                .tags(analysisDTO.getTags())
-                .sentimentScore(analysisDTO.getSentimentScore())
-                .usefulnessScore(analysisDTO.getUsefulnessScore())
-                .isFlagged(analysisDTO.getIsFlagged())
-                .flagReason(analysisDTO.getFlagReason())
-                .build();
+        Set<String> targetIds = new LinkedHashSet<>();
+        for (EvaluationSubmissionRequest evaluation : evaluations) {
+            String targetId = evaluation.getTargetStudentId();
+            if (targetId == null || targetId.isEmpty()) {
+                throw new RuntimeException("Target student ID is required");
+            }
+            if (evaluation.getActivityId() != null && !evaluation.getActivityId().isEmpty()
+                    && !evaluation.getActivityId().equals(request.getActivityId())) {
+                throw new RuntimeException("All evaluations must be for activity " + request.getActivityId());
+            }
+            if (!targetIds.add(targetId)) {
+                throw new RuntimeException("Student " + targetId + " appears more than once");
+            }
+        }
         
-        analysisRepository.save(analysisResult);
+        EvaluationActivity activity = activityRepository.findById(request.getActivityId())
+                .orElseThrow(() -> new RuntimeException("Activity not found with ID: " + request.getActivityId()));
         
-        return EvaluationSubmissionResponse.builder()
-                .id(submission.getId())
-                .message("Evaluation submitted successfully")
-                .analysis(analysisDTO)
+        // Same eligibility rule as getStudentsToEvaluate, checked for the whole set at once
+        List<User> eligible = evaluator.getGroupId() == null
+                ? userRepository.findActiveStudents(targetIds)
+                : userRepository.findActiveStudentsInGroup(targetIds, evaluator.getGroupId());
+        Map<String, User> targets = eligible.stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+        // Self-evaluation is allowed, as in submitEvaluation
+        User evaluatorRef = targets.computeIfAbsent(evaluator.getId(), userRepository::getReferenceById);
+        List<String> ineligible = targetIds.stream()
+                .filter(id -> !targets.containsKey(id))
+                .collect(Collectors.toList());
+        if (!ineligible.isEmpty()) {
+            throw new RuntimeException("You cannot evaluate these students: " + String.join(", ", ineligible));
+        }
+        
+        List<String> alreadyEvaluated = submissionRepository.findEvaluatedTargetIds(
+                evaluator.getId(), activity.getId(), targetIds);
+        if (!alreadyEvaluated.isEmpty()) {
+            String names = alreadyEvaluated.stream()
+                    .map(id -> targets.get(id).getName())
+                    .collect(Collectors.joining(", "));
+            throw new RuntimeException("You have already evaluated these students for this activity: " + names);
+        }
+        
+        List<EvaluationSubmission> submissions = new ArrayList<>(evaluations.size());
+        for (EvaluationSubmissionRequest evaluation : evaluations) {
+            submissions.add(buildSubmission(evaluatorRef, targets.get(evaluation.getTargetStudentId()),
+                    activity, evaluation));
+        }
+        
+        submissions = submissionRepository.saveAll(submissions);
+        aggregateService.recordSubmissions(submissions);
+        analysisJobService.enqueueAll(submissions);
+        
+        return submissions.stream()
+                .map(submission -> EvaluationSubmissionResponse.builder()
+                        .id(submission.getId())
+                        .message("Evaluation submitted successfully")
+                        .analysisStatus("PENDING")
+                        .build())
+                .collect(Collectors.toList());
+    }
+    
+    private EvaluationSubmission buildSubmission(User evaluator, User target, EvaluationActivity activity,
+                                                 EvaluationSubmissionRequest request) {
+        EvaluationSubmission submission = EvaluationSubmission.builder()
+                .evaluator(evaluator)
+                .target(target)
+                .activity(activity)
+                .comment(request.getComment())
+                .scores(new ArrayList<>())
                 .build();
+        
+        // Scores cascade from the submission and go out as one JDBC batch on flush
+        if (request.getScores() != null) {
+            for (CriterionScoreRequest scoreReq : request.getScores()) {
+                submission.getScores().add(CriterionScore.builder()
+                        .submission(submission)
+                        .criterionName(scoreReq.getCriterionName())
+                        .score(scoreReq.getScore())
+                        .maxScore(5)
+                        .build());
+            }
+        }
+        return submission;
     }
 }
 
@@ -1,29 +1,58 @@
 package edu.citu.apeer.service;
 
 import edu.citu.apeer.dto.AnalysisResultDTO;
+import edu.citu.apeer.service.KeywordScanner.Category;
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PropertiesLoaderUtils;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
 
 @Service
 @Slf4j
-public class FakeAIService {
+public class FakeAIService implements AIService {
     
-    private final Random random = new Random();
+    /** Bump whenever the keyword rules change so cached analyses are not reused */
+    public static final String VERSION = "keyword-2";
     
+    @Value("${ai.analysis.keywords:classpath:analysis/keywords.properties}")
+    private Resource keywords;
+    
+    private KeywordScanner scanner;
+    
+    @PostConstruct
+    void loadKeywords() throws IOException {
+        scanner = KeywordScanner.fromProperties(PropertiesLoaderUtils.loadProperties(keywords));
+        log.info("Loaded analyzer keywords from {}", keywords.getDescription());
+    }
+    
+    @Override
+    public String getVersion() {
+        return VERSION;
+    }
+    
+    @Override
     public AnalysisResultDTO analyzeComment(String comment) {
         log.info("Analyzing comment with Fake AI Service: {}", 
                  comment.substring(0, Math.min(50, comment.length())));
         
-        List<String> tags = generateTags(comment);
-        Double sentimentScore = calculateSentiment(comment);
-        Integer usefulnessScore = calculateUsefulness(comment);
-        Boolean isFlagged = shouldFlag();
-        String flagReason = isFlagged ? generateFlagReason() : null;
+        // The noise is seeded by the text itself so the same text always gets the same result;
+        // comments reach here already normalized, so equivalent spellings agree as well
+        Random random = new Random(comment.hashCode());
+        
+        KeywordScanner.Matches matches = scanner.scan(comment);
+        List<String> tags = generateTags(comment, matches);
+        Double sentimentScore = calculateSentiment(matches, random);
+        Integer usefulnessScore = calculateUsefulness(comment, matches, random);
+        Boolean isFlagged = shouldFlag(random);
+        String flagReason = isFlagged ? generateFlagReason(random) : null;
         
         return AnalysisResultDTO.builder()
                 .tags(tags)
@@ -31,10 +60,11 @@ public class FakeAIService {
                 .usefulnessScore(usefulnessScore)
                 .isFlagged(isFlagged)
                 .flagReason(flagReason)
+                .analyzerVersion(VERSION)
                 .build();
     }
     
-    private List<String> generateTags(String comment) {
+    private List<String> generateTags(String comment, KeywordScanner.Matches matches) {
         List<String> tags = new ArrayList<>();
         
         if (comment.length() > 100) {
@@ -47,20 +77,15 @@ public class FakeAIService {
             tags.add("Constructive");
         }
         
-        if (comment.toLowerCase().contains("good") || 
-            comment.toLowerCase().contains("great") ||
-            comment.toLowerCase().contains("excellent")) {
+        if (matches.any(Category.POSITIVE_TAG)) {
             tags.add("Positive");
         }
         
-        if (comment.toLowerCase().contains("improve") ||
-            comment.toLowerCase().contains("better") ||
-            comment.toLowerCase().contains("should")) {
+        if (matches.any(Category.ACTIONABLE_TAG)) {
             tags.add("Actionable");
         }
         
-        if (comment.toLowerCase().contains("thank") ||
-            comment.toLowerCase().contains("appreciate")) {
+        if (matches.any(Category.POLITE_TAG)) {
             tags.add("Polite");
         }
         
@@ -71,23 +96,9 @@ public class FakeAIService {
         return tags;
     }
     
-    private Double calculateSentiment(String comment) {
-        String lowerComment = comment.toLowerCase();
-        
-        int positiveWords = 0;
-        int negativeWords = 0;
-        
-        String[] positive = {"good", "great", "excellent", "outstanding", 
-                            "helpful", "clear", "strong", "effective"};
-        for (String word : positive) {
-            if (lowerComment.contains(word)) positiveWords++;
-        }
-        
-        String[] negative = {"poor", "bad", "weak", "unclear", 
-                            "confusing", "inadequate", "lacking"};
-        for (String word : negative) {
-            if (lowerComment.contains(word)) negativeWords++;
-        }
+    private Double calculateSentiment(KeywordScanner.Matches matches, Random random) {
+        int positiveWords = matches.count(Category.POSITIVE);
+        int negativeWords = matches.count(Category.NEGATIVE);
         
         int total = positiveWords + negativeWords;
         if (total == 0) {
@@ -100,7 +111,7 @@ public class FakeAIService {
         return Math.max(-1.0, Math.min(1.0, score));
     }
     
-    private Integer calculateUsefulness(String comment) {
+    private Integer calculateUsefulness(String comment, KeywordScanner.Matches matches, Random random) {
         int baseScore = 50;
         
         if (comment.length() > 150) {
@@ -111,17 +122,11 @@ public class FakeAIService {
             baseScore -= 20;
         }
         
-        String[] actionableWords = {"should", "could", "improve", "consider", 
-                                   "suggest", "recommend", "try", "focus"};
-        for (String word : actionableWords) {
-            if (comment.toLowerCase().contains(word)) {
-                baseScore += 5;
-                break;
-            }
+        if (matches.any(Category.ACTIONABLE)) {
+            baseScore += 5;
         }
         
-        if (comment.toLowerCase().contains("example") || 
-            comment.toLowerCase().contains("instance")) {
+        if (matches.any(Category.SPECIFIC)) {
             baseScore += 10;
         }
         
@@ -130,11 +135,11 @@ public class FakeAIService {
         return Math.max(0, Math.min(100, baseScore));
     }
     
-    private Boolean shouldFlag() {
+    private Boolean shouldFlag(Random random) {
         return random.nextDouble() < 0.10;
     }
     
-    private String generateFlagReason() {
+    private String generateFlagReason(Random random) {
         String[] reasons = {
             "Potential grade inflation detected",
             "Score deviation > 2.5σ from class average",
@@ -145,6 +150,7 @@ public class FakeAIService {
         return reasons[random.nextInt(reasons.length)];
     }
     
+    @Override
     public String generateSummary(List<String> comments) {
         if (comments.isEmpty()) {
             return "No feedback available yet.";
@@ -159,7 +165,7 @@ public class FakeAIService {
             "Exceptional feedback quality with balanced tone."
         };
         
-        return templates[random.nextInt(templates.length)];
+        return templates[ThreadLocalRandom.current().nextInt(templates.length)];
     }
 }
 
@@ -1,36 +1,144 @@
 package edu.citu.apeer.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
-import java.util.UUID;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
+/**
+ * Stores avatar uploads in the {@link BlobStore} under {@code avatars/}. Besides the original, each
+ * upload gets square thumbnails at {@code file.avatar.thumbnail-sizes}, generated on a small
+ * background pool so the upload request doesn't wait for them.
+ * <p>
+ * Originals are named by the SHA-256 of their content, so a file name never changes meaning
+ * (it can be cached forever) and identical uploads share one file. Small, frequently served
+ * files are also kept in memory.
+ */
 @Service
+@RequiredArgsConstructor
 @Slf4j
 public class FileStorageService {
     
+    private final BlobStore blobStore;
+    
+    // Local scratch space for uploads and thumbnails on their way into the store
     @Value("${file.upload-dir:uploads}")
     private String uploadDir;
     
     @Value("${server.port:8080}")
     private String serverPort;
     
+    @Value("${file.avatar.thumbnail-sizes:32,64,128,256}")
+    private int[] thumbnailSizes;
+    
+    @Value("${file.avatar.thumbnail-workers:2}")
+    private int thumbnailWorkers;
+    
+    // Decoding is width x height x 4 bytes, so refuse images that would blow up the heap
+    @Value("${file.avatar.max-pixels:25000000}")
+    private long maxPixels;
+    
+    @Value("${file.avatar.hot-cache.max-bytes:16777216}")
+    private long hotCacheMaxBytes;
+    
+    // Larger files are streamed from disk instead
+    @Value("${file.avatar.hot-cache.max-file-bytes:65536}")
+    private long hotCacheMaxFileBytes;
+    
+    private static final float JPEG_QUALITY = 0.85f;
+    private static final String[] THUMBNAIL_FORMATS = {"jpg", "png"};
+    private static final String AVATARS = "avatars/";
+    // Blobs never change, so only absence (a thumbnail another node may be writing) goes stale
+    private static final long STAT_TTL_NANOS = TimeUnit.HOURS.toNanos(1);
+    private static final long MISSING_STAT_TTL_NANOS = TimeUnit.SECONDS.toNanos(10);
+    
+    private ExecutorService thumbnailPool;
+    private Cache<String, byte[]> hotFiles;
+    private Cache<String, Optional<BlobStore.BlobInfo>> stats;
+    
+    @PostConstruct
+    void start() {
+        hotFiles = Caffeine.newBuilder()
+                .maximumWeight(hotCacheMaxBytes)
+                .weigher((String name, byte[] bytes) -> bytes.length)
+                .recordStats()
+                .build();
+        stats = Caffeine.newBuilder()
+                .maximumSize(10_000)
+                .expireAfter(new Expiry<String, Optional<BlobStore.BlobInfo>>() {
+                    @Override
+                    public long expireAfterCreate(String name, Optional<BlobStore.BlobInfo> info, long now) {
+                        return info.isPresent() ? STAT_TTL_NANOS : MISSING_STAT_TTL_NANOS;
+                    }
+                    
+                    @Override
+                    public long expireAfterUpdate(String name, Optional<BlobStore.BlobInfo> info, long now, long remaining) {
+                        return expireAfterCreate(name, info, now);
+                    }
+                    
+                    @Override
+                    public long expireAfterRead(String name, Optional<BlobStore.BlobInfo> info, long now, long remaining) {
+                        return remaining;
+                    }
+                })
+                .build();
+        thumbnailSizes = Arrays.stream(thumbnailSizes).filter(size -> size > 0).sorted().distinct().toArray();
+        AtomicInteger threadNumber = new AtomicInteger();
+        thumbnailPool = Executors.newFixedThreadPool(thumbnailWorkers, runnable -> {
+            Thread thread = new Thread(runnable, "avatar-thumbnails-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    @PreDestroy
+    void stop() throws InterruptedException {
+        // Avatars whose thumbnails didn't finish are served from the original
+        thumbnailPool.shutdown();
+        thumbnailPool.awaitTermination(10, TimeUnit.SECONDS);
+    }
+    
     public String storeFile(MultipartFile file, String userId) {
         try {
-            // Create upload directory if it doesn't exist: uploads/avatars
-            Path uploadPath = Paths.get(uploadDir, "avatars");
-            if (!Files.exists(uploadPath)) {
-                Files.createDirectories(uploadPath);
-                log.info("Created upload directory: {}", uploadPath);
-            }
-            
             // Validate file type
             String originalFilename = file.getOriginalFilename();
             if (originalFilename == null) {
@@ -53,13 +161,40 @@ public class FileStorageService {
                 throw new RuntimeException("File size exceeds 5MB limit.");
             }
             
-            // Generate unique filename
-            String filename = userId + "_" + UUID.randomUUID().toString() + extension;
-            Path filePath = uploadPath.resolve(filename);
+            // Check the header before storing; the image itself is decoded later, off the request thread
+            boolean decodable = checkImageSize(file, extension);
             
-            // Copy file to upload directory
-            Files.copy(file.getInputStream(), filePath, StandardCopyOption.REPLACE_EXISTING);
-            log.info("Stored avatar file: {} for user: {}", filename, userId);
+            if (extension.equals(".jpeg")) {
+                extension = ".jpg";
+            }
+            
+            // Hash while copying to a temp file, then store it under its content-addressed name
+            Path temp = Files.createTempFile(tempDirectory(), ".upload-", extension);
+            String filename;
+            boolean stored = false;
+            try {
+                MessageDigest digest = MessageDigest.getInstance("SHA-256");
+                try (InputStream input = new DigestInputStream(file.getInputStream(), digest)) {
+                    Files.copy(input, temp, StandardCopyOption.REPLACE_EXISTING);
+                }
+                filename = HexFormat.of().formatHex(digest.digest()) + extension;
+                // Same name means same bytes, so an existing file (and its thumbnails) is reused
+                if (blobStore.stat(AVATARS + filename) == null) {
+                    blobStore.put(AVATARS + filename, temp, contentType(filename));
+                    stats.invalidate(filename);
+                    stored = true;
+                }
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA-256 not available", e);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+            log.info("{} avatar file: {} for user: {}", stored ? "Stored" : "Reused", filename, userId);
+            
+            if (decodable && stored) {
+                String original = filename;
+                thumbnailPool.execute(() -> generateThumbnails(original));
+            }
             
             // Return URL path
             return "/api/files/avatars/" + filename;
@@ -70,6 +205,10 @@ public class FileStorageService {
         }
     }
     
+    /**
+     * Delete an avatar and its thumbnails. Uploads are deduplicated, so only call this once
+     * no user references the file any more.
+     */
     public void deleteFile(String filename) {
         try {
             // Extract just the filename from the URL path if it includes /api/files/avatars/
@@ -77,14 +216,241 @@ public class FileStorageService {
                 filename = filename.substring(filename.lastIndexOf('/') + 1);
             }
             
-            Path filePath = Paths.get(uploadDir, "avatars").resolve(filename);
-            if (Files.exists(filePath)) {
-                Files.delete(filePath);
-                log.info("Deleted avatar file: {}", filename);
+            if (!isValidName(filename)) {
+                return;
+            }
+            blobStore.delete(AVATARS + filename);
+            forget(filename);
+            log.info("Deleted avatar file: {}", filename);
+            for (int size : thumbnailSizes) {
+                for (String format : THUMBNAIL_FORMATS) {
+                    String thumbnail = thumbnailName(filename, size, format);
+                    blobStore.delete(AVATARS + thumbnail);
+                    forget(thumbnail);
+                }
             }
         } catch (IOException e) {
             log.error("Error deleting file: {}", filename, e);
         }
     }
+    
+    /**
+     * The file to serve for an avatar at {@code size} pixels: the smallest thumbnail at least that
+     * large (or the largest one), falling back to the original while thumbnails are still being
+     * generated or for formats that can't be decoded. Null if the name isn't a stored file name.
+     */
+    public String resolveAvatar(String filename, Integer size) throws IOException {
+        if (!isValidName(filename)) {
+            return null;
+        }
+        if (size == null || size <= 0 || thumbnailSizes.length == 0) {
+            return filename;
+        }
+        
+        int chosen = thumbnailSizes[thumbnailSizes.length - 1];
+        for (int candidate : thumbnailSizes) {
+            if (candidate >= size) {
+                chosen = candidate;
+                break;
+            }
+        }
+        for (String format : THUMBNAIL_FORMATS) {
+            String thumbnail = thumbnailName(filename, chosen, format);
+            if (statAvatar(thumbnail) != null) {
+                return thumbnail;
+            }
+        }
+        return filename;
+    }
+    
+    /** Size and modification time of an avatar file, or null if it doesn't exist */
+    public BlobStore.BlobInfo statAvatar(String name) throws IOException {
+        Optional<BlobStore.BlobInfo> cached = stats.getIfPresent(name);
+        if (cached == null) {
+            cached = Optional.ofNullable(blobStore.stat(AVATARS + name));
+            stats.put(name, cached);
+        }
+        return cached.orElse(null);
+    }
+    
+    public InputStream openAvatar(String name) throws IOException {
+        return blobStore.open(AVATARS + name);
+    }
+    
+    /** The avatar file on local disk, or null when the store is remote */
+    public Path localAvatarPath(String name) {
+        return blobStore.localPath(AVATARS + name);
+    }
+    
+    /**
+     * The content of a small avatar file from memory, loading it on a miss; null for files over
+     * {@code file.avatar.hot-cache.max-file-bytes}, which should be streamed instead.
+     * {@code size} is the file size the caller just read, so a miss doesn't stat the file again.
+     */
+    public byte[] getHotFile(String name, long size) {
+        if (size > hotCacheMaxFileBytes) {
+            return null;
+        }
+        return hotFiles.get(name, key -> {
+            try (InputStream input = openAvatar(key)) {
+                return input.readAllBytes();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+    
+    public Map<String, Object> getHotCacheStats() {
+        CacheStats stats = hotFiles.stats();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("entries", hotFiles.estimatedSize());
+        result.put("hits", stats.hitCount());
+        result.put("misses", stats.missCount());
+        result.put("hitRate", stats.hitRate());
+        result.put("evictions", stats.evictionCount());
+        return result;
+    }
+    
+    private void forget(String name) {
+        hotFiles.invalidate(name);
+        stats.invalidate(name);
+    }
+    
+    /** Stored names are hex hashes (or {@code <user>_<uuid>} from before) with a suffix; anything else can't exist */
+    private static boolean isValidName(String name) {
+        return name.matches("[A-Za-z0-9][A-Za-z0-9_.-]*");
+    }
+    
+    private Path tempDirectory() throws IOException {
+        return Files.createDirectories(Paths.get(uploadDir, ".tmp"));
+    }
+    
+    public static String contentType(String name) {
+        String lower = name.toLowerCase();
+        if (lower.endsWith(".png")) {
+            return "image/png";
+        } else if (lower.endsWith(".gif")) {
+            return "image/gif";
+        } else if (lower.endsWith(".webp")) {
+            return "image/webp";
+        }
+        return "image/jpeg";
+    }
+    
+    /** {@code <hash>.png} at 64px is {@code <hash>_64.jpg} (or {@code .png} with transparency) */
+    private static String thumbnailName(String original, int size, String format) {
+        int dot = original.lastIndexOf('.');
+        String base = dot > 0 ? original.substring(0, dot) : original;
+        return base + "_" + size + "." + format;
+    }
+    
+    /**
+     * Read the image dimensions from the header and reject images too large to decode safely.
+     * Returns false for WebP, which the JDK can't decode; those are kept without thumbnails.
+     */
+    private boolean checkImageSize(MultipartFile file, String extension) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(file.getInputStream())) {
+            Iterator<ImageReader> readers = input != null ? ImageIO.getImageReaders(input) : Collections.emptyIterator();
+            if (!readers.hasNext()) {
+                if (extension.equals(".webp")) {
+                    return false;
+                }
+                throw new RuntimeException("File is not a valid image.");
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                long pixels = (long) reader.getWidth(0) * reader.getHeight(0);
+                if (pixels > maxPixels) {
+                    throw new RuntimeException("Image dimensions are too large.");
+                }
+                return true;
+            } catch (IOException e) {
+                throw new RuntimeException("File is not a valid image.");
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+    
+    /**
+     * Decode the original once, center-crop it square and write every thumbnail size, largest first,
+     * each scaled from the previous one. Each file appears atomically, so readers never see a partial one.
+     */
+    private void generateThumbnails(String original) {
+        try {
+            BufferedImage image;
+            try (InputStream input = openAvatar(original)) {
+                image = ImageIO.read(input);
+            }
+            if (image == null) {
+                return;
+            }
+            boolean alpha = image.getColorModel().hasAlpha();
+            String format = alpha ? "png" : "jpg";
+            
+            int side = Math.min(image.getWidth(), image.getHeight());
+            BufferedImage current = image.getSubimage(
+                    (image.getWidth() - side) / 2, (image.getHeight() - side) / 2, side, side);
+            
+            for (int i = thumbnailSizes.length - 1; i >= 0; i--) {
+                int size = thumbnailSizes[i];
+                // Never upscale; a small original gives same-sized thumbnails for the larger slots
+                current = scaleDown(current, Math.min(size, current.getWidth()), alpha);
+                String target = thumbnailName(original, size, format);
+                Path temp = Files.createTempFile(tempDirectory(), ".thumb-", "." + format);
+                try {
+                    writeImage(current, format, temp);
+                    blobStore.put(AVATARS + target, temp, contentType(target));
+                    stats.invalidate(target);
+                } finally {
+                    Files.deleteIfExists(temp);
+                }
+            }
+            log.debug("Generated {} thumbnails for {}", thumbnailSizes.length, original);
+        } catch (Exception e) {
+            log.warn("Could not generate thumbnails for {}: {}", original, e.getMessage());
+        }
+    }
+    
+    /**
+     * Halve repeatedly, then do a final bilinear step: close to area averaging at a fraction of the cost
+     */
+    private static BufferedImage scaleDown(BufferedImage source, int size, boolean alpha) {
+        BufferedImage current = source;
+        int width = source.getWidth();
+        do {
+            width = Math.max(width / 2, size);
+            BufferedImage next = new BufferedImage(width, width,
+                    alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+            Graphics2D g = next.createGraphics();
+            try {
+                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                g.drawImage(current, 0, 0, width, width, null);
+            } finally {
+                g.dispose();
+            }
+            current = next;
+        } while (width > size);
+        return current;
+    }
+    
+    private static void writeImage(BufferedImage image, String format, Path target) throws IOException {
+        if (format.equals("png")) {
+            ImageIO.write(image, "png", target.toFile());
+            return;
+        }
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(target.toFile())) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(JPEG_QUALITY);
+            writer.setOutput(output);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
 }
 
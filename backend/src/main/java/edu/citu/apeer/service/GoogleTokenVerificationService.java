@@ -2,32 +2,54 @@ package edu.citu.apeer.service;
 
 import com.google.api.client.googleapis.auth.oauth2.GoogleIdToken;
 import com.google.api.client.googleapis.auth.oauth2.GoogleIdTokenVerifier;
-import com.google.api.client.http.javanet.NetHttpTransport;
-import com.google.api.client.json.gson.GsonFactory;
+import com.google.api.client.googleapis.auth.oauth2.GooglePublicKeysManager;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
-import java.util.Collections;
-
 @Service
+@RequiredArgsConstructor
 @Slf4j
 public class GoogleTokenVerificationService {
     
-    @Value("${google.client.id}")
-    private String googleClientId;
+    private final GoogleIdTokenVerifier verifier;
+    private final GooglePublicKeysManager publicKeys;
+    
+    // Must exceed the keys manager's own 5 minute skew, or logins would still trigger the fetch
+    @Value("${google.certs.refresh-ahead:600000}")
+    private long refreshAheadMs;
+    
+    private volatile boolean lastRefreshFailed;
+    
+    /**
+     * Fetch Google's certificates before the cached ones expire (per the response's Cache-Control
+     * max-age), so logins never wait on the certificate endpoint. Also warms the cache at startup.
+     */
+    @Scheduled(initialDelay = 0, fixedDelayString = "${google.certs.refresh-check:60000}")
+    public void refreshPublicKeys() {
+        if (publicKeys.getExpirationTimeMilliseconds() - System.currentTimeMillis() > refreshAheadMs) {
+            return;
+        }
+        try {
+            publicKeys.refresh();
+            lastRefreshFailed = false;
+            log.debug("Refreshed Google public keys, valid until {}", publicKeys.getExpirationTimeMilliseconds());
+        } catch (Exception e) {
+            // Logins still fetch the keys themselves if they are missing; retried on the next check
+            if (!lastRefreshFailed) {
+                log.warn("Could not refresh Google public keys: {}", e.toString());
+            }
+            lastRefreshFailed = true;
+        }
+    }
     
     /**
      * Verify Google ID token and extract user information
      */
     public GoogleUserInfo verifyToken(String idTokenString) {
         try {
-            GoogleIdTokenVerifier verifier = new GoogleIdTokenVerifier.Builder(
-                    new NetHttpTransport(),
-                    new GsonFactory())
-                    .setAudience(Collections.singletonList(googleClientId))
-                    .build();
-            
             GoogleIdToken idToken = verifier.verify(idTokenString);
             
             if (idToken != null) {
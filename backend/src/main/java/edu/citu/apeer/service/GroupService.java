@@ -7,8 +7,22 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.multipart.MultipartFile;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
@@ -20,12 +34,17 @@ public class GroupService {
     private final StudentGroupRepository groupRepository;
     private final UserRepository userRepository;
     private final EvaluationActivityRepository activityRepository;
+    private final StudentScoreAggregateService aggregateService;
+    private final UserLookupService userLookupService;
     
+    private static final int MAX_REPORTED_ERRORS = 20;
+    
+    /**
+     * All groups with their members, from a single query
+     */
+    @Transactional(readOnly = true)
     public List<GroupDTO> getAllGroups() {
-        return groupRepository.findAllByOrderByNameAsc()
-                .stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return convertToDTOs(groupRepository.findAllWithMembers());
     }
     
     public GroupDTO createGroupSimple(CreateGroupSimpleRequest request) {
@@ -41,7 +60,7 @@ public class GroupService {
                 .build();
         
         group = groupRepository.save(group);
-        return convertToDTO(group);
+        return convertToDTO(group.getId());
     }
     
     public GroupDTO createGroup(CreateGroupRequest request) {
@@ -51,14 +70,155 @@ public class GroupService {
         
         group = groupRepository.save(group);
         
-        // Assign members if provided
+        // Assign members if provided; the users are loaded and updated together
         if (request.getMemberIds() != null && !request.getMemberIds().isEmpty()) {
-            for (String userId : request.getMemberIds()) {
-                assignStudentToGroup(group.getId(), userId);
+            Set<String> memberIds = new HashSet<>(request.getMemberIds());
+            List<User> members = userRepository.findAllById(memberIds);
+            if (members.size() != memberIds.size()) {
+                throw new RuntimeException("User not found");
+            }
+            for (User member : members) {
+                member.setGroup(group);
+            }
+            userRepository.saveAll(members);
+            userLookupService.evict(members);
+        }
+        
+        return convertToDTO(group.getId());
+    }
+    
+    /**
+     * Assign students to groups from a CSV roster with {@code email,group} rows (header optional).
+     * Groups that don't exist yet are created. The import is all or nothing: any unknown email,
+     * non-student or conflicting row rejects the whole file.
+     */
+    public List<GroupDTO> importRoster(MultipartFile file) {
+        if (file == null || file.isEmpty()) {
+            throw new RuntimeException("Roster file is empty");
+        }
+        
+        Map<String, String> groupByEmail = parseRoster(file);
+        
+        List<User> users = userRepository.findByEmailIn(groupByEmail.keySet());
+        Set<String> found = new HashSet<>();
+        List<String> errors = new ArrayList<>();
+        for (User user : users) {
+            found.add(user.getEmail());
+            if (user.getRole() != UserRole.STUDENT) {
+                errors.add(user.getEmail() + " is not a student");
             }
         }
+        groupByEmail.keySet().stream()
+                .filter(email -> !found.contains(email))
+                .forEach(email -> errors.add("No user with email " + email));
+        rejectIfAny(errors);
         
-        return convertToDTO(group);
+        // Reuse groups that already have the name, create the rest
+        Set<String> names = new LinkedHashSet<>(groupByEmail.values());
+        Map<String, StudentGroup> groups = new HashMap<>();
+        for (StudentGroup existing : groupRepository.findByNameIn(names)) {
+            if (groups.put(existing.getName(), existing) != null) {
+                errors.add("More than one group is named " + existing.getName());
+            }
+        }
+        rejectIfAny(errors);
+        List<StudentGroup> created = names.stream()
+                .filter(name -> !groups.containsKey(name))
+                .map(name -> StudentGroup.builder().name(name).build())
+                .collect(Collectors.toList());
+        groupRepository.saveAll(created).forEach(group -> groups.put(group.getName(), group));
+        
+        Map<String, List<String>> memberIds = new HashMap<>();
+        for (User user : users) {
+            memberIds.computeIfAbsent(groupByEmail.get(user.getEmail()), name -> new ArrayList<>())
+                    .add(user.getId());
+        }
+        memberIds.forEach((name, ids) -> userRepository.assignGroup(groups.get(name), ids));
+        userLookupService.evict(users);
+        log.info("Imported roster: {} students into {} groups ({} new)",
+                users.size(), names.size(), created.size());
+        
+        return convertToDTOs(groupRepository.findWithMembers(
+                groups.values().stream().map(StudentGroup::getId).collect(Collectors.toList())));
+    }
+    
+    /**
+     * Split every active student without a group into new groups whose sizes differ by at most one.
+     * With {@code balanceByScore}, students are dealt out in order of average received score
+     * (first to last, then back), so every group gets a similar mix; otherwise the order is random.
+     */
+    public List<GroupDTO> autoGroup(AutoGroupRequest request) {
+        List<User> students = userRepository.findUngroupedStudents().stream()
+                .filter(u -> u.getStatus() == UserStatus.ACTIVE)
+                .collect(Collectors.toList());
+        if (students.isEmpty()) {
+            throw new RuntimeException("There are no ungrouped students");
+        }
+        
+        int groupCount;
+        if (request.getGroupCount() != null) {
+            groupCount = request.getGroupCount();
+        } else if (request.getGroupSize() != null && request.getGroupSize() > 0) {
+            groupCount = (students.size() + request.getGroupSize() - 1) / request.getGroupSize();
+        } else {
+            throw new RuntimeException("Either groupCount or groupSize is required");
+        }
+        if (groupCount < 1) {
+            throw new RuntimeException("groupCount must be at least 1");
+        }
+        groupCount = Math.min(groupCount, students.size());
+        
+        EvaluationActivity activity = null;
+        if (request.getActivityId() != null && !request.getActivityId().isEmpty()) {
+            activity = activityRepository.findById(request.getActivityId())
+                    .orElseThrow(() -> new RuntimeException("Activity not found"));
+        }
+        
+        Collections.shuffle(students);
+        if (Boolean.TRUE.equals(request.getBalanceByScore())) {
+            // Students nobody has scored yet keep their random order after the scored ones
+            Map<String, StudentScoreTotals> totals = aggregateService.getTotalsByStudent();
+            students.sort(Comparator.comparingInt((User u) -> {
+                StudentScoreTotals t = totals.get(u.getId());
+                return t == null || t.getMaxTotal() == 0 ? -1 : t.overallScore();
+            }).reversed());
+        }
+        
+        // Unused names "<prefix> 1", "<prefix> 2", ...
+        String prefix = request.getNamePrefix() == null || request.getNamePrefix().isBlank()
+                ? "Group" : request.getNamePrefix().trim();
+        Set<String> taken = groupRepository.findAllByOrderByNameAsc().stream()
+                .map(StudentGroup::getName)
+                .collect(Collectors.toSet());
+        List<StudentGroup> groups = new ArrayList<>(groupCount);
+        for (int n = 1; groups.size() < groupCount; n++) {
+            String name = prefix + " " + n;
+            if (!taken.contains(name)) {
+                groups.add(StudentGroup.builder().name(name).activity(activity).build());
+            }
+        }
+        groups = groupRepository.saveAll(groups);
+        
+        // Snake order: 0, 1, ..., n-1, n-1, ..., 1, 0, 0, 1, ...
+        List<List<String>> memberIds = new ArrayList<>(groupCount);
+        for (int i = 0; i < groupCount; i++) {
+            memberIds.add(new ArrayList<>());
+        }
+        for (int i = 0; i < students.size(); i++) {
+            int round = i / groupCount;
+            int position = i % groupCount;
+            int index = round % 2 == 0 ? position : groupCount - 1 - position;
+            memberIds.get(index).add(students.get(i).getId());
+        }
+        
+        for (int i = 0; i < groupCount; i++) {
+            userRepository.assignGroup(groups.get(i), memberIds.get(i));
+        }
+        userLookupService.evict(students);
+        log.info("Grouped {} students into {} groups", students.size(), groupCount);
+        
+        return convertToDTOs(groupRepository.findWithMembers(
+                groups.stream().map(StudentGroup::getId).collect(Collectors.toList())));
     }
     
     public GroupDTO assignStudentToGroup(String groupId, String studentId) {
@@ -67,20 +227,12 @@ public class GroupService {
         User user = userRepository.findById(studentId)
                 .orElseThrow(() -> new RuntimeException("User not found"));
         
-        // Remove from previous group if any
-        if (user.getGroup() != null) {
-            StudentGroup oldGroup = user.getGroup();
-            oldGroup.getMembers().remove(user);
-            groupRepository.save(oldGroup);
-        }
-        
-        // Assign to new group
+        // Membership is owned by User.group, so moving the user is the only write needed
         user.setGroup(group);
         userRepository.save(user);
+        userLookupService.evict(user);
         
-        // Refresh group to get updated members list
-        group = groupRepository.findById(groupId).orElse(group);
-        return convertToDTO(group);
+        return convertToDTO(groupId);
     }
     
     public void removeStudentFromGroup(String groupId, String studentId) {
@@ -90,6 +242,7 @@ public class GroupService {
         if (user.getGroup() != null && user.getGroup().getId().equals(groupId)) {
             user.setGroup(null);
             userRepository.save(user);
+            userLookupService.evict(user);
         }
     }
     
@@ -107,10 +260,12 @@ public class GroupService {
         }
         
         group = groupRepository.save(group);
-        return convertToDTO(group);
+        return convertToDTO(group.getId());
     }
     
     public void deleteGroup(String groupId) {
+        // Cached lookups of anyone still listed as a member would keep the deleted group's id
+        userLookupService.evict(userRepository.findByGroupId(groupId));
         groupRepository.deleteById(groupId);
     }
     
@@ -121,30 +276,131 @@ public class GroupService {
     
     public GroupDTO removeMemberFromGroup(String groupId, String userId) {
         removeStudentFromGroup(groupId, userId);
-        StudentGroup group = groupRepository.findById(groupId)
-                .orElseThrow(() -> new RuntimeException("Group not found"));
-        return convertToDTO(group);
-    }
-    
-    private GroupDTO convertToDTO(StudentGroup group) {
-        // Fetch members from UserRepository where group_id matches
-        List<User> members = userRepository.findByGroupId(group.getId());
-        List<UserDTO> memberDTOs = members.stream()
-                .map(user -> UserDTO.builder()
-                        .id(user.getId())
-                        .name(user.getName())
-                        .email(user.getEmail())
-                        .role(user.getRole().name())
-                        .status(user.getStatus().name())
-                        .build())
-                .collect(Collectors.toList());
+        if (!groupRepository.existsById(groupId)) {
+            throw new RuntimeException("Group not found");
+        }
+        return convertToDTO(groupId);
+    }
+    
+    /**
+     * Read {@code email,group} rows into email -> group name, collecting every bad row
+     */
+    private Map<String, String> parseRoster(MultipartFile file) {
+        Map<String, String> groupByEmail = new LinkedHashMap<>();
+        List<String> errors = new ArrayList<>();
         
-        return GroupDTO.builder()
-                .id(group.getId())
-                .name(group.getName())
-                .members(memberDTOs)
-                .memberCount(memberDTOs.size())
-                .build();
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(file.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (lineNumber == 1 && line.startsWith("\uFEFF")) {
+                    line = line.substring(1);
+                }
+                if (line.isBlank()) {
+                    continue;
+                }
+                
+                List<String> cells = splitCsvLine(line);
+                String email = cells.get(0);
+                String group = cells.size() > 1 ? cells.get(1) : "";
+                if (lineNumber == 1 && email.equalsIgnoreCase("email")) {
+                    continue;
+                }
+                if (email.isEmpty() || group.isEmpty()) {
+                    errors.add("Line " + lineNumber + ": expected email,group");
+                    continue;
+                }
+                
+                String previous = groupByEmail.putIfAbsent(email, group);
+                if (previous != null && !previous.equals(group)) {
+                    errors.add("Line " + lineNumber + ": " + email + " is already listed in " + previous);
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Could not read roster file: " + e.getMessage());
+        }
+        
+        rejectIfAny(errors);
+        if (groupByEmail.isEmpty()) {
+            throw new RuntimeException("Roster file has no rows");
+        }
+        return groupByEmail;
+    }
+    
+    /**
+     * Split one CSV line into trimmed cells; quoted cells may contain commas and doubled quotes
+     */
+    private static List<String> splitCsvLine(String line) {
+        List<String> cells = new ArrayList<>();
+        StringBuilder cell = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    cell.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    cell.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                cells.add(cell.toString().trim());
+                cell.setLength(0);
+            } else {
+                cell.append(c);
+            }
+        }
+        cells.add(cell.toString().trim());
+        return cells;
+    }
+    
+    private static void rejectIfAny(List<String> errors) {
+        if (errors.isEmpty()) {
+            return;
+        }
+        String shown = String.join("; ", errors.subList(0, Math.min(errors.size(), MAX_REPORTED_ERRORS)));
+        if (errors.size() > MAX_REPORTED_ERRORS) {
+            shown += " (and " + (errors.size() - MAX_REPORTED_ERRORS) + " more)";
+        }
+        throw new RuntimeException("Roster rejected: " + shown);
+    }
+    
+    private GroupDTO convertToDTO(String groupId) {
+        // The query flushes pending membership changes first, so it sees them
+        return convertToDTOs(groupRepository.findWithMembers(groupId)).stream()
+                .findFirst()
+                .orElseThrow(() -> new RuntimeException("Group not found"));
+    }
+    
+    /**
+     * Fold (group, member) rows, already ordered by group, into one DTO per group
+     */
+    private List<GroupDTO> convertToDTOs(List<GroupMemberRow> rows) {
+        Map<String, GroupDTO> groups = new LinkedHashMap<>();
+        for (GroupMemberRow row : rows) {
+            GroupDTO group = groups.computeIfAbsent(row.getGroupId(), id -> GroupDTO.builder()
+                    .id(id)
+                    .name(row.getGroupName())
+                    .members(new ArrayList<>())
+                    .memberCount(0)
+                    .build());
+            if (row.getUserId() != null) {
+                group.getMembers().add(UserDTO.builder()
+                        .id(row.getUserId())
+                        .name(row.getUserName())
+                        .email(row.getUserEmail())
+                        .role(row.getUserRole().name())
+                        .status(row.getUserStatus().name())
+                        .build());
+                group.setMemberCount(group.getMembers().size());
+            }
+        }
+        return new ArrayList<>(groups.values());
     }
 }
-
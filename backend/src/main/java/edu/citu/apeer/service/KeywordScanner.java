@@ -0,0 +1,234 @@
+package edu.citu.apeer.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Queue;
+import java.util.TreeMap;
+
+/**
+ * Aho-Corasick automaton over every keyword list used by {@link FakeAIService}. A comment is
+ * case-folded character by character and scanned once, whatever the number of keywords.
+ * <p>
+ * Keywords match whole words only: {@code good} does not match "goodness" and {@code clear}
+ * does not match "unclear". A trailing {@code *} turns a keyword into a word prefix, so
+ * {@code thank*} matches "thank", "thanks" and "thankful".
+ */
+public class KeywordScanner {
+    
+    /** Keyword lists the analyzer scores with; each is read from its property key */
+    public enum Category {
+        POSITIVE_TAG("tag.positive"),
+        ACTIONABLE_TAG("tag.actionable"),
+        POLITE_TAG("tag.polite"),
+        POSITIVE("sentiment.positive"),
+        NEGATIVE("sentiment.negative"),
+        ACTIONABLE("usefulness.actionable"),
+        SPECIFIC("usefulness.specific");
+        
+        private final String key;
+        
+        Category(String key) {
+            this.key = key;
+        }
+        
+        public String getKey() {
+            return key;
+        }
+    }
+    
+    // Trie nodes: children as parallel sorted arrays, so a scan does no boxing or hashing
+    private final char[][] childKeys;
+    private final int[][] childNodes;
+    private final int[] fail;
+    private final int[][] outputs; // keyword ids ending at each node, including via failure links
+    
+    private final int[] keywordLength;
+    private final boolean[] keywordPrefix;
+    private final int[] keywordCategories; // bit mask of Category ordinals
+    
+    public KeywordScanner(Map<Category, List<String>> lexicon) {
+        Map<String, Integer> ids = new HashMap<>();
+        List<Integer> lengths = new ArrayList<>();
+        List<Boolean> prefixes = new ArrayList<>();
+        List<Integer> categories = new ArrayList<>();
+        
+        List<TreeMap<Character, Integer>> trie = new ArrayList<>();
+        List<List<Integer>> nodeOutputs = new ArrayList<>();
+        trie.add(new TreeMap<>());
+        nodeOutputs.add(new ArrayList<>());
+        
+        for (Map.Entry<Category, List<String>> list : lexicon.entrySet()) {
+            for (String raw : list.getValue()) {
+                String keyword = raw.trim().toLowerCase(Locale.ROOT);
+                boolean prefix = keyword.endsWith("*");
+                if (prefix) {
+                    keyword = keyword.substring(0, keyword.length() - 1);
+                }
+                if (keyword.isEmpty()) {
+                    continue;
+                }
+                
+                // The same keyword in several lists is one pattern with several categories
+                String patternKey = prefix ? keyword + "*" : keyword;
+                Integer id = ids.get(patternKey);
+                if (id == null) {
+                    id = lengths.size();
+                    ids.put(patternKey, id);
+                    lengths.add(keyword.length());
+                    prefixes.add(prefix);
+                    categories.add(0);
+                    
+                    int node = 0;
+                    for (char c : keyword.toCharArray()) {
+                        Integer next = trie.get(node).get(c);
+                        if (next == null) {
+                            next = trie.size();
+                            trie.add(new TreeMap<>());
+                            nodeOutputs.add(new ArrayList<>());
+                            trie.get(node).put(c, next);
+                        }
+                        node = next;
+                    }
+                    nodeOutputs.get(node).add(id);
+                }
+                categories.set(id, categories.get(id) | (1 << list.getKey().ordinal()));
+            }
+        }
+        
+        int size = trie.size();
+        childKeys = new char[size][];
+        childNodes = new int[size][];
+        for (int node = 0; node < size; node++) {
+            TreeMap<Character, Integer> children = trie.get(node);
+            childKeys[node] = new char[children.size()];
+            childNodes[node] = new int[children.size()];
+            int i = 0;
+            for (Map.Entry<Character, Integer> child : children.entrySet()) {
+                childKeys[node][i] = child.getKey();
+                childNodes[node][i] = child.getValue();
+                i++;
+            }
+        }
+        
+        // Breadth-first failure links; a node also reports the keywords of its failure chain
+        fail = new int[size];
+        Queue<Integer> queue = new ArrayDeque<>();
+        for (int child : childNodes[0]) {
+            queue.add(child);
+        }
+        while (!queue.isEmpty()) {
+            int node = queue.poll();
+            for (int i = 0; i < childKeys[node].length; i++) {
+                char c = childKeys[node][i];
+                int child = childNodes[node][i];
+                int f = fail[node];
+                while (f != 0 && next(f, c) < 0) {
+                    f = fail[f];
+                }
+                int target = next(f, c);
+                fail[child] = target >= 0 ? target : 0;
+                nodeOutputs.get(child).addAll(nodeOutputs.get(fail[child]));
+                queue.add(child);
+            }
+        }
+        
+        outputs = new int[size][];
+        for (int node = 0; node < size; node++) {
+            outputs[node] = nodeOutputs.get(node).stream().mapToInt(Integer::intValue).toArray();
+        }
+        keywordLength = lengths.stream().mapToInt(Integer::intValue).toArray();
+        keywordPrefix = new boolean[prefixes.size()];
+        for (int i = 0; i < keywordPrefix.length; i++) {
+            keywordPrefix[i] = prefixes.get(i);
+        }
+        keywordCategories = categories.stream().mapToInt(Integer::intValue).toArray();
+    }
+    
+    /**
+     * Count, per category, how many distinct keywords of that list occur in the text
+     */
+    public Matches scan(String text) {
+        long[] seen = new long[(keywordLength.length + 63) / 64];
+        int[] counts = new int[Category.values().length];
+        int length = text.length();
+        int node = 0;
+        
+        for (int i = 0; i < length; i++) {
+            char c = Character.toLowerCase(text.charAt(i));
+            int target = next(node, c);
+            while (target < 0 && node != 0) {
+                node = fail[node];
+                target = next(node, c);
+            }
+            node = Math.max(target, 0);
+            
+            for (int id : outputs[node]) {
+                int start = i - keywordLength[id] + 1;
+                if (start > 0 && isWordChar(text.charAt(start - 1))) {
+                    continue;
+                }
+                if (!keywordPrefix[id] && i + 1 < length && isWordChar(text.charAt(i + 1))) {
+                    continue;
+                }
+                if ((seen[id >>> 6] & (1L << id)) != 0) {
+                    continue;
+                }
+                seen[id >>> 6] |= 1L << id;
+                
+                int mask = keywordCategories[id];
+                while (mask != 0) {
+                    counts[Integer.numberOfTrailingZeros(mask)]++;
+                    mask &= mask - 1;
+                }
+            }
+        }
+        return new Matches(counts);
+    }
+    
+    private int next(int node, char c) {
+        int i = Arrays.binarySearch(childKeys[node], c);
+        return i >= 0 ? childNodes[node][i] : -1;
+    }
+    
+    private static boolean isWordChar(char c) {
+        return Character.isLetterOrDigit(c);
+    }
+    
+    public static class Matches {
+        private final int[] counts;
+        
+        private Matches(int[] counts) {
+            this.counts = counts;
+        }
+        
+        public int count(Category category) {
+            return counts[category.ordinal()];
+        }
+        
+        public boolean any(Category category) {
+            return counts[category.ordinal()] > 0;
+        }
+    }
+    
+    /**
+     * Read the keyword lists from properties of the form {@code tag.positive=good, great, excellent}
+     */
+    public static KeywordScanner fromProperties(Properties properties) {
+        Map<Category, List<String>> lexicon = new EnumMap<>(Category.class);
+        for (Category category : Category.values()) {
+            String value = properties.getProperty(category.getKey(), "");
+            lexicon.put(category, Arrays.stream(value.split(","))
+                    .map(String::trim)
+                    .filter(keyword -> !keyword.isEmpty())
+                    .toList());
+        }
+        return new KeywordScanner(lexicon);
+    }
+}
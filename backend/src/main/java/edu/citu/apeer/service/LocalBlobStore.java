@@ -0,0 +1,135 @@
+package edu.citu.apeer.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Blobs under {@code file.upload-dir}, spread over two levels of 256 directories by a hash of
+ * the file name ({@code avatars/3f/a9/<name>}), so no directory grows past a few thousand entries.
+ */
+@Service
+@ConditionalOnProperty(name = "file.storage.type", havingValue = "local", matchIfMissing = true)
+@Slf4j
+public class LocalBlobStore implements BlobStore {
+    
+    @Value("${file.upload-dir:uploads}")
+    private String uploadDir;
+    
+    private Path root;
+    
+    @PostConstruct
+    void init() throws IOException {
+        root = Paths.get(uploadDir).toAbsolutePath().normalize();
+        migrateFlatLayout(root.resolve("avatars"));
+    }
+    
+    @Override
+    public void put(String key, Path file, String contentType) throws IOException {
+        Path target = resolve(key);
+        Files.createDirectories(target.getParent());
+        try {
+            Files.move(file, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            // The file is on another file system: copy next to the target, then rename
+            Path temp = Files.createTempFile(target.getParent(), ".put-", ".tmp");
+            try {
+                Files.copy(file, temp, StandardCopyOption.REPLACE_EXISTING);
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        }
+    }
+    
+    @Override
+    public BlobInfo stat(String key) throws IOException {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(resolve(key), BasicFileAttributes.class);
+            return new BlobInfo(attributes.size(), attributes.lastModifiedTime().toInstant());
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+    
+    @Override
+    public InputStream open(String key) throws IOException {
+        return Files.newInputStream(resolve(key));
+    }
+    
+    @Override
+    public void delete(String key) throws IOException {
+        Files.deleteIfExists(resolve(key));
+    }
+    
+    @Override
+    public Path localPath(String key) {
+        return resolve(key);
+    }
+    
+    private Path resolve(String key) {
+        int slash = key.lastIndexOf('/');
+        String name = key.substring(slash + 1);
+        if (name.isEmpty() || name.startsWith(".")) {
+            throw new IllegalArgumentException("Invalid blob key: " + key);
+        }
+        String shard = shard(name);
+        Path path = root.resolve(key.substring(0, slash + 1) + shard.substring(0, 2) + "/" + shard.substring(2, 4) + "/" + name)
+                .normalize();
+        if (!path.startsWith(root)) {
+            throw new IllegalArgumentException("Invalid blob key: " + key);
+        }
+        return path;
+    }
+    
+    private static String shard(String name) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(name.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash, 0, 2);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+    
+    /**
+     * Earlier versions kept every avatar directly in {@code avatars/}; move those into their shards
+     */
+    private void migrateFlatLayout(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        int moved = 0;
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory, Files::isRegularFile)) {
+            for (Path entry : entries) {
+                String name = entry.getFileName().toString();
+                if (name.startsWith(".")) {
+                    // Leftover temp file from an interrupted upload
+                    Files.deleteIfExists(entry);
+                    continue;
+                }
+                put("avatars/" + name, entry, null);
+                moved++;
+            }
+        }
+        if (moved > 0) {
+            log.info("Moved {} files from {} into the sharded layout", moved, directory);
+        }
+    }
+}
@@ -0,0 +1,376 @@
+package edu.citu.apeer.service;
+
+import edu.citu.apeer.dto.PersonalReportDTO;
+import edu.citu.apeer.dto.ReportBatchStatus;
+import edu.citu.apeer.entity.User;
+import edu.citu.apeer.repository.UserRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Term-end export of every student's personal report as one ZIP. Reports are built in parallel
+ * on a fixed worker pool, with database work limited to a few connections at a time, and each
+ * is written into the archive as soon as it is ready. A batch streams either to the response or
+ * to a file that is kept for download until it expires; its progress can be polled by id.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ReportBatchService {
+    
+    private final UserRepository userRepository;
+    private final ReportService reportService;
+    private final StudentService studentService;
+    
+    @Value("${report.batch.workers:8}")
+    private int workers;
+    
+    @Value("${report.batch.db-concurrency:4}")
+    private int dbConcurrency;
+    
+    @Value("${report.batch.dir:report-batches}")
+    private String batchDir;
+    
+    @Value("${report.batch.retention:3600000}")
+    private long retentionMillis;
+    
+    private final Map<String, Batch> batches = new ConcurrentHashMap<>();
+    private ExecutorService pool;
+    // Batches written to disk run one after another; each already uses the whole pool
+    private ExecutorService fileWriter;
+    private Semaphore dbPermits;
+    
+    @PostConstruct
+    void start() throws IOException {
+        AtomicInteger threadNumber = new AtomicInteger();
+        pool = Executors.newFixedThreadPool(workers, runnable -> {
+            Thread thread = new Thread(runnable, "report-worker-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        fileWriter = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "report-batch-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        dbPermits = new Semaphore(dbConcurrency);
+        
+        // Batch status lives in memory, so archives left by a previous run can't be downloaded
+        Path dir = Paths.get(batchDir).toAbsolutePath().normalize();
+        Files.createDirectories(dir);
+        try (Stream<Path> leftovers = Files.list(dir)) {
+            leftovers.forEach(this::deleteQuietly);
+        }
+    }
+    
+    @PreDestroy
+    void stop() throws InterruptedException {
+        fileWriter.shutdownNow();
+        pool.shutdown();
+        pool.awaitTermination(10, TimeUnit.SECONDS);
+    }
+    
+    /**
+     * Register a batch for the active students, optionally only one group or the groups of one
+     * activity; nothing is built until it is written or started
+     */
+    public ReportBatchStatus createBatch(String groupId, String activityId, String requestedBy) {
+        List<User> students = userRepository.findActiveStudentsForReports(blankToNull(groupId), blankToNull(activityId));
+        if (students.isEmpty()) {
+            throw new RuntimeException("No active students to report on");
+        }
+        
+        Batch batch = new Batch(UUID.randomUUID().toString(), students);
+        batches.put(batch.id, batch);
+        log.info("Report batch {} for {} students requested by {}", batch.id, students.size(), requestedBy);
+        return batch.toStatus();
+    }
+    
+    /** Build a registered batch into a file in the background; poll {@link #getStatus} for progress */
+    public ReportBatchStatus startFileBatch(String batchId) {
+        Batch batch = begin(batchId);
+        Path dir = Paths.get(batchDir).toAbsolutePath().normalize();
+        Path part = dir.resolve(batch.id + ".zip.part");
+        Path file = dir.resolve(batch.id + ".zip");
+        
+        fileWriter.execute(() -> {
+            try {
+                try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(part), 64 * 1024)) {
+                    writeEntries(batch, out);
+                }
+                // Only a complete archive gets the name downloads look for
+                Files.move(part, file, StandardCopyOption.REPLACE_EXISTING);
+                batch.file = file;
+                batch.finish(State.COMPLETED, null);
+            } catch (Exception e) {
+                log.error("Report batch {} failed: ", batch.id, e);
+                batch.finish(State.FAILED, e.getMessage());
+                deleteQuietly(part);
+            }
+        });
+        return batch.toStatus();
+    }
+    
+    /** Build a registered batch into {@code out} as a ZIP, see {@link #writeEntries} */
+    public void writeZip(String batchId, OutputStream out) throws IOException {
+        Batch batch = begin(batchId);
+        try {
+            writeEntries(batch, out);
+        } catch (IOException | RuntimeException e) {
+            // Usually the client went away; reports already submitted finish and are dropped
+            batch.finish(State.FAILED, e.getMessage());
+            throw e;
+        }
+        batch.finish(State.COMPLETED, null);
+    }
+    
+    public ReportBatchStatus getStatus(String batchId) {
+        return getBatch(batchId).toStatus();
+    }
+    
+    /** The archive of a finished file batch */
+    public Path getBatchFile(String batchId) {
+        Batch batch = getBatch(batchId);
+        if (batch.file == null || batch.state != State.COMPLETED) {
+            throw new RuntimeException("Report batch is not ready for download");
+        }
+        return batch.file;
+    }
+    
+    public String exportFilename() {
+        return "reports_" + LocalDateTime.now().toLocalDate() + ".zip";
+    }
+    
+    /** Forget finished batches after the retention period and delete their archives */
+    @Scheduled(fixedDelayString = "${report.batch.cleanup-interval:300000}")
+    public void purgeExpired() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(Duration.ofMillis(retentionMillis));
+        batches.values().removeIf(batch -> {
+            boolean expired = batch.finishedAt != null
+                    ? batch.finishedAt.isBefore(cutoff)
+                    // Registered for a download that never came
+                    : batch.state == State.QUEUED && batch.createdAt.isBefore(cutoff);
+            if (expired && batch.file != null) {
+                deleteQuietly(batch.file);
+            }
+            return expired;
+        });
+    }
+    
+    /**
+     * One PDF per student under a folder per group, plus {@code errors.txt} listing any student
+     * whose report could not be built. Reports are written as they finish, and only a bounded
+     * number is held in memory ahead of the writer.
+     */
+    private void writeEntries(Batch batch, OutputStream out) throws IOException {
+        long started = System.currentTimeMillis();
+        // Versions for the whole batch in two queries; reports already cached at their version need no more
+        Map<String, String> versions = reportService.getReportVersions(batch.students);
+        CompletionService<BuiltReport> completion = new ExecutorCompletionService<>(pool);
+        Iterator<User> pending = batch.students.iterator();
+        int window = workers * 2;
+        int inFlight = 0;
+        List<String> failures = new ArrayList<>();
+        
+        ZipOutputStream zip = new ZipOutputStream(out);
+        // PDF streams are compressed already; stronger levels only cost time
+        zip.setLevel(Deflater.BEST_SPEED);
+        try {
+            while (inFlight > 0 || pending.hasNext()) {
+                while (inFlight < window && pending.hasNext()) {
+                    User student = pending.next();
+                    String version = versions.get(student.getId());
+                    completion.submit(() -> build(student, version));
+                    inFlight++;
+                }
+                
+                BuiltReport report = completion.take().get();
+                inFlight--;
+                if (report.error != null) {
+                    failures.add(report.student.getEmail() + ": " + report.error);
+                    batch.failed.incrementAndGet();
+                    continue;
+                }
+                
+                zip.putNextEntry(new ZipEntry(entryName(report.student)));
+                zip.write(report.pdf);
+                zip.closeEntry();
+                batch.completed.incrementAndGet();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Report batch interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Report batch failed", e.getCause());
+        }
+        
+        if (!failures.isEmpty()) {
+            zip.putNextEntry(new ZipEntry("errors.txt"));
+            zip.write((String.join("\n", failures) + "\n").getBytes(StandardCharsets.UTF_8));
+            zip.closeEntry();
+        }
+        // Completes the archive without closing the caller's stream
+        zip.finish();
+        out.flush();
+        log.info("Report batch {}: {} reports, {} failed in {} ms",
+                batch.id, batch.completed.get(), batch.failed.get(), System.currentTimeMillis() - started);
+    }
+    
+    private BuiltReport build(User student, String version) {
+        try {
+            byte[] pdf = reportService.getCachedReport(student, version);
+            if (pdf == null) {
+                PersonalReportDTO data;
+                dbPermits.acquire();
+                try {
+                    data = studentService.getReportData(student);
+                } finally {
+                    dbPermits.release();
+                }
+                // Rendering is CPU only, so it runs without holding a connection permit
+                pdf = reportService.renderPersonalReport(student, version, data);
+            }
+            return new BuiltReport(student, pdf, null);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new BuiltReport(student, null, "interrupted");
+        } catch (Exception e) {
+            log.warn("Could not build report for student {}: {}", student.getId(), e.getMessage());
+            return new BuiltReport(student, null, e.getMessage() != null ? e.getMessage() : e.toString());
+        }
+    }
+    
+    private Batch begin(String batchId) {
+        Batch batch = getBatch(batchId);
+        if (!batch.begin()) {
+            throw new RuntimeException("Report batch has already been run");
+        }
+        return batch;
+    }
+    
+    private Batch getBatch(String batchId) {
+        Batch batch = batches.get(batchId);
+        if (batch == null) {
+            throw new RuntimeException("Report batch not found");
+        }
+        return batch;
+    }
+    
+    private static String entryName(User student) {
+        String group = student.getGroup() != null ? student.getGroup().getName() : "Ungrouped";
+        return safeName(group) + "/" + safeName(student.getName() + " (" + student.getEmail() + ")") + ".pdf";
+    }
+    
+    private static String safeName(String name) {
+        String safe = name.replaceAll("[\\\\/:*?\"<>|\\p{Cntrl}]", "_").trim();
+        return safe.isEmpty() ? "_" : safe;
+    }
+    
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value;
+    }
+    
+    private void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Could not delete report archive {}: {}", path, e.getMessage());
+        }
+    }
+    
+    private enum State { QUEUED, RUNNING, COMPLETED, FAILED }
+    
+    private static class Batch {
+        private final String id;
+        private final List<User> students;
+        private final LocalDateTime createdAt = LocalDateTime.now();
+        private final AtomicInteger completed = new AtomicInteger();
+        private final AtomicInteger failed = new AtomicInteger();
+        private volatile State state = State.QUEUED;
+        private volatile LocalDateTime finishedAt;
+        private volatile String error;
+        private volatile Path file;
+        
+        private Batch(String id, List<User> students) {
+            this.id = id;
+            this.students = students;
+        }
+        
+        private synchronized boolean begin() {
+            if (state != State.QUEUED) {
+                return false;
+            }
+            state = State.RUNNING;
+            return true;
+        }
+        
+        private synchronized void finish(State result, String message) {
+            if (state != State.RUNNING && state != State.QUEUED) {
+                return;
+            }
+            error = message;
+            finishedAt = LocalDateTime.now();
+            state = result;
+        }
+        
+        private ReportBatchStatus toStatus() {
+            return ReportBatchStatus.builder()
+                    .id(id)
+                    .state(state.name())
+                    .total(students.size())
+                    .completed(completed.get())
+                    .failed(failed.get())
+                    .createdAt(createdAt)
+                    .finishedAt(finishedAt)
+                    .downloadable(file != null && state == State.COMPLETED)
+                    .error(error)
+                    .build();
+        }
+    }
+    
+    private static class BuiltReport {
+        private final User student;
+        private final byte[] pdf;
+        private final String error;
+        
+        private BuiltReport(User student, byte[] pdf, String error) {
+            this.student = student;
+            this.pdf = pdf;
+            this.error = error;
+        }
+    }
+}
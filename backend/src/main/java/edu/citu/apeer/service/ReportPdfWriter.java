@@ -0,0 +1,368 @@
+package edu.citu.apeer.service;
+
+import com.lowagie.text.Chunk;
+import com.lowagie.text.Document;
+import com.lowagie.text.DocumentException;
+import com.lowagie.text.Element;
+import com.lowagie.text.Font;
+import com.lowagie.text.Image;
+import com.lowagie.text.PageSize;
+import com.lowagie.text.Paragraph;
+import com.lowagie.text.Phrase;
+import com.lowagie.text.Rectangle;
+import com.lowagie.text.pdf.BaseFont;
+import com.lowagie.text.pdf.ColumnText;
+import com.lowagie.text.pdf.PdfContentByte;
+import com.lowagie.text.pdf.PdfPCell;
+import com.lowagie.text.pdf.PdfPTable;
+import com.lowagie.text.pdf.PdfPageEventHelper;
+import com.lowagie.text.pdf.PdfTemplate;
+import com.lowagie.text.pdf.PdfWriter;
+import edu.citu.apeer.dto.CriterionAverage;
+import edu.citu.apeer.dto.FeedbackSummaryDTO;
+import edu.citu.apeer.dto.PersonalReportDTO;
+import edu.citu.apeer.dto.RecentActivityDTO;
+import edu.citu.apeer.dto.SentimentTrendDTO;
+
+import java.awt.Color;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Lays out a {@link PersonalReportDTO} as an A4 PDF. Pages are written to the output as they
+ * fill up; the charts are drawn as vector graphics, so they stay sharp and add little size.
+ */
+public final class ReportPdfWriter {
+    
+    private static final Color ACCENT = new Color(0x4F, 0x46, 0xE5);
+    private static final Color MUTED = new Color(0x6B, 0x72, 0x80);
+    private static final Color GRID = new Color(0xE5, 0xE7, 0xEB);
+    private static final Color POSITIVE = new Color(0x10, 0xB9, 0x81);
+    private static final Color WARNING = new Color(0xF5, 0x9E, 0x0B);
+    private static final Color NEGATIVE = new Color(0xEF, 0x44, 0x44);
+    
+    private static final Font TITLE = new Font(Font.HELVETICA, 20, Font.BOLD, ACCENT);
+    private static final Font HEADING = new Font(Font.HELVETICA, 13, Font.BOLD);
+    private static final Font BODY = new Font(Font.HELVETICA, 10);
+    private static final Font SMALL = new Font(Font.HELVETICA, 8, Font.NORMAL, MUTED);
+    private static final Font METRIC = new Font(Font.HELVETICA, 16, Font.BOLD);
+    
+    private static final DateTimeFormatter DATE = DateTimeFormatter.ofPattern("MMM d, yyyy", Locale.ENGLISH);
+    private static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern("MMM d, yyyy HH:mm", Locale.ENGLISH);
+    
+    private static final float CHART_WIDTH = 515;
+    
+    private ReportPdfWriter() {
+    }
+    
+    /**
+     * Write the report to {@code out}. The stream is flushed but not closed.
+     */
+    public static void write(PersonalReportDTO report, OutputStream out) throws IOException {
+        Document document = new Document(PageSize.A4, 40, 40, 40, 50);
+        try {
+            PdfWriter writer = PdfWriter.getInstance(document, out);
+            writer.setCloseStream(false);
+            writer.setPageEvent(new PageFooter());
+            document.addTitle("APEER Personal Report - " + report.getName());
+            document.addCreator("APEER");
+            document.open();
+            
+            BaseFont font = BaseFont.createFont(BaseFont.HELVETICA, BaseFont.WINANSI, BaseFont.NOT_EMBEDDED);
+            PdfContentByte canvas = writer.getDirectContent();
+            
+            document.add(new Paragraph("Personal Performance Report", TITLE));
+            document.add(new Paragraph(report.getName() + "  ·  " + report.getEmail(), BODY));
+            document.add(new Paragraph("Generated " + DATE_TIME.format(report.getGeneratedAt()), SMALL));
+            
+            document.add(metrics(report));
+            
+            List<CriterionAverage> criteria = report.getCriterionAverages();
+            if (criteria == null || criteria.isEmpty()) {
+                section(document, "Scores by Criterion", new Paragraph("No rubric scores received yet.", BODY));
+            } else {
+                section(document, "Scores by Criterion", criterionChart(canvas, font, criteria));
+            }
+            
+            List<SentimentTrendDTO> sentiment = report.getWeeklySentiment();
+            if (sentiment == null || sentiment.isEmpty()) {
+                section(document, "Sentiment Trend", new Paragraph("No analyzed feedback yet.", BODY));
+            } else {
+                section(document, "Sentiment Trend",
+                        new Paragraph("Average sentiment of the feedback received each week (0 negative, 100 positive).", SMALL),
+                        sentimentChart(canvas, font, sentiment));
+            }
+            
+            heading(document, "AI Summary");
+            document.add(new Paragraph(valueOr(report.getAiSummary(), "No feedback to summarize yet."), BODY));
+            
+            FeedbackSummaryDTO insights = report.getFeedbackSummary();
+            if (insights != null) {
+                heading(document, "Strengths");
+                document.add(new Paragraph(valueOr(insights.getStrengths(), "-"), BODY));
+                heading(document, "Areas for Growth");
+                document.add(new Paragraph(valueOr(insights.getWeaknesses(), "-"), BODY));
+                if (insights.getTips() != null && !insights.getTips().isEmpty()) {
+                    heading(document, "Recommendations");
+                    for (String tip : insights.getTips()) {
+                        document.add(new Paragraph("• " + tip, BODY));
+                    }
+                }
+                if (insights.getThemes() != null && !insights.getThemes().isEmpty()) {
+                    document.add(new Paragraph("Themes: " + String.join(", ", insights.getThemes()), SMALL));
+                }
+            }
+            
+            List<RecentActivityDTO> recent = report.getRecentActivity();
+            if (recent != null && !recent.isEmpty()) {
+                section(document, "Recent Feedback", recentTable(recent));
+            }
+        } catch (DocumentException e) {
+            throw new IOException("Could not render report: " + e.getMessage(), e);
+        } finally {
+            if (document.isOpen()) {
+                document.close();
+            }
+        }
+        out.flush();
+    }
+    
+    private static void heading(Document document, String text) throws DocumentException {
+        document.add(headingParagraph(text));
+    }
+    
+    /**
+     * A heading with content that is moved to the next page as a whole rather than split
+     * (charts and the short recent-feedback table always fit on one page)
+     */
+    private static void section(Document document, String title, Element... content) throws DocumentException {
+        PdfPTable section = new PdfPTable(1);
+        section.setWidthPercentage(100);
+        section.setKeepTogether(true);
+        PdfPCell heading = new PdfPCell();
+        heading.addElement(headingParagraph(title));
+        heading.setBorder(Rectangle.NO_BORDER);
+        heading.setPadding(0);
+        section.addCell(heading);
+        for (Element element : content) {
+            PdfPCell cell = new PdfPCell();
+            cell.addElement(element);
+            cell.setBorder(Rectangle.NO_BORDER);
+            cell.setPadding(0);
+            cell.setPaddingBottom(4);
+            section.addCell(cell);
+        }
+        document.add(section);
+    }
+    
+    private static Paragraph headingParagraph(String text) {
+        Paragraph heading = new Paragraph(text, HEADING);
+        heading.setSpacingBefore(14);
+        heading.setSpacingAfter(6);
+        return heading;
+    }
+    
+    private static PdfPTable metrics(PersonalReportDTO report) {
+        PdfPTable table = new PdfPTable(5);
+        table.setWidthPercentage(100);
+        table.setSpacingBefore(16);
+        metric(table, report.getOverallScore() + "%", "Overall score");
+        metric(table, report.getParticipationRate() + "%", "Participation");
+        metric(table, String.valueOf(report.getEvaluationsGiven()), "Evaluations given");
+        metric(table, String.valueOf(report.getEvaluationsReceived()), "Evaluations received");
+        metric(table, report.getFeedbackQuality() + "%", "Feedback quality");
+        return table;
+    }
+    
+    private static void metric(PdfPTable table, String value, String label) {
+        Paragraph content = new Paragraph();
+        content.add(new Chunk(value, METRIC));
+        content.add(Chunk.NEWLINE);
+        content.add(new Chunk(label, SMALL));
+        PdfPCell cell = new PdfPCell();
+        cell.addElement(content);
+        cell.setBorderColor(GRID);
+        cell.setPadding(8);
+        table.addCell(cell);
+    }
+    
+    /**
+     * One horizontal bar per criterion: the average as a share of the criterion's maximum
+     */
+    private static Image criterionChart(PdfContentByte canvas, BaseFont font, List<CriterionAverage> criteria)
+            throws DocumentException {
+        float rowHeight = 22;
+        float labelWidth = 150;
+        float valueWidth = 70;
+        float barWidth = CHART_WIDTH - labelWidth - valueWidth;
+        float height = criteria.size() * rowHeight + 4;
+        
+        PdfTemplate chart = canvas.createTemplate(CHART_WIDTH, height);
+        for (int i = 0; i < criteria.size(); i++) {
+            CriterionAverage criterion = criteria.get(i);
+            float y = height - (i + 1) * rowHeight;
+            double percentage = Math.max(0, Math.min(100, criterion.percentage()));
+            
+            chart.setColorFill(GRID);
+            chart.rectangle(labelWidth, y + 5, barWidth, 12);
+            chart.fill();
+            chart.setColorFill(scoreColor(percentage));
+            chart.rectangle(labelWidth, y + 5, (float) (barWidth * percentage / 100), 12);
+            chart.fill();
+            
+            chart.beginText();
+            chart.setColorFill(Color.BLACK);
+            chart.setFontAndSize(font, 9);
+            chart.showTextAligned(Element.ALIGN_LEFT, truncate(font, criterion.getCriterionName(), 9, labelWidth - 8), 0, y + 8, 0);
+            chart.showTextAligned(Element.ALIGN_RIGHT, String.format(Locale.ENGLISH, "%.1f / %.0f",
+                    criterion.getAverageScore(), criterion.getAverageMaxScore()), CHART_WIDTH, y + 8, 0);
+            chart.endText();
+        }
+        return chartImage(chart);
+    }
+    
+    /**
+     * Weekly sentiment as a line over a 0-100 scale with a neutral line at 50
+     */
+    private static Image sentimentChart(PdfContentByte canvas, BaseFont font, List<SentimentTrendDTO> weeks)
+            throws DocumentException {
+        float height = 170;
+        float left = 28;
+        float bottom = 22;
+        float plotWidth = CHART_WIDTH - left - 10;
+        float plotHeight = height - bottom - 8;
+        
+        PdfTemplate chart = canvas.createTemplate(CHART_WIDTH, height);
+        chart.setLineWidth(0.5f);
+        for (int level = 0; level <= 100; level += 25) {
+            float y = bottom + plotHeight * level / 100;
+            chart.setColorStroke(level == 50 ? MUTED : GRID);
+            if (level == 50) {
+                chart.setLineDash(3, 2);
+            }
+            chart.moveTo(left, y);
+            chart.lineTo(left + plotWidth, y);
+            chart.stroke();
+            chart.setLineDash(0);
+            
+            chart.beginText();
+            chart.setColorFill(MUTED);
+            chart.setFontAndSize(font, 7);
+            chart.showTextAligned(Element.ALIGN_RIGHT, String.valueOf(level), left - 4, y - 2, 0);
+            chart.endText();
+        }
+        
+        int count = weeks.size();
+        float step = count > 1 ? plotWidth / (count - 1) : 0;
+        // Label at most about ten weeks so the dates don't overlap
+        int labelEvery = Math.max(1, (int) Math.ceil(count / 10.0));
+        
+        chart.setColorStroke(ACCENT);
+        chart.setLineWidth(1.5f);
+        for (int i = 0; i < count; i++) {
+            float x = left + (count > 1 ? i * step : plotWidth / 2);
+            float y = bottom + plotHeight * clampScore(weeks.get(i).getScore()) / 100;
+            if (i == 0) {
+                chart.moveTo(x, y);
+            } else {
+                chart.lineTo(x, y);
+            }
+        }
+        if (count > 1) {
+            chart.stroke();
+        } else {
+            chart.newPath();
+        }
+        
+        for (int i = 0; i < count; i++) {
+            float x = left + (count > 1 ? i * step : plotWidth / 2);
+            int score = clampScore(weeks.get(i).getScore());
+            chart.setColorFill(scoreColor(score));
+            chart.circle(x, bottom + plotHeight * score / 100, 2.5f);
+            chart.fill();
+            
+            if (i % labelEvery == 0 || i == count - 1) {
+                chart.beginText();
+                chart.setColorFill(MUTED);
+                chart.setFontAndSize(font, 7);
+                chart.showTextAligned(Element.ALIGN_CENTER, weeks.get(i).getWeek(), x, bottom - 12, 0);
+                chart.endText();
+            }
+        }
+        return chartImage(chart);
+    }
+    
+    private static PdfPTable recentTable(List<RecentActivityDTO> recent) {
+        PdfPTable table = new PdfPTable(new float[]{1.2f, 1.6f, 0.7f, 3.5f});
+        table.setWidthPercentage(100);
+        table.setHeaderRows(1);
+        for (String header : new String[]{"Date", "Activity", "Score", "Comment"}) {
+            PdfPCell cell = new PdfPCell(new Phrase(header, SMALL));
+            cell.setBorderColor(GRID);
+            cell.setPadding(4);
+            table.addCell(cell);
+        }
+        for (RecentActivityDTO activity : recent) {
+            cell(table, activity.getSubmittedAt() != null ? DATE.format(activity.getSubmittedAt()) : "");
+            cell(table, valueOr(activity.getActivityName(), ""));
+            cell(table, activity.getScore() + "%");
+            cell(table, valueOr(activity.getCommentPreview(), ""));
+        }
+        return table;
+    }
+    
+    private static void cell(PdfPTable table, String text) {
+        PdfPCell cell = new PdfPCell(new Phrase(text, BODY));
+        cell.setBorderColor(GRID);
+        cell.setPadding(4);
+        table.addCell(cell);
+    }
+    
+    private static Image chartImage(PdfTemplate chart) throws DocumentException {
+        Image image = Image.getInstance(chart);
+        image.setAlignment(Element.ALIGN_CENTER);
+        return image;
+    }
+    
+    private static Color scoreColor(double percentage) {
+        if (percentage >= 70) {
+            return POSITIVE;
+        }
+        return percentage >= 40 ? WARNING : NEGATIVE;
+    }
+    
+    private static int clampScore(Integer score) {
+        return score == null ? 50 : Math.max(0, Math.min(100, score));
+    }
+    
+    private static String truncate(BaseFont font, String text, float size, float maxWidth) {
+        if (text == null) {
+            return "";
+        }
+        if (font.getWidthPoint(text, size) <= maxWidth) {
+            return text;
+        }
+        String shortened = text;
+        while (!shortened.isEmpty() && font.getWidthPoint(shortened + "...", size) > maxWidth) {
+            shortened = shortened.substring(0, shortened.length() - 1);
+        }
+        return shortened + "...";
+    }
+    
+    private static String valueOr(String value, String fallback) {
+        return value == null || value.isBlank() ? fallback : value;
+    }
+    
+    private static class PageFooter extends PdfPageEventHelper {
+        @Override
+        public void onEndPage(PdfWriter writer, Document document) {
+            PdfContentByte canvas = writer.getDirectContent();
+            Phrase footer = new Phrase("APEER  ·  Page " + writer.getPageNumber(), SMALL);
+            ColumnText.showTextAligned(canvas, Element.ALIGN_CENTER, footer,
+                    (document.left() + document.right()) / 2, document.bottom() - 25, 0);
+        }
+    }
+}
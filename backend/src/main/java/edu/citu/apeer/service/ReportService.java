@@ -0,0 +1,203 @@
+package edu.citu.apeer.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import edu.citu.apeer.dto.PersonalReportDTO;
+import edu.citu.apeer.dto.ReceivedFeedbackStamp;
+import edu.citu.apeer.dto.StudentScoreTotals;
+import edu.citu.apeer.entity.User;
+import edu.citu.apeer.repository.EvaluationSubmissionRepository;
+import edu.citu.apeer.repository.UserRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Personal PDF reports. A rendered report is kept in memory under a version derived from the
+ * student's feedback (latest submission, counts, analyses), so downloading it again costs two
+ * small queries until new feedback arrives; the same version serves as the HTTP ETag.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ReportService {
+    
+    // Change when the report layout or content changes, so cached and downloaded copies are replaced
+    private static final String REPORT_LAYOUT = "1";
+    
+    private final UserRepository userRepository;
+    private final StudentService studentService;
+    private final EvaluationSubmissionRepository submissionRepository;
+    private final StudentScoreAggregateService aggregateService;
+    
+    @Value("${report.cache.max-bytes:67108864}")
+    private long cacheMaxBytes;
+    
+    private Cache<String, CachedReport> reports;
+    
+    @PostConstruct
+    void init() {
+        reports = Caffeine.newBuilder()
+                .maximumWeight(cacheMaxBytes)
+                .weigher((String studentId, CachedReport report) -> report.pdf.length)
+                .recordStats()
+                .build();
+    }
+    
+    public User getStudent(String email) {
+        return userRepository.findByEmail(email)
+                .orElseThrow(() -> new RuntimeException("Student not found"));
+    }
+    
+    /**
+     * Identifies what the student's report would contain right now; it changes when new
+     * feedback arrives, an evaluation finishes analysis, or the student gives an evaluation.
+     */
+    public String getReportVersion(User student) {
+        return reportVersion(student, submissionRepository.findReceivedStamp(student.getId()),
+                aggregateService.getTotals(student.getId()));
+    }
+    
+    /**
+     * {@link #getReportVersion} for many students at once, with two queries in total
+     */
+    public Map<String, String> getReportVersions(Collection<User> students) {
+        Map<String, ReceivedFeedbackStamp> stamps = submissionRepository.findReceivedStamps().stream()
+                .collect(Collectors.toMap(ReceivedFeedbackStamp::getTargetId, Function.identity()));
+        Map<String, StudentScoreTotals> totals = aggregateService.getTotalsByStudent();
+        
+        Map<String, String> versions = new HashMap<>();
+        for (User student : students) {
+            // Same values the single-student queries return for a student without feedback
+            ReceivedFeedbackStamp received = stamps.getOrDefault(student.getId(), new ReceivedFeedbackStamp(null, 0L, 0L));
+            StudentScoreTotals studentTotals = totals.getOrDefault(student.getId(), StudentScoreTotals.empty(student.getId()));
+            versions.put(student.getId(), reportVersion(student, received, studentTotals));
+        }
+        return versions;
+    }
+    
+    /**
+     * Write the report for {@code version} (from {@link #getReportVersion}) to {@code out}: the
+     * cached copy if it is that version, otherwise a fresh one, streamed while it is rendered.
+     */
+    public void writePersonalReport(User student, String version, OutputStream out) throws IOException {
+        byte[] cached = getCachedReport(student, version);
+        if (cached != null) {
+            out.write(cached);
+            out.flush();
+            return;
+        }
+        
+        PersonalReportDTO report = studentService.getReportData(student);
+        ByteArrayOutputStream copy = new ByteArrayOutputStream(32 * 1024);
+        ReportPdfWriter.write(report, new TeeOutputStream(out, copy));
+        cacheReport(student, version, copy.toByteArray());
+    }
+    
+    /** The cached report if it is still {@code version}, otherwise null */
+    public byte[] getCachedReport(User student, String version) {
+        CachedReport cached = reports.getIfPresent(student.getId());
+        return cached != null && cached.version.equals(version) ? cached.pdf : null;
+    }
+    
+    /**
+     * Render {@code report} (loaded for {@code version}) into memory and cache it. Touches no
+     * database, so batch callers can load data under a connection limit and render outside it.
+     */
+    public byte[] renderPersonalReport(User student, String version, PersonalReportDTO report) {
+        ByteArrayOutputStream pdf = new ByteArrayOutputStream(32 * 1024);
+        try {
+            ReportPdfWriter.write(report, pdf);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return cacheReport(student, version, pdf.toByteArray());
+    }
+    
+    private byte[] cacheReport(User student, String version, byte[] pdf) {
+        // Feedback arriving while the report was built makes the next version differ, so this can't go stale
+        reports.put(student.getId(), new CachedReport(version, pdf));
+        log.debug("Rendered report for student {} ({} bytes)", student.getId(), pdf.length);
+        return pdf;
+    }
+    
+    private static String reportVersion(User student, ReceivedFeedbackStamp received, StudentScoreTotals totals) {
+        String fingerprint = String.join("|", REPORT_LAYOUT, student.getName(), student.getEmail(),
+                String.valueOf(received.getLatestSubmittedAt()),
+                String.valueOf(received.getReceivedCount()), String.valueOf(received.getAnalyzedCount()),
+                String.valueOf(totals.getGivenCount()), String.valueOf(totals.getAnalyzedCount()));
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(fingerprint.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash, 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+    
+    public Map<String, Object> getCacheStats() {
+        CacheStats stats = reports.stats();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("entries", reports.estimatedSize());
+        result.put("hits", stats.hitCount());
+        result.put("misses", stats.missCount());
+        result.put("hitRate", stats.hitRate());
+        result.put("evictions", stats.evictionCount());
+        return result;
+    }
+    
+    private static class CachedReport {
+        private final String version;
+        private final byte[] pdf;
+        
+        private CachedReport(String version, byte[] pdf) {
+            this.version = version;
+            this.pdf = pdf;
+        }
+    }
+    
+    /** Sends everything written to the response and keeps a copy for the cache */
+    private static class TeeOutputStream extends OutputStream {
+        private final OutputStream out;
+        private final OutputStream copy;
+        
+        private TeeOutputStream(OutputStream out, OutputStream copy) {
+            this.out = out;
+            this.copy = copy;
+        }
+        
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            copy.write(b);
+        }
+        
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            copy.write(b, off, len);
+        }
+        
+        @Override
+        public void flush() throws IOException {
+            out.flush();
+        }
+    }
+}
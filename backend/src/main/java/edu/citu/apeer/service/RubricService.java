@@ -1,10 +1,13 @@
 package edu.citu.apeer.service;
 
+import edu.citu.apeer.config.CacheConfig;
 import edu.citu.apeer.dto.*;
 import edu.citu.apeer.entity.*;
 import edu.citu.apeer.repository.*;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -19,6 +22,7 @@ public class RubricService {
     private final RubricRepository rubricRepository;
     private final RubricCriterionRepository criterionRepository;
     
+    @Cacheable(cacheNames = CacheConfig.RUBRICS, key = "'all'")
     public List<RubricDTO> getAllRubrics() {
         return rubricRepository.findAllByOrderByCreatedAtDesc()
                 .stream()
@@ -26,6 +30,7 @@ public class RubricService {
                 .collect(Collectors.toList());
     }
     
+    @Cacheable(cacheNames = CacheConfig.RUBRICS, key = "#id")
     public RubricDTO getRubricById(String id) {
         Rubric rubric = rubricRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Rubric not found"));
@@ -33,6 +38,7 @@ public class RubricService {
     }
     
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.RUBRICS, allEntries = true)
     public void createSampleRubrics() {
         if (!rubricRepository.existsByName("Team Collaboration")) {
             Rubric teamRubric = Rubric.builder()
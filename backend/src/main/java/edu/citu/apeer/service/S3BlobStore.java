@@ -0,0 +1,129 @@
+package edu.citu.apeer.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.http.urlconnection.UrlConnectionHttpClient;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3ClientBuilder;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+
+/**
+ * Blobs in an S3 bucket, or any S3-compatible service (MinIO, Ceph, R2) via
+ * {@code file.storage.s3.endpoint}. Every backend node sees the same files, so nodes need no
+ * shared file system. An S3 PUT is atomic: readers see the old object or the complete new one.
+ */
+@Service
+@ConditionalOnProperty(name = "file.storage.type", havingValue = "s3")
+@Slf4j
+public class S3BlobStore implements BlobStore {
+    
+    @Value("${file.storage.s3.bucket}")
+    private String bucket;
+    
+    // Empty for AWS itself
+    @Value("${file.storage.s3.endpoint:}")
+    private String endpoint;
+    
+    @Value("${file.storage.s3.region:us-east-1}")
+    private String region;
+    
+    // Empty to use the default AWS credential chain (environment, profile, instance role)
+    @Value("${file.storage.s3.access-key:}")
+    private String accessKey;
+    
+    @Value("${file.storage.s3.secret-key:}")
+    private String secretKey;
+    
+    // MinIO and most self-hosted services only support http://host/bucket/key addressing
+    @Value("${file.storage.s3.path-style:true}")
+    private boolean pathStyle;
+    
+    private S3Client client;
+    
+    @PostConstruct
+    void init() {
+        S3ClientBuilder builder = S3Client.builder()
+                .httpClientBuilder(UrlConnectionHttpClient.builder())
+                .region(Region.of(region))
+                .forcePathStyle(pathStyle);
+        if (!endpoint.isBlank()) {
+            builder.endpointOverride(URI.create(endpoint));
+        }
+        builder.credentialsProvider(accessKey.isBlank()
+                ? DefaultCredentialsProvider.create()
+                : StaticCredentialsProvider.create(AwsBasicCredentials.create(accessKey, secretKey)));
+        client = builder.build();
+        log.info("Storing files in S3 bucket {}{}", bucket, endpoint.isBlank() ? "" : " at " + endpoint);
+    }
+    
+    @PreDestroy
+    void close() {
+        client.close();
+    }
+    
+    @Override
+    public void put(String key, Path file, String contentType) throws IOException {
+        try {
+            client.putObject(request -> request.bucket(bucket).key(key).contentType(contentType),
+                    RequestBody.fromFile(file));
+        } catch (SdkException e) {
+            throw new IOException("Could not store " + key + ": " + e.getMessage(), e);
+        }
+    }
+    
+    @Override
+    public BlobInfo stat(String key) throws IOException {
+        try {
+            HeadObjectResponse head = client.headObject(request -> request.bucket(bucket).key(key));
+            return new BlobInfo(head.contentLength(), head.lastModified());
+        } catch (NoSuchKeyException e) {
+            return null;
+        } catch (S3Exception e) {
+            // HEAD responses have no body, so a missing key often arrives as a bare 404
+            if (e.statusCode() == 404) {
+                return null;
+            }
+            throw new IOException("Could not read " + key + ": " + e.getMessage(), e);
+        } catch (SdkException e) {
+            throw new IOException("Could not read " + key + ": " + e.getMessage(), e);
+        }
+    }
+    
+    @Override
+    public InputStream open(String key) throws IOException {
+        try {
+            return client.getObject(request -> request.bucket(bucket).key(key));
+        } catch (NoSuchKeyException e) {
+            throw new NoSuchFileException(key);
+        } catch (SdkException e) {
+            throw new IOException("Could not read " + key + ": " + e.getMessage(), e);
+        }
+    }
+    
+    @Override
+    public void delete(String key) throws IOException {
+        try {
+            client.deleteObject(request -> request.bucket(bucket).key(key));
+        } catch (SdkException e) {
+            throw new IOException("Could not delete " + key + ": " + e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package edu.citu.apeer.service;
+
+import edu.citu.apeer.dto.StudentScoreTotals;
+import edu.citu.apeer.entity.AnalysisResult;
+import edu.citu.apeer.entity.CriterionScore;
+import edu.citu.apeer.entity.EvaluationSubmission;
+import edu.citu.apeer.repository.EvaluationSubmissionRepository;
+import edu.citu.apeer.repository.StudentScoreAggregateRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Maintains the {@code student_score_aggregate} table. Writes join the caller's
+ * transaction so the sums commit or roll back together with the submission.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Transactional
+public class StudentScoreAggregateService {
+    
+    private final StudentScoreAggregateRepository aggregateRepository;
+    private final EvaluationSubmissionRepository submissionRepository;
+    
+    /**
+     * Count a new submission: received scores for the target, one given evaluation for the evaluator
+     */
+    public void recordSubmission(EvaluationSubmission submission, List<CriterionScore> scores) {
+        int scoreTotal = scores.stream().mapToInt(CriterionScore::getScore).sum();
+        int maxTotal = scores.stream().mapToInt(CriterionScore::getMaxScore).sum();
+        String activityId = submission.getActivity().getId();
+        
+        aggregateRepository.applyDelta(UUID.randomUUID().toString(),
+                submission.getTarget().getId(), activityId,
+                scoreTotal, maxTotal, 1, 0, 0, 0, 0);
+        aggregateRepository.applyDelta(UUID.randomUUID().toString(),
+                submission.getEvaluator().getId(), activityId,
+                0, 0, 0, 1, 0, 0, 0);
+    }
+    
+    /**
+     * Count several submissions by one evaluator for one activity: one row per target,
+     * and a single row for the evaluator carrying all of the given evaluations
+     */
+    public void recordSubmissions(List<EvaluationSubmission> submissions) {
+        if (submissions.isEmpty()) {
+            return;
+        }
+        EvaluationSubmission first = submissions.get(0);
+        String activityId = first.getActivity().getId();
+        
+        for (EvaluationSubmission submission : submissions) {
+            int scoreTotal = submission.getScores().stream().mapToInt(CriterionScore::getScore).sum();
+            int maxTotal = submission.getScores().stream().mapToInt(CriterionScore::getMaxScore).sum();
+            aggregateRepository.applyDelta(UUID.randomUUID().toString(),
+                    submission.getTarget().getId(), activityId,
+                    scoreTotal, maxTotal, 1, 0, 0, 0, 0);
+        }
+        aggregateRepository.applyDelta(UUID.randomUUID().toString(),
+                first.getEvaluator().getId(), activityId,
+                0, 0, 0, submissions.size(), 0, 0, 0);
+    }
+    
+    /**
+     * Count the analysis of a submission towards its evaluator's usefulness and flag totals
+     */
+    public void recordAnalysis(EvaluationSubmission submission, AnalysisResult analysis) {
+        aggregateRepository.applyDelta(UUID.randomUUID().toString(),
+                submission.getEvaluator().getId(), submission.getActivity().getId(),
+                0, 0, 0, 0, 1,
+                analysis.getUsefulnessScore(),
+                Boolean.TRUE.equals(analysis.getIsFlagged()) ? 1 : 0);
+    }
+    
+    /**
+     * Drop and recompute every aggregate row from the raw tables. The table stays locked until
+     * commit, so a submit can't add its delta between the delete and the recompute and then be
+     * lost or counted twice; it waits and applies it to the rebuilt rows.
+     */
+    public int rebuild() {
+        aggregateRepository.lockExclusive();
+        aggregateRepository.deleteAllInBatch();
+        int rows = aggregateRepository.rebuildFromSubmissions();
+        log.info("Rebuilt student score aggregates: {} rows", rows);
+        return rows;
+    }
+    
+    /**
+     * Backfill the table for databases that have submissions from before it existed. The check
+     * runs under the rebuild lock, so when several nodes start at once only the first rebuilds.
+     */
+    public void rebuildIfEmpty() {
+        aggregateRepository.lockExclusive();
+        if (aggregateRepository.count() == 0 && submissionRepository.count() > 0) {
+            rebuild();
+        }
+    }
+    
+    @Transactional(readOnly = true)
+    public StudentScoreTotals getTotals(String studentId) {
+        return aggregateRepository.findTotalsByStudentId(studentId)
+                .orElseGet(() -> StudentScoreTotals.empty(studentId));
+    }
+    
+    @Transactional(readOnly = true)
+    public Map<String, StudentScoreTotals> getTotalsByStudent() {
+        return aggregateRepository.findTotalsForAllStudents().stream()
+                .collect(Collectors.toMap(StudentScoreTotals::getStudentId, Function.identity()));
+    }
+}
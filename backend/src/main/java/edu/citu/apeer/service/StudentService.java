@@ -5,12 +5,25 @@ import edu.citu.apeer.entity.*;
 import edu.citu.apeer.repository.*;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.TemporalAdjusters;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Comparator;
+import java.util.Base64;
+import java.util.Collections;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
 import java.util.stream.Collectors;
 
 @Service
@@ -18,44 +31,53 @@ import java.util.stream.Collectors;
 @Slf4j
 public class StudentService {
     
-    private final UserRepository userRepository;
     private final EvaluationSubmissionRepository submissionRepository;
     private final AnalysisResultRepository analysisRepository;
     private final CriterionScoreRepository scoreRepository;
-    private final FakeAIService aiService;
+    private final AIService aiService;
     private final EvaluationActivityRepository activityRepository;
+    private final StudentScoreAggregateService aggregateService;
+    private final UserLookupService userLookupService;
     
+    private static final int RECENT_ACTIVITY_LIMIT = 3;
+    private static final int MAX_HISTORY_PAGE_SIZE = 100;
+    private static final int REPORT_SENTIMENT_WEEKS = 26;
+    
+    @Transactional(readOnly = true)
     public StudentDashboardDTO getDashboardData(String studentEmail) {
-        User student = userRepository.findByEmail(studentEmail)
+        CurrentUser student = userLookupService.findByEmail(studentEmail)
                 .orElseThrow(() -> new RuntimeException("Student not found"));
         
-        long givenCount = submissionRepository.countByEvaluatorId(student.getId());
-        long receivedCount = submissionRepository.countByTargetId(student.getId());
-        Double avgUsefulness = analysisRepository.calculateAverageUsefulnessGiven(student.getId());
+        // Counts, overall score and feedback quality come from the maintained aggregate row
+        StudentScoreTotals totals = aggregateService.getTotals(student.getId());
+        long givenCount = totals.getGivenCount();
+        long receivedCount = totals.getReceivedCount();
+        
+        // Everything else the student received is loaded once and derived in memory
+        ReceivedFeedback received = loadReceivedFeedback(student.getId());
         
         List<SentimentTrendDTO> sentimentTrend = calculateSentimentTrend(student.getId());
         
-        List<EvaluationSubmission> received = submissionRepository.findByTargetId(student.getId());
-        List<String> comments = received.stream()
+        List<String> comments = received.submissions.stream()
                 .map(EvaluationSubmission::getComment)
                 .filter(c -> c != null && !c.isEmpty())
                 .collect(Collectors.toList());
         String aiSummary = aiService.generateSummary(comments);
         
-        // Calculate real overall score: Average of all CriterionScore values received
-        int overallScore = calculateRealOverallScore(student.getId());
+        // Overall score: received criterion scores as a percentage of the maximum possible
+        int overallScore = totals.overallScore();
         
         // Calculate participation rate: (submitted / assigned) * 100
-        int participationRate = calculateParticipationRate(student.getId(), givenCount);
+        int participationRate = calculateParticipationRate(receivedCount, givenCount);
         
         // Calculate real sentiment trend from last 5 AnalysisResult entries
-        List<SentimentTrendDTO> realSentimentTrend = calculateRealSentimentTrendFromAnalysis(student.getId());
+        List<SentimentTrendDTO> realSentimentTrend = calculateRealSentimentTrendFromAnalysis(received);
         
         // Generate AI insights based on tags
-        FeedbackSummaryDTO aiInsights = generateAIPersonalizedInsights(student.getId());
+        FeedbackSummaryDTO aiInsights = generateAIPersonalizedInsights(received);
         
         // Get recent activity (last 3 evaluations received)
-        List<RecentActivityDTO> recentActivity = getRecentActivity(student.getId());
+        List<RecentActivityDTO> recentActivity = getRecentActivity(received);
         
         return StudentDashboardDTO.builder()
                 .id(student.getId())
@@ -64,7 +86,7 @@ public class StudentService {
                 .overallScore(overallScore)
                 .evaluationsGiven((int) givenCount)
                 .evaluationsReceived((int) receivedCount)
-                .feedbackQuality(avgUsefulness != null ? avgUsefulness.intValue() : 0)
+                .feedbackQuality(totals.averageUsefulness())
                 .participationRate(participationRate)
                 .sentimentTrend(realSentimentTrend.isEmpty() ? sentimentTrend : realSentimentTrend)
                 .pendingReviews(0)
@@ -74,28 +96,21 @@ public class StudentService {
                 .build();
     }
     
-    private int calculateRealOverallScore(String studentId) {
-        List<EvaluationSubmission> received = submissionRepository.findByTargetId(studentId);
-        if (received.isEmpty()) {
-            return 0;
-        }
-        
-        int totalScore = 0;
-        int maxPossibleScore = 0;
-        
-        for (EvaluationSubmission submission : received) {
-            List<CriterionScore> scores = scoreRepository.findBySubmissionId(submission.getId());
-            for (CriterionScore score : scores) {
-                totalScore += score.getScore();
-                maxPossibleScore += score.getMaxScore();
-            }
-        }
-        
-        if (maxPossibleScore == 0) {
-            return 0;
-        }
-        
-        return (int) ((double) totalScore / maxPossibleScore * 100);
+    /**
+     * Load the received submissions (with activity, analysis and tags) in one statement and
+     * the criterion scores of the most recent ones in a second, regardless of history size.
+     */
+    private ReceivedFeedback loadReceivedFeedback(String studentId) {
+        List<EvaluationSubmission> submissions = submissionRepository.findReceivedWithAnalysis(studentId);
+        List<String> recentIds = submissions.stream()
+                .limit(RECENT_ACTIVITY_LIMIT)
+                .map(EvaluationSubmission::getId)
+                .collect(Collectors.toList());
+        Map<String, List<CriterionScore>> scoresBySubmission = recentIds.isEmpty()
+                ? Collections.emptyMap()
+                : scoreRepository.findBySubmissionIdIn(recentIds).stream()
+                        .collect(Collectors.groupingBy(score -> score.getSubmission().getId()));
+        return new ReceivedFeedback(submissions, scoresBySubmission);
     }
     
     private List<SentimentTrendDTO> calculateSentimentTrend(String studentId) {
@@ -111,16 +126,14 @@ public class StudentService {
     
     /**
      * Calculate sentiment trend from last 5 AnalysisResult entries
-     * Query AnalysisResult directly for better performance
+     * Submissions are already ordered newest first
      */
-    private List<SentimentTrendDTO> calculateRealSentimentTrendFromAnalysis(String studentId) {
-        // Get last 5 AnalysisResult entries for this student (as target)
-        List<AnalysisResult> recentAnalyses = analysisRepository.findTop5BySubmissionTargetIdOrderByCreatedAtDesc(studentId);
-        
-        // Limit to 5
-        if (recentAnalyses.size() > 5) {
-            recentAnalyses = recentAnalyses.subList(0, 5);
-        }
+    private List<SentimentTrendDTO> calculateRealSentimentTrendFromAnalysis(ReceivedFeedback received) {
+        List<AnalysisResult> recentAnalyses = received.submissions.stream()
+                .map(EvaluationSubmission::getAnalysisResult)
+                .filter(analysis -> analysis != null)
+                .limit(5)
+                .collect(Collectors.toList());
         
         if (recentAnalyses.isEmpty()) {
             return new ArrayList<>();
@@ -147,15 +160,12 @@ public class StudentService {
     /**
      * Calculate participation rate: (evaluations submitted / evaluations assigned) * 100
      */
-    private int calculateParticipationRate(String studentId, long submittedCount) {
+    private int calculateParticipationRate(long receivedCount, long submittedCount) {
         // Count total assigned peer reviews for this student
         // This would ideally come from Activity assignments, but for now we'll use a heuristic
         // If student has submitted evaluations, assume they were assigned at least that many
         // In a real system, this would query Activity.participants or Assignment table
         
-        // For now: If submitted > 0, calculate based on received count (peer evaluation assumption)
-        long receivedCount = submissionRepository.countByTargetId(studentId);
-        
         // Heuristic: Assigned reviews = received reviews (peer evaluation is typically reciprocal)
         long assignedCount = Math.max(receivedCount, submittedCount);
         
@@ -167,26 +177,58 @@ public class StudentService {
         return Math.min(100, Math.max(0, rate));
     }
     
-    public List<FeedbackHistoryDTO> getFeedbackHistory(String studentEmail) {
-        User student = userRepository.findByEmail(studentEmail)
+    /**
+     * One page of the feedback a student received, newest first. {@code cursor} is the
+     * {@code nextCursor} of the previous page, or null for the first page.
+     */
+    @Transactional(readOnly = true)
+    public FeedbackHistoryPage getFeedbackHistory(String studentEmail, String cursor, int size) {
+        CurrentUser student = userLookupService.findByEmail(studentEmail)
                 .orElseThrow(() -> new RuntimeException("Student not found"));
+        int pageSize = Math.min(Math.max(size, 1), MAX_HISTORY_PAGE_SIZE);
         
         log.debug("Fetching feedback history for student: {} (ID: {})", studentEmail, student.getId());
-        List<EvaluationSubmission> received = submissionRepository.findByTargetId(student.getId());
+        // One extra row tells us whether another page follows
+        Limit limit = Limit.of(pageSize + 1);
+        List<EvaluationSubmission> received;
+        if (cursor == null || cursor.isBlank()) {
+            received = submissionRepository.findHistoryByTargetId(student.getId(), limit);
+        } else {
+            HistoryCursor after = HistoryCursor.decode(cursor);
+            received = submissionRepository.findHistoryByTargetIdAfter(
+                    student.getId(), after.submittedAt, after.id, limit);
+        }
+        
+        boolean hasMore = received.size() > pageSize;
+        if (hasMore) {
+            received = received.subList(0, pageSize);
+        }
         log.debug("Found {} submissions for student {}", received.size(), student.getId());
         
         if (received.isEmpty()) {
             log.debug("No feedback history found for student {}", studentEmail);
-            return new ArrayList<>();
+            return FeedbackHistoryPage.builder().items(new ArrayList<>()).build();
         }
         
+        EvaluationSubmission last = received.get(received.size() - 1);
+        return FeedbackHistoryPage.builder()
+                .items(toHistoryDTOs(student, received))
+                .nextCursor(hasMore ? new HistoryCursor(last.getSubmittedAt(), last.getId()).encode() : null)
+                .build();
+    }
+    
+    private List<FeedbackHistoryDTO> toHistoryDTOs(CurrentUser student, List<EvaluationSubmission> received) {
+        // All criterion scores for the page in one query instead of one per submission
+        Map<String, List<CriterionScore>> scoresBySubmission = scoreRepository.findBySubmissionIdIn(
+                        received.stream().map(EvaluationSubmission::getId).toList()).stream()
+                .collect(Collectors.groupingBy(score -> score.getSubmission().getId()));
+        
         return received.stream()
-                .sorted(Comparator.comparing(EvaluationSubmission::getSubmittedAt).reversed())
                 .map(submission -> {
                     AnalysisResult analysis = submission.getAnalysisResult();
                     
                     // Determine if this is a self-evaluation
-                    boolean isSelfEvaluation = submission.getEvaluator().getId().equals(submission.getTarget().getId());
+                    boolean isSelfEvaluation = submission.getEvaluator().getId().equals(student.getId());
                     
                     // Anonymity Rule: Only show evaluator name if it's a self-evaluation
                     String evaluatorName;
@@ -221,7 +263,7 @@ public class StudentService {
                     }
                     
                     // Calculate overall score for this submission
-                    List<CriterionScore> scores = scoreRepository.findBySubmissionId(submission.getId());
+                    List<CriterionScore> scores = scoresBySubmission.getOrDefault(submission.getId(), List.of());
                     double overallScore = 0.0;
                     List<RubricScoreDTO> rubricScores = new ArrayList<>();
                     
@@ -264,12 +306,9 @@ public class StudentService {
      * If "Constructive" appears > 3 times -> Add to Strengths
      * If "Vague" appears > 3 times -> Add to Areas for Growth
      */
-    private FeedbackSummaryDTO generateAIPersonalizedInsights(String studentId) {
-        // Get all AnalysisResult entries for this student (as target)
-        List<EvaluationSubmission> received = submissionRepository.findByTargetId(studentId);
-        
+    private FeedbackSummaryDTO generateAIPersonalizedInsights(ReceivedFeedback received) {
         List<String> allTags = new ArrayList<>();
-        for (EvaluationSubmission submission : received) {
+        for (EvaluationSubmission submission : received.submissions) {
             AnalysisResult analysis = submission.getAnalysisResult();
             if (analysis != null && analysis.getTags() != null) {
                 allTags.addAll(analysis.getTags());
@@ -340,23 +379,15 @@ public class StudentService {
                 .build();
     }
     
-    private FeedbackSummaryDTO generateFeedbackSummary(String studentId) {
-        // Fallback method - use AI insights instead
-        return generateAIPersonalizedInsights(studentId);
-    }
-    
     /**
      * Get recent activity: last 3 evaluations received
      */
-    private List<RecentActivityDTO> getRecentActivity(String studentId) {
-        List<EvaluationSubmission> received = submissionRepository.findByTargetId(studentId);
-        
-        return received.stream()
-                .sorted(Comparator.comparing(EvaluationSubmission::getSubmittedAt).reversed())
-                .limit(3)
+    private List<RecentActivityDTO> getRecentActivity(ReceivedFeedback received) {
+        return received.submissions.stream()
+                .limit(RECENT_ACTIVITY_LIMIT)
                 .map(submission -> {
                     // Calculate score for this submission
-                    List<CriterionScore> scores = scoreRepository.findBySubmissionId(submission.getId());
+                    List<CriterionScore> scores = received.scoresOf(submission);
                     int score = 0;
                     if (!scores.isEmpty()) {
                         int totalScore = scores.stream().mapToInt(CriterionScore::getScore).sum();
@@ -384,53 +415,116 @@ public class StudentService {
     }
     
     /**
-     * Generate personal report (PDF or text format)
-     * Returns a simple text-based report for now
+     * Everything the personal report shows, from the aggregate row, the received feedback
+     * (two statements, as for the dashboard) and one grouped query for the criterion averages.
      */
-    public byte[] generatePersonalReport(String studentEmail) {
-        User student = userRepository.findByEmail(studentEmail)
-                .orElseThrow(() -> new RuntimeException("Student not found"));
+    @Transactional(readOnly = true)
+    public PersonalReportDTO getReportData(User student) {
+        StudentScoreTotals totals = aggregateService.getTotals(student.getId());
+        ReceivedFeedback received = loadReceivedFeedback(student.getId());
+        
+        List<String> comments = received.submissions.stream()
+                .map(EvaluationSubmission::getComment)
+                .filter(c -> c != null && !c.isEmpty())
+                .collect(Collectors.toList());
+        
+        return PersonalReportDTO.builder()
+                .studentId(student.getId())
+                .name(student.getName())
+                .email(student.getEmail())
+                .generatedAt(LocalDateTime.now())
+                .overallScore(totals.overallScore())
+                .participationRate(calculateParticipationRate(totals.getReceivedCount(), totals.getGivenCount()))
+                .evaluationsGiven(totals.getGivenCount().intValue())
+                .evaluationsReceived(totals.getReceivedCount().intValue())
+                .feedbackQuality(totals.averageUsefulness())
+                .criterionAverages(scoreRepository.averageByCriterionForTarget(student.getId()))
+                .weeklySentiment(calculateWeeklySentiment(received))
+                .aiSummary(aiService.generateSummary(comments))
+                .feedbackSummary(generateAIPersonalizedInsights(received))
+                .recentActivity(getRecentActivity(received))
+                .build();
+    }
+    
+    /**
+     * Average sentiment of the analyzed feedback per week (weeks start on Monday), oldest first,
+     * for the last {@value #REPORT_SENTIMENT_WEEKS} weeks that had any
+     */
+    private List<SentimentTrendDTO> calculateWeeklySentiment(ReceivedFeedback received) {
+        TreeMap<LocalDate, double[]> weeks = new TreeMap<>();
+        for (EvaluationSubmission submission : received.submissions) {
+            AnalysisResult analysis = submission.getAnalysisResult();
+            if (analysis == null || analysis.getSentimentScore() == null || submission.getSubmittedAt() == null) {
+                continue;
+            }
+            LocalDate week = submission.getSubmittedAt().toLocalDate()
+                    .with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            double[] sumAndCount = weeks.computeIfAbsent(week, w -> new double[2]);
+            sumAndCount[0] += analysis.getSentimentScore();
+            sumAndCount[1]++;
+        }
+        while (weeks.size() > REPORT_SENTIMENT_WEEKS) {
+            weeks.pollFirstEntry();
+        }
+        
+        DateTimeFormatter label = DateTimeFormatter.ofPattern("MMM d", Locale.ENGLISH);
+        List<SentimentTrendDTO> trend = new ArrayList<>();
+        for (Map.Entry<LocalDate, double[]> week : weeks.entrySet()) {
+            double average = week.getValue()[0] / week.getValue()[1];
+            // Same -1..1 to 0..100 mapping as the dashboard trend
+            trend.add(SentimentTrendDTO.builder()
+                    .week(label.format(week.getKey()))
+                    .score((int) ((average + 1.0) / 2.0 * 100))
+                    .build());
+        }
+        return trend;
+    }
+    
+    /**
+     * Position in the history after which the next page starts, sent to clients as an opaque
+     * URL-safe string
+     */
+    private static class HistoryCursor {
+        private final LocalDateTime submittedAt;
+        private final String id;
         
-        StudentDashboardDTO dashboard = getDashboardData(studentEmail);
-        FeedbackSummaryDTO insights = dashboard.getFeedbackSummary();
-        
-        // Generate simple text report (can be enhanced to PDF later)
-        StringBuilder report = new StringBuilder();
-        report.append("=".repeat(60)).append("\n");
-        report.append("APEER - Personal Performance Report\n");
-        report.append("=".repeat(60)).append("\n\n");
-        report.append("Student Name: ").append(student.getName()).append("\n");
-        report.append("Email: ").append(student.getEmail()).append("\n");
-        report.append("Report Generated: ").append(java.time.LocalDateTime.now()).append("\n\n");
-        report.append("-".repeat(60)).append("\n");
-        report.append("PERFORMANCE SUMMARY\n");
-        report.append("-".repeat(60)).append("\n");
-        report.append("Overall Score: ").append(dashboard.getOverallScore()).append("%\n");
-        report.append("Participation Rate: ").append(dashboard.getParticipationRate()).append("%\n");
-        report.append("Evaluations Given: ").append(dashboard.getEvaluationsGiven()).append("\n");
-        report.append("Evaluations Received: ").append(dashboard.getEvaluationsReceived()).append("\n\n");
-        report.append("-".repeat(60)).append("\n");
-        report.append("AI-GENERATED INSIGHTS\n");
-        report.append("-".repeat(60)).append("\n");
-        report.append("Strengths:\n");
-        if (insights != null && insights.getStrengths() != null) {
-            report.append("  • ").append(insights.getStrengths()).append("\n");
+        private HistoryCursor(LocalDateTime submittedAt, String id) {
+            this.submittedAt = submittedAt;
+            this.id = id;
         }
-        report.append("\nAreas for Growth:\n");
-        if (insights != null && insights.getWeaknesses() != null) {
-            report.append("  • ").append(insights.getWeaknesses()).append("\n");
+        
+        private String encode() {
+            String raw = submittedAt + "|" + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
         }
-        if (insights != null && insights.getTips() != null && !insights.getTips().isEmpty()) {
-            report.append("\nRecommendations:\n");
-            for (String tip : insights.getTips()) {
-                report.append("  • ").append(tip).append("\n");
+        
+        private static HistoryCursor decode(String cursor) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                int separator = raw.indexOf('|');
+                return new HistoryCursor(LocalDateTime.parse(raw.substring(0, separator)), raw.substring(separator + 1));
+            } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+                throw new RuntimeException("Invalid history cursor");
             }
         }
-        report.append("\n").append("=".repeat(60)).append("\n");
-        report.append("End of Report\n");
-        report.append("=".repeat(60)).append("\n");
+    }
+    
+    /**
+     * In-memory view of everything a student received, newest first, with the criterion
+     * scores of the most recent submissions grouped by submission id.
+     */
+    private static class ReceivedFeedback {
+        private final List<EvaluationSubmission> submissions;
+        private final Map<String, List<CriterionScore>> scoresBySubmission;
+        
+        private ReceivedFeedback(List<EvaluationSubmission> submissions,
+                                 Map<String, List<CriterionScore>> scoresBySubmission) {
+            this.submissions = submissions;
+            this.scoresBySubmission = scoresBySubmission;
+        }
         
-        return report.toString().getBytes(java.nio.charset.StandardCharsets.UTF_8);
+        private List<CriterionScore> scoresOf(EvaluationSubmission submission) {
+            return scoresBySubmission.getOrDefault(submission.getId(), Collections.emptyList());
+        }
     }
 }
-
@@ -7,9 +7,14 @@ import edu.citu.apeer.entity.UserRole;
 import edu.citu.apeer.repository.*;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -18,17 +23,21 @@ import java.util.stream.Collectors;
 public class TeacherService {
     
     private final UserRepository userRepository;
-    private final EvaluationSubmissionRepository submissionRepository;
     private final AnalysisResultRepository analysisRepository;
+    private final StudentScoreAggregateService aggregateService;
+    private final StudentScoreAggregateRepository aggregateRepository;
+    
+    private static final int MAX_PAGE_SIZE = 200;
     
     public ClassAnalyticsDTO getClassAnalytics() {
         List<User> students = userRepository.findByRole(UserRole.STUDENT);
         long totalStudents = students.size();
+        Map<String, StudentScoreTotals> totals = aggregateService.getTotalsByStudent();
         
         Double classAvg = students.stream()
-                .map(s -> submissionRepository.calculateAverageScore(s.getId()))
-                .filter(score -> score != null)
-                .mapToDouble(Double::doubleValue)
+                .map(s -> totals.get(s.getId()))
+                .filter(t -> t != null && t.getMaxTotal() > 0)
+                .mapToDouble(t -> (double) t.getScoreTotal() / t.getMaxTotal() * 100)
                 .average()
                 .orElse(0.0);
         
@@ -57,36 +66,57 @@ public class TeacherService {
                 .build();
     }
     
-    public List<StudentSummaryDTO> getStudentList() {
-        List<User> students = userRepository.findByRole(UserRole.STUDENT);
+    public List<StudentSummaryDTO> getStudentList(String sortBy, String direction) {
+        return aggregateRepository.findStudentSummaries(Pageable.unpaged(toSort(sortBy, direction)))
+                .map(this::toSummaryDTO)
+                .getContent();
+    }
+    
+    /**
+     * One page of the student list, sorted in the database by name, score, flag status or participation
+     */
+    public Page<StudentSummaryDTO> getStudentPage(int page, int size, String sortBy, String direction) {
+        Pageable pageable = PageRequest.of(page, Math.min(Math.max(size, 1), MAX_PAGE_SIZE),
+                toSort(sortBy, direction));
+        return aggregateRepository.findStudentSummaries(pageable).map(this::toSummaryDTO);
+    }
+    
+    private Sort toSort(String sortBy, String direction) {
+        String key = sortBy != null ? sortBy.toLowerCase() : "name";
+        String property = switch (key) {
+            case "name" -> "name";
+            case "score" -> "scoreRatio";
+            case "flag", "flagged" -> "flaggedCount";
+            case "participation" -> "givenCount";
+            default -> throw new RuntimeException("Unsupported sort field: " + sortBy);
+        };
         
-        return students.stream()
-                .map(student -> {
-                    long given = submissionRepository.countByEvaluatorId(student.getId());
-                    long received = submissionRepository.countByTargetId(student.getId());
-                    Double avgScore = submissionRepository.calculateAverageScore(student.getId());
-                    Double avgUsefulness = analysisRepository.calculateAverageUsefulnessGiven(student.getId());
-                    
-                    boolean isBiased = submissionRepository.findByEvaluatorId(student.getId())
-                            .stream()
-                            .anyMatch(s -> s.getAnalysisResult() != null && 
-                                          s.getAnalysisResult().getIsFlagged());
-                    
-                    return StudentSummaryDTO.builder()
-                            .id(student.getId())
-                            .name(student.getName())
-                            .email(student.getEmail())
-                            .overallScore(avgScore != null ? avgScore.intValue() : 0)
-                            .evaluationsGiven((int) given)
-                            .evaluationsReceived((int) received)
-                            .feedbackQuality(avgUsefulness != null ? avgUsefulness.intValue() : 0)
-                            .participationRate(Math.min(100, (int) (given * 10)))
-                            .isBiased(isBiased)
-                            .biasScore(isBiased ? 2.5 : 0.0)
-                            .pendingReviews(0)
-                            .build();
-                })
-                .collect(Collectors.toList());
+        // Names read best A-Z, metrics highest first, unless the caller says otherwise
+        Sort.Direction dir = direction != null
+                ? Sort.Direction.fromString(direction)
+                : key.equals("name") ? Sort.Direction.ASC : Sort.Direction.DESC;
+        
+        // Tie-break on id so pages stay stable between requests
+        return Sort.by(dir, property).and(Sort.by(Sort.Direction.ASC, "id"));
+    }
+    
+    private StudentSummaryDTO toSummaryDTO(StudentScoreAggregateRepository.StudentSummaryRow row) {
+        StudentScoreTotals totals = row.toTotals();
+        long given = totals.getGivenCount();
+        boolean isBiased = totals.isFlagged();
+        
+        return StudentSummaryDTO.builder()
+                .id(row.getId())
+                .name(row.getName())
+                .email(row.getEmail())
+                .overallScore(totals.overallScore())
+                .evaluationsGiven((int) given)
+                .evaluationsReceived(totals.getReceivedCount().intValue())
+                .feedbackQuality(totals.averageUsefulness())
+                .participationRate(Math.min(100, (int) (given * 10)))
+                .isBiased(isBiased)
+                .biasScore(isBiased ? 2.5 : 0.0)
+                .pendingReviews(0)
+                .build();
     }
 }
-
@@ -0,0 +1,48 @@
+package edu.citu.apeer.service;
+
+import edu.citu.apeer.config.CacheConfig;
+import edu.citu.apeer.dto.CurrentUser;
+import edu.citu.apeer.entity.User;
+import edu.citu.apeer.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.Optional;
+
+/**
+ * Cached lookup of the signed-in user by email, which nearly every request starts with.
+ * Only {@link CurrentUser} snapshots are cached, never entities. Code that changes a user's
+ * name, status or group calls {@link #evict} next to the write; inside a transaction the
+ * eviction happens after commit, so a concurrent lookup can't cache the old row again.
+ */
+@Service
+@RequiredArgsConstructor
+public class UserLookupService {
+    
+    private final UserRepository userRepository;
+    private final CacheManager cacheManager;
+    
+    @Cacheable(cacheNames = CacheConfig.USERS, key = "#email", unless = "#result == null")
+    @Transactional(readOnly = true)
+    public Optional<CurrentUser> findByEmail(String email) {
+        return userRepository.findByEmail(email).map(CurrentUser::of);
+    }
+    
+    public void evict(User user) {
+        cache().evict(user.getEmail());
+    }
+    
+    public void evict(Collection<User> users) {
+        Cache cache = cache();
+        users.forEach(user -> cache.evict(user.getEmail()));
+    }
+    
+    private Cache cache() {
+        return cacheManager.getCache(CacheConfig.USERS);
+    }
+}
@@ -0,0 +1,97 @@
+-- Schema as previously created by spring.jpa.hibernate.ddl-auto=update.
+-- Databases that already have these tables are baselined at version 1 and skip this script.
+
+create table rubrics (
+    id varchar(255) not null,
+    name varchar(255) not null,
+    created_at timestamp(6),
+    primary key (id)
+);
+
+create table rubric_criteria (
+    id varchar(255) not null,
+    rubric_id varchar(255),
+    name varchar(255) not null,
+    max_score integer not null,
+    weight integer not null,
+    primary key (id)
+);
+
+create table evaluation_activities (
+    id varchar(255) not null,
+    name varchar(255) not null,
+    rubric_id varchar(255),
+    due_date timestamp(6) not null,
+    status varchar(255) not null check (status in ('DRAFT','ACTIVE','CLOSED','ARCHIVED')),
+    participants integer not null,
+    created_at timestamp(6),
+    primary key (id)
+);
+
+create table student_groups (
+    id varchar(255) not null,
+    name varchar(255) not null,
+    activity_id varchar(255),
+    created_at timestamp(6),
+    primary key (id)
+);
+
+create table users (
+    id varchar(255) not null,
+    email varchar(255) not null unique,
+    name varchar(255) not null,
+    role varchar(255) not null check (role in ('STUDENT','TEACHER','ADMIN')),
+    status varchar(255) not null check (status in ('ACTIVE','INACTIVE','SUSPENDED')),
+    group_id varchar(255),
+    avatar_url varchar(500),
+    created_at timestamp(6),
+    updated_at timestamp(6),
+    primary key (id)
+);
+
+create table evaluation_submissions (
+    id varchar(255) not null,
+    evaluator_id varchar(255) not null,
+    target_id varchar(255) not null,
+    activity_id varchar(255) not null,
+    comment text,
+    submitted_at timestamp(6),
+    primary key (id)
+);
+
+create table criterion_scores (
+    id varchar(255) not null,
+    submission_id varchar(255),
+    criterion_name varchar(255) not null,
+    score integer not null,
+    max_score integer not null,
+    primary key (id)
+);
+
+create table analysis_results (
+    id varchar(255) not null,
+    submission_id varchar(255) unique,
+    sentiment_score float(53) not null,
+    usefulness_score integer not null,
+    is_flagged boolean not null,
+    flag_reason varchar(500),
+    analyzed_at timestamp(6),
+    primary key (id)
+);
+
+create table comment_tags (
+    analysis_id varchar(255) not null,
+    tag varchar(255)
+);
+
+-- Foreign key names match the ones Hibernate generated, so baselined databases line up
+alter table if exists rubric_criteria add constraint FKjs1mcsyrjsecv9qu0em2ldafw foreign key (rubric_id) references rubrics;
+alter table if exists evaluation_activities add constraint FKeeih89v1lcml5084o6v8p0gpw foreign key (rubric_id) references rubrics;
+alter table if exists student_groups add constraint FK9jbkdpi8o1fwb37f014atch1m foreign key (activity_id) references evaluation_activities;
+alter table if exists users add constraint FKjqp24bhofov469du751a4y9rp foreign key (group_id) references student_groups;
+alter table if exists evaluation_submissions add constraint FKom124xtaicjvfp825m10vg4j1 foreign key (activity_id) references evaluation_activities;
+alter table if exists evaluation_submissions add constraint FK1k88mssb6huil9ax3r0p6biws foreign key (evaluator_id) references users;
+alter table if exists evaluation_submissions add constraint FK6g8onxsnucaslxw3qqrndi8pk foreign key (target_id) references users;
+alter table if exists criterion_scores add constraint FKjx19as0hdgbth4tbsg4rh7bv4 foreign key (submission_id) references evaluation_submissions;
+alter table if exists analysis_results add constraint FK7r2guf8e38oy96jyggx3oiasr foreign key (submission_id) references evaluation_submissions;
+alter table if exists comment_tags add constraint FK8ea65grr7b4eb72fsvycitgds foreign key (analysis_id) references analysis_results;
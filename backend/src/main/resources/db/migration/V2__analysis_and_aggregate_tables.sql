@@ -0,0 +1,47 @@
+-- Tables added after the baseline: the analysis outbox, the shared analysis cache and the
+-- per-student score aggregate. Baselined databases skip V1, so they are created here.
+-- IF NOT EXISTS covers databases where ddl-auto=update already created them.
+
+create table if not exists analysis_jobs (
+    id varchar(255) not null,
+    submission_id varchar(255) not null unique,
+    status varchar(255) not null check (status in ('PENDING','PROCESSING','FAILED')),
+    attempts integer not null,
+    available_at timestamp(6) not null,
+    locked_at timestamp(6),
+    last_error varchar(1000),
+    created_at timestamp(6),
+    primary key (id),
+    constraint FK5uwqtpigowi2ctrk7clou8c3o foreign key (submission_id) references evaluation_submissions
+);
+
+create table if not exists analysis_cache (
+    content_hash varchar(64) not null,
+    analyzer_version varchar(50) not null,
+    tags varchar(500) not null,
+    sentiment_score float(53) not null,
+    usefulness_score integer not null,
+    is_flagged boolean not null,
+    flag_reason varchar(500),
+    created_at timestamp(6),
+    primary key (content_hash)
+);
+
+-- Filled by StudentScoreAggregateService.rebuildIfEmpty on the first start after upgrading
+create table if not exists student_score_aggregate (
+    id varchar(255) not null,
+    student_id varchar(255) not null,
+    activity_id varchar(255) not null,
+    score_total integer not null,
+    max_total integer not null,
+    received_count integer not null,
+    given_count integer not null,
+    analyzed_count integer not null,
+    usefulness_sum integer not null,
+    flagged_count integer not null,
+    updated_at timestamp(6),
+    primary key (id),
+    unique (student_id, activity_id),
+    constraint FK7takardjb7bdrd55gvjeh0kp4 foreign key (student_id) references users,
+    constraint FKivippcs3sfmns33gml5tcjxev foreign key (activity_id) references evaluation_activities
+);
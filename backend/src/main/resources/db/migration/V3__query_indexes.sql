@@ -0,0 +1,35 @@
+-- Indexes behind the repository queries on the hot read and submit paths.
+-- IF NOT EXISTS covers databases where ddl-auto=update already created some of them.
+
+-- One evaluation per (evaluator, target, activity). Also serves lookups by evaluator.
+-- Fails if duplicates already exist; remove them before upgrading.
+alter table evaluation_submissions
+    add constraint uk_submission_evaluator_target_activity unique (evaluator_id, target_id, activity_id);
+
+-- Received feedback (dashboard, keyset-paginated history) newest first
+create index if not exists idx_submission_target_history
+    on evaluation_submissions (target_id, submitted_at desc, id desc);
+
+-- Per-activity reads: export, submission counts, completion
+create index if not exists idx_submission_activity_target
+    on evaluation_submissions (activity_id, target_id);
+
+create index if not exists idx_criterion_scores_submission
+    on criterion_scores (submission_id);
+
+create index if not exists idx_comment_tags_analysis
+    on comment_tags (analysis_id);
+
+-- Flagged analyses are a small slice of the table; index only those
+create index if not exists idx_analysis_results_flagged
+    on analysis_results (submission_id) where is_flagged;
+
+-- Outbox polling: due pending jobs in creation order
+create index if not exists idx_analysis_jobs_runnable
+    on analysis_jobs (status, available_at, created_at);
+
+create index if not exists idx_users_group
+    on users (group_id);
+
+create index if not exists idx_student_groups_activity
+    on student_groups (activity_id);
@@ -0,0 +1,14 @@
+-- Admin user listing: filter by role/status, search name and email by substring.
+-- pg_trgm is a trusted extension (PostgreSQL 13+), so the database owner can create it.
+create extension if not exists pg_trgm;
+
+-- Matches LOWER(name) / LOWER(email) LIKE '%term%' as rendered by UserRepository.searchUsers
+create index if not exists idx_users_name_trgm
+    on users using gin (lower(name) gin_trgm_ops);
+
+create index if not exists idx_users_email_trgm
+    on users using gin (lower(email) gin_trgm_ops);
+
+-- Role/status filtered pages in name order
+create index if not exists idx_users_role_status_name
+    on users (role, status, name);
@@ -0,0 +1,130 @@
+package edu.citu.apeer;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.citu.apeer.entity.User;
+import edu.citu.apeer.entity.UserRole;
+import edu.citu.apeer.entity.UserStatus;
+import edu.citu.apeer.security.JwtUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The admin user search, a substring match on name or email with LIKE wildcards taken literally
+ */
+class AdminUserSearchTest extends IntegrationTest {
+    
+    @Autowired
+    private MockMvc mockMvc;
+    
+    @Autowired
+    private JwtUtil jwtUtil;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    private String admin;
+    // Appended to every name created here, so results from other tests can be told apart
+    private String tag;
+    
+    @BeforeEach
+    void signInAdmin() {
+        User user = createUser("Search Admin", UserRole.ADMIN);
+        admin = "Bearer " + jwtUtil.generateToken(user.getEmail(), "ADMIN");
+        tag = UUID.randomUUID().toString().substring(0, 8);
+    }
+    
+    @Test
+    void percentIsMatchedLiterally() throws Exception {
+        createStudent("Done 100% " + tag);
+        createStudent("Done 1000 " + tag);
+        
+        assertEquals(Set.of("Done 100% " + tag), search("100%"));
+        assertEquals(Set.of("Done 100% " + tag, "Done 1000 " + tag), search("100"));
+    }
+    
+    @Test
+    void underscoreIsMatchedLiterally() throws Exception {
+        createStudent("snake_case " + tag);
+        createStudent("snakeXcase " + tag);
+        
+        assertEquals(Set.of("snake_case " + tag), search("e_c"));
+    }
+    
+    @Test
+    void backslashIsMatchedLiterally() throws Exception {
+        createStudent("back\\slash " + tag);
+        createStudent("backslash " + tag);
+        createStudent("back\\%slash " + tag);
+        
+        assertEquals(Set.of("back\\%slash " + tag, "back\\slash " + tag), search("k\\"));
+        assertEquals(Set.of("back\\slash " + tag), search("k\\s"));
+        assertEquals(Set.of("back\\%slash " + tag), search("\\%"));
+    }
+    
+    @Test
+    void searchIgnoresCaseAndSurroundingSpacesAndMatchesEmails() throws Exception {
+        User user = createStudent("Mixed Case " + tag);
+        
+        assertEquals(Set.of("Mixed Case " + tag), search("  mIXED cASE " + tag.toUpperCase() + " "));
+        String localPart = user.getEmail().substring(0, user.getEmail().indexOf('@'));
+        assertEquals(Set.of("Mixed Case " + tag), search(localPart));
+    }
+    
+    @Test
+    void searchCombinesWithRoleAndStatusFilters() throws Exception {
+        createStudent("Filtered " + tag);
+        User inactive = createStudent("Filtered Inactive " + tag);
+        inactive.setStatus(UserStatus.INACTIVE);
+        userRepository.save(inactive);
+        createUser("Filtered Teacher " + tag, UserRole.TEACHER);
+        
+        assertEquals(Set.of("Filtered " + tag, "Filtered Inactive " + tag),
+                names(page("q", tag, "role", "student")));
+        assertEquals(Set.of("Filtered " + tag), names(page("q", tag, "role", "STUDENT", "status", "active")));
+        
+        mockMvc.perform(get("/api/admin/users/page").param("role", "janitor").header(HttpHeaders.AUTHORIZATION, admin))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Unknown role: janitor"));
+    }
+    
+    /** Names of the users created by this test that the search {@code q} returns */
+    private Set<String> search(String q) throws Exception {
+        return names(page("q", q));
+    }
+    
+    private JsonNode page(String... params) throws Exception {
+        MockHttpServletRequestBuilder request = get("/api/admin/users/page").param("size", "200").header(HttpHeaders.AUTHORIZATION, admin);
+        for (int i = 0; i < params.length; i += 2) {
+            request.param(params[i], params[i + 1]);
+        }
+        String body = mockMvc.perform(request)
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body);
+    }
+    
+    private Set<String> names(JsonNode page) {
+        Set<String> names = new HashSet<>();
+        for (JsonNode user : page.get("content")) {
+            String name = user.get("name").asText();
+            if (name.endsWith(tag)) {
+                names.add(name);
+            }
+        }
+        return names;
+    }
+}
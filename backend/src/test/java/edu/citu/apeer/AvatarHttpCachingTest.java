@@ -0,0 +1,127 @@
+package edu.citu.apeer;
+
+import edu.citu.apeer.service.FileStorageService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+class AvatarHttpCachingTest extends IntegrationTest {
+    
+    @Autowired
+    private MockMvc mockMvc;
+    
+    @Autowired
+    private FileStorageService fileStorageService;
+    
+    @Test
+    void servesStoredAvatarsAsImmutableWithValidators() throws Exception {
+        byte[] image = png(120);
+        String url = fileStorageService.storeFile(upload(image), "user");
+        String name = url.substring(url.lastIndexOf('/') + 1);
+        
+        MvcResult result = mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=31536000, public, immutable"))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + name + "\""))
+                .andExpect(header().exists(HttpHeaders.LAST_MODIFIED))
+                .andExpect(header().string(HttpHeaders.CONTENT_TYPE, "image/png"))
+                .andReturn();
+        assertArrayEquals(image, result.getResponse().getContentAsByteArray());
+    }
+    
+    @Test
+    void answersConditionalRequestsWithNotModified() throws Exception {
+        String url = fileStorageService.storeFile(upload(png(80)), "user");
+        MvcResult first = mockMvc.perform(get(url)).andExpect(status().isOk()).andReturn();
+        String etag = first.getResponse().getHeader(HttpHeaders.ETAG);
+        String lastModified = first.getResponse().getHeader(HttpHeaders.LAST_MODIFIED);
+        
+        MvcResult byEtag = mockMvc.perform(get(url).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andReturn();
+        assertEquals(0, byEtag.getResponse().getContentAsByteArray().length);
+        
+        mockMvc.perform(get(url).header(HttpHeaders.IF_MODIFIED_SINCE, lastModified))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(get(url).header(HttpHeaders.IF_NONE_MATCH, "\"something-else.png\""))
+                .andExpect(status().isOk());
+    }
+    
+    @Test
+    void servesRangesOfSmallAndLargeFiles() throws Exception {
+        // Under the in-memory limit, and a noisy one large enough to be streamed from disk
+        for (byte[] image : new byte[][]{png(40), png(400)}) {
+            String url = fileStorageService.storeFile(upload(image), "user");
+            MvcResult result = mockMvc.perform(get(url).header(HttpHeaders.RANGE, "bytes=100-199"))
+                    .andExpect(status().isPartialContent())
+                    .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 100-199/" + image.length))
+                    .andReturn();
+            assertArrayEquals(Arrays.copyOfRange(image, 100, 200), result.getResponse().getContentAsByteArray());
+        }
+    }
+    
+    @Test
+    void identicalUploadsShareOneName() throws Exception {
+        byte[] image = png(64);
+        String first = fileStorageService.storeFile(upload(image), "first");
+        String second = fileStorageService.storeFile(
+                new MockMultipartFile("avatar", "OTHER.PNG", "image/png", image), "second");
+        assertEquals(first, second);
+    }
+    
+    @Test
+    void filesChainSkipsAuthenticationAndNoStoreHeaders() throws Exception {
+        String url = fileStorageService.storeFile(upload(png(48)), "user");
+        
+        // A bad token is not even parsed on /api/files; elsewhere the default no-store headers apply
+        mockMvc.perform(get(url).header(HttpHeaders.AUTHORIZATION, "Bearer not-a-token"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, containsString("immutable")))
+                .andExpect(header().doesNotExist(HttpHeaders.PRAGMA))
+                .andExpect(header().doesNotExist(HttpHeaders.EXPIRES));
+        mockMvc.perform(get("/api/health"))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, containsString("no-store")));
+    }
+    
+    @Test
+    void missingAndInvalidNames() throws Exception {
+        mockMvc.perform(get("/api/files/avatars/" + "0".repeat(64) + ".png"))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(get("/api/files/avatars/..secret.png"))
+                .andExpect(status().isForbidden());
+    }
+    
+    private static MockMultipartFile upload(byte[] image) {
+        return new MockMultipartFile("avatar", "avatar.png", "image/png", image);
+    }
+    
+    /** A square PNG of random pixels, so every call stores a new file */
+    private static byte[] png(int side) throws IOException {
+        BufferedImage image = new BufferedImage(side, side, BufferedImage.TYPE_INT_RGB);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int y = 0; y < side; y++) {
+            for (int x = 0; x < side; x++) {
+                image.setRGB(x, y, random.nextInt());
+            }
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", bytes);
+        return bytes.toByteArray();
+    }
+}
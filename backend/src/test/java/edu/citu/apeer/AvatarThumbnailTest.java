@@ -0,0 +1,126 @@
+package edu.citu.apeer;
+
+import edu.citu.apeer.service.FileStorageService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.mock.web.MockMultipartFile;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AvatarThumbnailTest extends IntegrationTest {
+    
+    @Autowired
+    private FileStorageService fileStorageService;
+    
+    @Test
+    void requestedSizesAreServedByTheSmallestThumbnailAtLeastThatLarge() throws Exception {
+        String name = upload(image(1200, 800, false), "jpg");
+        awaitThumbnails(name);
+        
+        Map<Integer, Integer> expected = Map.of(20, 32, 32, 32, 50, 64, 64, 64, 100, 128, 256, 256, 300, 256);
+        for (Map.Entry<Integer, Integer> request : expected.entrySet()) {
+            int side = request.getValue();
+            String thumbnail = fileStorageService.resolveAvatar(name, request.getKey());
+            assertEquals(base(name) + "_" + side + ".jpg", thumbnail, "size " + request.getKey());
+            BufferedImage read = read(thumbnail);
+            assertEquals(side, read.getWidth());
+            assertEquals(side, read.getHeight());
+        }
+        assertEquals(name, fileStorageService.resolveAvatar(name, null), "no size serves the original");
+    }
+    
+    @Test
+    void transparentImagesGetPngThumbnails() throws Exception {
+        String name = upload(image(300, 300, true), "png");
+        awaitThumbnails(name);
+        
+        String thumbnail = fileStorageService.resolveAvatar(name, 64);
+        assertEquals(base(name) + "_64.png", thumbnail);
+        assertTrue(read(thumbnail).getColorModel().hasAlpha());
+    }
+    
+    @Test
+    void smallOriginalsAreNotUpscaled() throws Exception {
+        String name = upload(image(40, 60, false), "jpg");
+        awaitThumbnails(name);
+        
+        BufferedImage largest = read(fileStorageService.resolveAvatar(name, 256));
+        assertEquals(40, largest.getWidth(), "cropped square, but never scaled up");
+        assertEquals(40, largest.getHeight());
+        assertEquals(32, read(fileStorageService.resolveAvatar(name, 32)).getWidth());
+    }
+    
+    @Test
+    void deletingAnAvatarDeletesItsThumbnails() throws Exception {
+        String name = upload(image(200, 200, false), "jpg");
+        awaitThumbnails(name);
+        
+        fileStorageService.deleteFile("/api/files/avatars/" + name);
+        
+        assertNull(fileStorageService.statAvatar(name));
+        assertNull(fileStorageService.statAvatar(base(name) + "_64.jpg"));
+        assertEquals(name, fileStorageService.resolveAvatar(name, 64));
+    }
+    
+    @Test
+    void rejectsImagesTooLargeToDecodeAndNamesOutsideTheStore() throws Exception {
+        ByteArrayOutputStream huge = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(6000, 6000, BufferedImage.TYPE_BYTE_BINARY), "png", huge);
+        RuntimeException error = assertThrows(RuntimeException.class, () -> fileStorageService.storeFile(
+                new MockMultipartFile("avatar", "huge.png", "image/png", huge.toByteArray()), "user"));
+        assertEquals("Image dimensions are too large.", error.getMessage());
+        
+        assertNull(fileStorageService.resolveAvatar("../../etc/passwd", 64));
+    }
+    
+    /** A picture with random content, so the content-addressed name is new on every run */
+    private static BufferedImage image(int width, int height, boolean alpha) {
+        BufferedImage image = new BufferedImage(width, height,
+                alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int y = 0; y < height; y += 10) {
+            for (int x = 0; x < width; x += 10) {
+                image.setRGB(x, y, random.nextInt() | (alpha ? 0 : 0xff000000));
+            }
+        }
+        return image;
+    }
+    
+    private String upload(BufferedImage image, String extension) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ImageIO.write(image, extension.equals("jpg") ? "jpeg" : extension, bytes);
+        String url = fileStorageService.storeFile(new MockMultipartFile(
+                "avatar", "avatar." + extension, "image/" + extension, bytes.toByteArray()), "user");
+        return url.substring(url.lastIndexOf('/') + 1);
+    }
+    
+    /**
+     * Thumbnails are written largest first, so the smallest one appearing means all are there.
+     * A lookup racing the generator may remember the miss for up to 10s, hence the long deadline.
+     */
+    private void awaitThumbnails(String name) throws Exception {
+        long deadline = System.currentTimeMillis() + 20_000;
+        while (fileStorageService.resolveAvatar(name, 1).equals(name)) {
+            assertTrue(System.currentTimeMillis() < deadline, "thumbnails were not generated in time");
+            Thread.sleep(50);
+        }
+    }
+    
+    private BufferedImage read(String name) throws IOException {
+        try (InputStream input = fileStorageService.openAvatar(name)) {
+            return ImageIO.read(input);
+        }
+    }
+    
+    private static String base(String name) {
+        return name.substring(0, name.lastIndexOf('.'));
+    }
+}
@@ -0,0 +1,105 @@
+package edu.citu.apeer;
+
+import edu.citu.apeer.dto.BulkEvaluationSubmissionRequest;
+import edu.citu.apeer.dto.CriterionScoreRequest;
+import edu.citu.apeer.dto.EvaluationSubmissionRequest;
+import edu.citu.apeer.dto.EvaluationSubmissionResponse;
+import edu.citu.apeer.entity.EvaluationActivity;
+import edu.citu.apeer.entity.User;
+import edu.citu.apeer.repository.EvaluationSubmissionRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EvaluationBulkSubmitTest extends IntegrationTest {
+    
+    @Autowired
+    private EvaluationSubmissionRepository submissionRepository;
+    
+    @Test
+    void submitsOneEvaluationPerTarget() throws Exception {
+        EvaluationActivity activity = createActivity();
+        User evaluator = createStudent("Bulk Evaluator");
+        List<User> targets = List.of(createStudent("Peer A"), createStudent("Peer B"), createStudent("Peer C"));
+        
+        List<EvaluationSubmissionResponse> responses = evaluationService.submitEvaluations(
+                evaluator.getEmail(), bulk(activity, targets));
+        
+        assertEquals(3, responses.size());
+        assertEquals(3, submissionRepository.countByEvaluatorId(evaluator.getId()));
+        assertEquals(3, analysisJobRepository.count());
+        awaitAnalyses();
+    }
+    
+    @Test
+    void rejectsMoreThanFiftyEvaluations() {
+        EvaluationActivity activity = createActivity();
+        User evaluator = createStudent("Bulk Evaluator");
+        List<User> targets = new ArrayList<>();
+        for (int i = 0; i < 51; i++) {
+            targets.add(createStudent("Peer " + i));
+        }
+        
+        RuntimeException error = assertThrows(RuntimeException.class,
+                () -> evaluationService.submitEvaluations(evaluator.getEmail(), bulk(activity, targets)));
+        assertTrue(error.getMessage().contains("At most 50"), error.getMessage());
+        assertEquals(0, submissionRepository.countByEvaluatorId(evaluator.getId()));
+    }
+    
+    @Test
+    void rejectsTheSameTargetTwice() {
+        EvaluationActivity activity = createActivity();
+        User evaluator = createStudent("Bulk Evaluator");
+        User peer = createStudent("Peer");
+        
+        RuntimeException error = assertThrows(RuntimeException.class,
+                () -> evaluationService.submitEvaluations(evaluator.getEmail(), bulk(activity, List.of(peer, peer))));
+        assertTrue(error.getMessage().contains("more than once"), error.getMessage());
+        assertEquals(0, submissionRepository.countByEvaluatorId(evaluator.getId()));
+    }
+    
+    @Test
+    void rejectsTheWholeSetWhenOneTargetWasAlreadyEvaluated() throws Exception {
+        EvaluationActivity activity = createActivity();
+        User evaluator = createStudent("Bulk Evaluator");
+        User evaluated = createStudent("Evaluated Peer");
+        User fresh = createStudent("Fresh Peer");
+        evaluate(evaluator, evaluated, activity, "Solid work on the backend tasks");
+        
+        RuntimeException error = assertThrows(RuntimeException.class,
+                () -> evaluationService.submitEvaluations(evaluator.getEmail(), bulk(activity, List.of(fresh, evaluated))));
+        assertTrue(error.getMessage().contains("Evaluated Peer"), error.getMessage());
+        assertEquals(1, submissionRepository.countByEvaluatorId(evaluator.getId()), "nothing from the set is stored");
+        awaitAnalyses();
+    }
+    
+    @Test
+    void includesASelfEvaluationLikeTheSingleSubmit() throws Exception {
+        EvaluationActivity activity = createActivity();
+        User evaluator = createStudent("Bulk Evaluator");
+        
+        List<EvaluationSubmissionResponse> responses = evaluationService.submitEvaluations(evaluator.getEmail(),
+                bulk(activity, List.of(createStudent("Peer"), evaluator)));
+        
+        assertEquals(2, responses.size());
+        assertEquals(2, submissionRepository.countByEvaluatorId(evaluator.getId()));
+        
+        RuntimeException error = assertThrows(RuntimeException.class,
+                () -> evaluationService.submitEvaluations(evaluator.getEmail(), bulk(activity, List.of(evaluator))));
+        assertTrue(error.getMessage().contains("Bulk Evaluator"), error.getMessage());
+        awaitAnalyses();
+    }
+    
+    private static BulkEvaluationSubmissionRequest bulk(EvaluationActivity activity, List<User> targets) {
+        List<EvaluationSubmissionRequest> evaluations = new ArrayList<>();
+        for (User target : targets) {
+            evaluations.add(new EvaluationSubmissionRequest(null, target.getId(), "Helpful and on time",
+                    List.of(new CriterionScoreRequest("Communication", 4), new CriterionScoreRequest("Contribution", 3))));
+        }
+        return new BulkEvaluationSubmissionRequest(activity.getId(), evaluations);
+    }
+}
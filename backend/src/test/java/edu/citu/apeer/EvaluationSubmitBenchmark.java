@@ -0,0 +1,100 @@
+package edu.citu.apeer;
+
+import edu.citu.apeer.entity.EvaluationActivity;
+import edu.citu.apeer.entity.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * A deadline burst: every student of a class submits all of their peer evaluations at once.
+ * Reports throughput, submit latency percentiles and statements per submit. Run with
+ * {@code mvn test -Pbench -Dtest=EvaluationSubmitBenchmark}.
+ */
+class EvaluationSubmitBenchmark extends IntegrationTest {
+    
+    private static final int STUDENTS = 40;
+    private static final int TARGETS_PER_STUDENT = 5;
+    private static final int CONCURRENT_REQUESTS = 16;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Test
+    void deadlineBurst() throws Exception {
+        EvaluationActivity warmup = createActivity();
+        List<User> warmupClass = createClass();
+        burst(warmupClass, warmup, new ArrayList<>());
+        
+        EvaluationActivity activity = createActivity();
+        List<User> students = createClass();
+        List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+        long[] elapsed = new long[1];
+        long statements = countStatements(() -> elapsed[0] = burst(students, activity, latencies));
+        
+        int submits = STUDENTS * TARGETS_PER_STUDENT;
+        Integer stored = jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM evaluation_submissions WHERE activity_id = ?", Integer.class, activity.getId());
+        assertEquals(submits, stored);
+        
+        List<Long> sorted = new ArrayList<>(latencies);
+        Collections.sort(sorted);
+        System.out.printf("%d submits from %d concurrent requests in %d ms (%.0f submits/s)%n",
+                submits, CONCURRENT_REQUESTS, TimeUnit.NANOSECONDS.toMillis(elapsed[0]),
+                submits / (elapsed[0] / 1e9));
+        System.out.printf("latency p50 %.1f ms, p95 %.1f ms, max %.1f ms; %.1f statements per submit%n",
+                percentile(sorted, 50), percentile(sorted, 95), percentile(sorted, 100),
+                (double) statements / submits);
+        awaitAnalyses();
+    }
+    
+    private List<User> createClass() {
+        List<User> students = new ArrayList<>();
+        for (int i = 0; i < STUDENTS; i++) {
+            students.add(createStudent("Burst Student " + i));
+        }
+        return students;
+    }
+    
+    private long burst(List<User> students, EvaluationActivity activity, List<Long> latencies) {
+        ExecutorService requests = Executors.newFixedThreadPool(CONCURRENT_REQUESTS);
+        try {
+            long start = System.nanoTime();
+            List<Future<?>> submits = new ArrayList<>();
+            for (int i = 0; i < students.size(); i++) {
+                User evaluator = students.get(i);
+                for (int t = 1; t <= TARGETS_PER_STUDENT; t++) {
+                    User target = students.get((i + t) % students.size());
+                    submits.add(requests.submit(() -> {
+                        long begin = System.nanoTime();
+                        evaluate(evaluator, target, activity, "Reliable teammate, should share drafts earlier");
+                        latencies.add(System.nanoTime() - begin);
+                    }));
+                }
+            }
+            for (Future<?> submit : submits) {
+                submit.get();
+            }
+            return System.nanoTime() - start;
+        } catch (Exception e) {
+            throw new IllegalStateException("Burst failed", e);
+        } finally {
+            requests.shutdownNow();
+        }
+    }
+    
+    private static double percentile(List<Long> sorted, int percentile) {
+        int index = Math.max(0, (int) Math.ceil(percentile / 100.0 * sorted.size()) - 1);
+        return sorted.get(index) / 1e6;
+    }
+}
@@ -0,0 +1,140 @@
+package edu.citu.apeer;
+
+import edu.citu.apeer.dto.FeedbackHistoryDTO;
+import edu.citu.apeer.dto.FeedbackHistoryPage;
+import edu.citu.apeer.entity.EvaluationActivity;
+import edu.citu.apeer.entity.User;
+import edu.citu.apeer.security.JwtUtil;
+import edu.citu.apeer.service.StudentService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Keyset paging of a student's feedback history, ordered by (submittedAt, id) newest first
+ */
+class FeedbackHistoryPagingTest extends IntegrationTest {
+    
+    @Autowired
+    private StudentService studentService;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private MockMvc mockMvc;
+    
+    @Autowired
+    private JwtUtil jwtUtil;
+    
+    @Test
+    void walksEverySubmissionOnceAcrossEqualTimestamps() throws Exception {
+        User student = createStudent("Paged Student");
+        Set<String> submitted = receiveEvaluations(student, 11);
+        // Runs of four share a timestamp, so pages of three end in the middle of a run
+        shareTimestamps(student, 4);
+        
+        List<FeedbackHistoryDTO> walked = new ArrayList<>();
+        FeedbackHistoryPage page = studentService.getFeedbackHistory(student.getEmail(), null, 3);
+        int pages = 1;
+        walked.addAll(page.getItems());
+        while (page.getNextCursor() != null) {
+            page = studentService.getFeedbackHistory(student.getEmail(), page.getNextCursor(), 3);
+            assertFalse(page.getItems().isEmpty(), "a cursor is only handed out when another page follows");
+            walked.addAll(page.getItems());
+            pages++;
+        }
+        
+        assertEquals(4, pages);
+        assertEquals(2, page.getItems().size());
+        assertEquals(submitted, ids(walked), "every submission, none skipped");
+        assertEquals(submitted.size(), walked.size(), "none repeated");
+        for (int i = 1; i < walked.size(); i++) {
+            FeedbackHistoryDTO newer = walked.get(i - 1);
+            FeedbackHistoryDTO older = walked.get(i);
+            int byTime = newer.getSubmittedAt().compareTo(older.getSubmittedAt());
+            assertTrue(byTime > 0 || (byTime == 0 && newer.getId().compareTo(older.getId()) > 0),
+                    "newest first, then by id");
+        }
+    }
+    
+    @Test
+    void lastFullPageHasNoCursor() throws Exception {
+        User student = createStudent("Exact Pages Student");
+        Set<String> submitted = receiveEvaluations(student, 4);
+        shareTimestamps(student, 4);
+        
+        FeedbackHistoryPage first = studentService.getFeedbackHistory(student.getEmail(), null, 2);
+        assertNotNull(first.getNextCursor());
+        FeedbackHistoryPage second = studentService.getFeedbackHistory(student.getEmail(), first.getNextCursor(), 2);
+        assertNull(second.getNextCursor(), "nothing follows the second page");
+        
+        List<FeedbackHistoryDTO> walked = new ArrayList<>(first.getItems());
+        walked.addAll(second.getItems());
+        assertEquals(submitted, ids(walked));
+        
+        FeedbackHistoryPage all = studentService.getFeedbackHistory(student.getEmail(), null, 10);
+        assertEquals(4, all.getItems().size());
+        assertNull(all.getNextCursor());
+    }
+    
+    @Test
+    void rejectsMalformedCursors() throws Exception {
+        User student = createStudent("Cursor Student");
+        String authorization = "Bearer " + jwtUtil.generateToken(student.getEmail(), "STUDENT");
+        
+        for (String cursor : List.of("not a cursor!", encode("yesterday|some-id"), encode("2026-01-01T10:00"))) {
+            mockMvc.perform(get("/api/student/feedback-history").param("cursor", cursor)
+                            .header(HttpHeaders.AUTHORIZATION, authorization))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(jsonPath("$.message").value("Invalid history cursor"));
+        }
+    }
+    
+    private Set<String> receiveEvaluations(User student, int count) throws Exception {
+        EvaluationActivity activity = createActivity();
+        for (int i = 0; i < count; i++) {
+            evaluate(createStudent("Evaluator " + i), student, activity, "Steady work on the sprint tasks " + i);
+        }
+        awaitAnalyses();
+        return new HashSet<>(jdbcTemplate.queryForList(
+                "SELECT id FROM evaluation_submissions WHERE target_id = ?", String.class, student.getId()));
+    }
+    
+    /** Give the student's submissions, in id order, one timestamp per run of {@code runLength} */
+    private void shareTimestamps(User student, int runLength) {
+        List<String> ids = jdbcTemplate.queryForList(
+                "SELECT id FROM evaluation_submissions WHERE target_id = ? ORDER BY id", String.class, student.getId());
+        LocalDateTime base = LocalDateTime.of(2026, 1, 1, 10, 0);
+        for (int i = 0; i < ids.size(); i++) {
+            jdbcTemplate.update("UPDATE evaluation_submissions SET submitted_at = ? WHERE id = ?",
+                    Timestamp.valueOf(base.minusMinutes(i / runLength)), ids.get(i));
+        }
+    }
+    
+    private static Set<String> ids(List<FeedbackHistoryDTO> items) {
+        Set<String> ids = new HashSet<>();
+        items.forEach(item -> ids.add(item.getId()));
+        return ids;
+    }
+    
+    private static String encode(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
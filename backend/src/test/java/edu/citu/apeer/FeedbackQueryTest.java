@@ -0,0 +1,114 @@
+package edu.citu.apeer;
+
+import edu.citu.apeer.dto.ClassAnalyticsDTO;
+import edu.citu.apeer.dto.FeedbackHistoryPage;
+import edu.citu.apeer.entity.EvaluationActivity;
+import edu.citu.apeer.entity.User;
+import edu.citu.apeer.service.ActivityExportService;
+import edu.citu.apeer.service.StudentService;
+import edu.citu.apeer.service.TeacherService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Statement counts of the reads that used to load associations row by row. Each is measured
+ * before and after more rows arrive and must not grow with them.
+ */
+class FeedbackQueryTest extends IntegrationTest {
+    
+    @Autowired
+    private StudentService studentService;
+    
+    @Autowired
+    private TeacherService teacherService;
+    
+    @Autowired
+    private ActivityExportService exportService;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Test
+    void feedbackHistoryStatementsDoNotGrowWithSubmissions() throws Exception {
+        EvaluationActivity activity = createActivity();
+        User student = createStudent("History Student");
+        
+        receiveEvaluations(student, activity, 2);
+        long few = historyStatements(student, 2);
+        
+        receiveEvaluations(student, activity, 10);
+        long many = historyStatements(student, 12);
+        
+        assertEquals(few, many, "history statements should not depend on the number of submissions");
+        // The fetch-joined page, then batched loads of the activities' rubrics, the criterion scores and the tags
+        assertTrue(many <= 4, "history took " + many + " statements");
+    }
+    
+    @Test
+    void classAnalyticsStatementsDoNotGrowWithFlaggedAnalyses() throws Exception {
+        EvaluationActivity activity = createActivity();
+        User student = createStudent("Flagged Student");
+        
+        receiveEvaluations(student, activity, 2);
+        flagAll(activity);
+        long few = countStatements(teacherService::getClassAnalytics);
+        
+        receiveEvaluations(student, activity, 10);
+        flagAll(activity);
+        long many = countStatements(teacherService::getClassAnalytics);
+        
+        assertEquals(few, many, "analytics statements should not depend on the number of flagged analyses");
+        ClassAnalyticsDTO analytics = teacherService.getClassAnalytics();
+        assertTrue(analytics.getFlaggedStudents().stream().anyMatch(flagged -> flagged.getName().startsWith("Evaluator")));
+    }
+    
+    @Test
+    void activityExportStatementsDoNotGrowWithSubmissions() throws Exception {
+        EvaluationActivity activity = createActivity();
+        User student = createStudent("Export Student");
+        
+        receiveEvaluations(student, activity, 2);
+        long few = countStatements(() -> export(activity));
+        
+        receiveEvaluations(student, activity, 10);
+        long many = countStatements(() -> export(activity));
+        
+        assertEquals(few, many, "export statements should not depend on the number of submissions");
+    }
+    
+    private void receiveEvaluations(User student, EvaluationActivity activity, int count) throws Exception {
+        for (int i = 0; i < count; i++) {
+            User evaluator = createStudent("Evaluator " + i);
+            evaluate(evaluator, student, activity, "Clear slides and helpful examples, thanks for the review " + i);
+        }
+        awaitAnalyses();
+    }
+    
+    private long historyStatements(User student, int expectedItems) {
+        // The first call loads the user into the lookup cache
+        FeedbackHistoryPage page = studentService.getFeedbackHistory(student.getEmail(), null, 50);
+        assertEquals(expectedItems, page.getItems().size());
+        return countStatements(() -> studentService.getFeedbackHistory(student.getEmail(), null, 50));
+    }
+    
+    private void flagAll(EvaluationActivity activity) {
+        jdbcTemplate.update("UPDATE analysis_results SET is_flagged = true, flag_reason = 'Test flag' " +
+                "WHERE submission_id IN (SELECT id FROM evaluation_submissions WHERE activity_id = ?)",
+                activity.getId());
+    }
+    
+    private void export(EvaluationActivity activity) {
+        try {
+            exportService.writeActivityCsv(activity.getId(), new ByteArrayOutputStream());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package edu.citu.apeer;
+
+import edu.citu.apeer.dto.CriterionScoreRequest;
+import edu.citu.apeer.dto.EvaluationSubmissionRequest;
+import edu.citu.apeer.entity.*;
+import edu.citu.apeer.repository.AnalysisJobRepository;
+import edu.citu.apeer.repository.EvaluationActivityRepository;
+import edu.citu.apeer.repository.RubricRepository;
+import edu.citu.apeer.repository.UserRepository;
+import edu.citu.apeer.service.AnalysisJobWorker;
+import edu.citu.apeer.service.EvaluationService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Base for tests against the full application and a real PostgreSQL, migrated by Flyway as in
+ * production. Subclasses share one context and database, so each test creates its own uniquely
+ * named users and activities instead of relying on a clean schema.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+public abstract class IntegrationTest {
+    
+    @Autowired
+    protected UserRepository userRepository;
+    
+    @Autowired
+    protected RubricRepository rubricRepository;
+    
+    @Autowired
+    protected EvaluationActivityRepository activityRepository;
+    
+    @Autowired
+    protected EvaluationService evaluationService;
+    
+    @Autowired
+    protected AnalysisJobRepository analysisJobRepository;
+    
+    @Autowired
+    private AnalysisJobWorker analysisJobWorker;
+    
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        // Same driver option as production, so inserts are batched the same way
+        registry.add("spring.datasource.url", () -> TestDatabase.jdbcUrl() + "&reWriteBatchedInserts=true");
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "postgres");
+    }
+    
+    /**
+     * Statements Hibernate prepared while {@code action} ran
+     */
+    protected long countStatements(Runnable action) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        action.run();
+        return statistics.getPrepareStatementCount();
+    }
+    
+    protected static String unique(String prefix) {
+        return prefix + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+    
+    protected User createUser(String name, UserRole role) {
+        return userRepository.save(User.builder()
+                .email(unique(name.toLowerCase().replace(' ', '.')) + "@test.edu")
+                .name(name)
+                .role(role)
+                .status(UserStatus.ACTIVE)
+                .build());
+    }
+    
+    protected User createStudent(String name) {
+        return createUser(name, UserRole.STUDENT);
+    }
+    
+    protected EvaluationActivity createActivity() {
+        Rubric rubric = rubricRepository.findAll().get(0);
+        return activityRepository.save(EvaluationActivity.builder()
+                .name(unique("Activity"))
+                .rubric(rubric)
+                .dueDate(LocalDateTime.now().plusDays(7))
+                .status(ActivityStatus.ACTIVE)
+                .participants(0)
+                .build());
+    }
+    
+    /**
+     * Submit an evaluation of {@code target} by {@code evaluator} with two criterion scores
+     */
+    protected void evaluate(User evaluator, User target, EvaluationActivity activity, String comment) {
+        evaluationService.submitEvaluation(evaluator.getEmail(), new EvaluationSubmissionRequest(
+                activity.getId(), target.getId(), comment,
+                List.of(new CriterionScoreRequest("Communication", 4), new CriterionScoreRequest("Contribution", 3))));
+    }
+    
+    /**
+     * Run the analysis worker until every queued comment is processed. Its schedule is disabled
+     * in tests, so no background query lands in a statement count.
+     */
+    protected void awaitAnalyses() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 30_000;
+        while (analysisJobRepository.count() > 0) {
+            analysisJobWorker.poll();
+            assertTrue(System.currentTimeMillis() < deadline, "analysis jobs were not processed in time");
+            Thread.sleep(50);
+        }
+    }
+}
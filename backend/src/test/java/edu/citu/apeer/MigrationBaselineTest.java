@@ -0,0 +1,81 @@
+package edu.citu.apeer;
+
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.CoreMigrationType;
+import org.flywaydb.core.api.MigrationInfo;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Upgrading a database that ddl-auto=update created before migrations existed: Flyway baselines
+ * it at version 1, skips V1 and must create everything added since from the later scripts.
+ */
+class MigrationBaselineTest {
+    
+    // What ddl-auto=update had created when migrations were introduced
+    private static final Set<String> BASELINE_TABLES = Set.of(
+            "rubrics", "rubric_criteria", "evaluation_activities", "student_groups", "users",
+            "evaluation_submissions", "criterion_scores", "analysis_results", "comment_tags");
+    
+    @Test
+    void baselinedDatabaseGetsTheTablesAddedAfterTheBaseline() throws Exception {
+        String database = "legacy_" + UUID.randomUUID().toString().replace("-", "").substring(0, 8);
+        try (Connection connection = DriverManager.getConnection(TestDatabase.jdbcUrl(), "postgres", "postgres");
+             Statement statement = connection.createStatement()) {
+            statement.execute("CREATE DATABASE " + database);
+        }
+        String url = TestDatabase.jdbcUrl(database);
+        
+        // The schema an existing deployment has: exactly what V1 creates, without Flyway's history
+        String baseline = new ClassPathResource("db/migration/V1__baseline_schema.sql")
+                .getContentAsString(StandardCharsets.UTF_8);
+        try (Connection connection = DriverManager.getConnection(url, "postgres", "postgres");
+             Statement statement = connection.createStatement()) {
+            statement.execute(baseline);
+            assertEquals(BASELINE_TABLES, tables(statement), "V1 must stay the schema deployments had before Flyway");
+        }
+        
+        Flyway flyway = Flyway.configure()
+                .dataSource(url, "postgres", "postgres")
+                .baselineOnMigrate(true)
+                .baselineVersion("1")
+                .load();
+        flyway.migrate();
+        
+        MigrationInfo[] applied = flyway.info().applied();
+        assertEquals(CoreMigrationType.BASELINE, applied[0].getType(), "V1 is recorded as the baseline");
+        assertEquals(0, flyway.info().pending().length, "every later migration ran");
+        try (Connection connection = DriverManager.getConnection(url, "postgres", "postgres");
+             Statement statement = connection.createStatement()) {
+            for (String table : new String[]{"analysis_jobs", "analysis_cache", "student_score_aggregate"}) {
+                try (ResultSet result = statement.executeQuery("SELECT to_regclass('" + table + "') IS NOT NULL")) {
+                    result.next();
+                    assertTrue(result.getBoolean(1), table + " was not created");
+                }
+            }
+        }
+    }
+    
+    private static Set<String> tables(Statement statement) throws SQLException {
+        Set<String> tables = new HashSet<>();
+        try (ResultSet result = statement.executeQuery(
+                "SELECT table_name FROM information_schema.tables WHERE table_schema = 'public'")) {
+            while (result.next()) {
+                tables.add(result.getString(1));
+            }
+        }
+        return tables;
+    }
+}
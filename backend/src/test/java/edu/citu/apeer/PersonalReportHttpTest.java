@@ -0,0 +1,105 @@
+package edu.citu.apeer;
+
+import edu.citu.apeer.entity.EvaluationActivity;
+import edu.citu.apeer.entity.User;
+import edu.citu.apeer.security.JwtUtil;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * GET /api/student/export/pdf through the full filter chain, including the async dispatch
+ * that writes the streamed body
+ */
+class PersonalReportHttpTest extends IntegrationTest {
+    
+    @Autowired
+    private MockMvc mockMvc;
+    
+    @Autowired
+    private JwtUtil jwtUtil;
+    
+    @Test
+    void reportIsCachedAndRevalidatedByVersion() throws Exception {
+        EvaluationActivity activity = createActivity();
+        User student = createStudent("Report Student");
+        for (int i = 0; i < 3; i++) {
+            evaluate(createStudent("Reviewer " + i), student, activity, "Clear slides, you should add more examples " + i);
+        }
+        awaitAnalyses();
+        String token = jwtUtil.generateToken(student.getEmail(), "STUDENT");
+        
+        MvcResult[] first = new MvcResult[1];
+        long rendered = countStatements(() -> first[0] = download(token, null));
+        MvcResult response = first[0];
+        String etag = response.getResponse().getHeader(HttpHeaders.ETAG);
+        byte[] pdf = response.getResponse().getContentAsByteArray();
+        assertEquals(MediaType.APPLICATION_PDF_VALUE, response.getResponse().getContentType());
+        assertEquals("no-cache, private", response.getResponse().getHeader(HttpHeaders.CACHE_CONTROL));
+        assertNotNull(etag);
+        assertEquals("%PDF", new String(pdf, 0, 4, StandardCharsets.US_ASCII));
+        
+        // Same version: served from the cache, only the version lookup touches the database
+        MvcResult[] second = new MvcResult[1];
+        long cached = countStatements(() -> second[0] = download(token, null));
+        assertArrayEquals(pdf, second[0].getResponse().getContentAsByteArray());
+        assertTrue(cached < rendered, "cached " + cached + " vs rendered " + rendered);
+        
+        long notModified = countStatements(() -> {
+            try {
+                mockMvc.perform(authorized(token).header(HttpHeaders.IF_NONE_MATCH, etag))
+                        .andExpect(status().isNotModified())
+                        .andExpect(request().asyncNotStarted());
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        assertEquals(cached, notModified);
+        
+        // New feedback changes the version, so the old ETag no longer matches
+        evaluate(createStudent("Late Reviewer"), student, activity, "Thanks for the help with testing");
+        awaitAnalyses();
+        MvcResult changed = download(token, etag);
+        assertEquals(200, changed.getResponse().getStatus());
+        assertNotEquals(etag, changed.getResponse().getHeader(HttpHeaders.ETAG));
+    }
+    
+    @Test
+    void requiresAuthentication() throws Exception {
+        mockMvc.perform(get("/api/student/export/pdf"))
+                .andExpect(status().is4xxClientError());
+    }
+    
+    /** Perform the request and, once the controller has returned, the async dispatch that writes the PDF */
+    private MvcResult download(String token, String ifNoneMatch) {
+        try {
+            MockHttpServletRequestBuilder builder = authorized(token);
+            if (ifNoneMatch != null) {
+                builder.header(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+            }
+            MvcResult started = mockMvc.perform(builder)
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+            return mockMvc.perform(asyncDispatch(started))
+                    .andExpect(status().isOk())
+                    .andReturn();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+    
+    private static MockHttpServletRequestBuilder authorized(String token) {
+        return get("/api/student/export/pdf").header(HttpHeaders.AUTHORIZATION, "Bearer " + token);
+    }
+}
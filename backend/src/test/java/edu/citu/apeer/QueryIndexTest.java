@@ -0,0 +1,93 @@
+package edu.citu.apeer;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * EXPLAIN of the SQL behind the repository queries the migrations index. Sequential scans are
+ * disabled, so on the test database's small tables a plan still shows the index whenever the
+ * planner can use it for that query shape.
+ */
+class QueryIndexTest extends IntegrationTest {
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    
+    @Test
+    void feedbackHistoryWalksTheTargetHistoryIndex() {
+        assertUses("idx_submission_target_history",
+                "SELECT * FROM evaluation_submissions WHERE target_id = 'x' " +
+                "ORDER BY submitted_at DESC, id DESC LIMIT 21");
+        assertUses("idx_submission_target_history",
+                "SELECT * FROM evaluation_submissions WHERE target_id = 'x' " +
+                "AND (submitted_at < now() OR (submitted_at = now() AND id < 'y')) " +
+                "ORDER BY submitted_at DESC, id DESC LIMIT 21");
+    }
+    
+    @Test
+    void activityReadsUseTheActivityIndex() {
+        assertUses("idx_submission_activity_target",
+                "SELECT activity_id, count(*) FROM evaluation_submissions WHERE activity_id IN ('a', 'b') GROUP BY activity_id");
+    }
+    
+    @Test
+    void evaluatorLookupsUseTheUniqueConstraint() {
+        assertUses("uk_submission_evaluator_target_activity",
+                "SELECT count(*) FROM evaluation_submissions WHERE evaluator_id = 'e'");
+    }
+    
+    @Test
+    void childRowsAreLoadedByIndex() {
+        assertUses("idx_criterion_scores_submission",
+                "SELECT * FROM criterion_scores WHERE submission_id IN ('s1', 's2')");
+        assertUses("idx_comment_tags_analysis",
+                "SELECT * FROM comment_tags WHERE analysis_id = ANY ('{a1,a2}')");
+    }
+    
+    @Test
+    void flaggedAnalysesUseThePartialIndex() {
+        assertUses("idx_analysis_results_flagged",
+                "SELECT * FROM analysis_results WHERE is_flagged = true");
+    }
+    
+    @Test
+    void jobPollingUsesTheRunnableIndex() {
+        assertUses("idx_analysis_jobs_runnable",
+                "SELECT * FROM analysis_jobs " +
+                "WHERE (status = 'PENDING' AND available_at <= now()) " +
+                "OR (status = 'PROCESSING' AND locked_at < now()) " +
+                "ORDER BY created_at LIMIT 10 FOR UPDATE SKIP LOCKED");
+    }
+    
+    @Test
+    void groupMembershipUsesTheGroupIndexes() {
+        assertUses("idx_users_group", "SELECT * FROM users WHERE group_id = 'g'");
+        assertUses("idx_student_groups_activity", "SELECT * FROM student_groups WHERE activity_id = 'a'");
+    }
+    
+    @Test
+    void userSearchUsesTheTrigramAndRoleIndexes() {
+        assertUses("idx_users_name_trgm", "SELECT * FROM users WHERE lower(name) LIKE '%smith%'");
+        assertUses("idx_users_email_trgm", "SELECT * FROM users WHERE lower(email) LIKE '%smith%'");
+        assertUses("idx_users_role_status_name",
+                "SELECT * FROM users WHERE role = 'STUDENT' AND status = 'ACTIVE' ORDER BY name LIMIT 20");
+    }
+    
+    private void assertUses(String index, String sql) {
+        String plan = transactionTemplate.execute(status -> {
+            jdbcTemplate.execute("SET LOCAL enable_seqscan = off");
+            List<String> lines = jdbcTemplate.queryForList("EXPLAIN " + sql, String.class);
+            return String.join("\n", lines);
+        });
+        assertTrue(plan.contains(index), index + " is not used by\n" + sql + "\n" + plan);
+    }
+}
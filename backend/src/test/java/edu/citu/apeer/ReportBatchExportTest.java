@@ -0,0 +1,170 @@
+package edu.citu.apeer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.citu.apeer.dto.ReportBatchStatus;
+import edu.citu.apeer.entity.EvaluationActivity;
+import edu.citu.apeer.entity.StudentGroup;
+import edu.citu.apeer.entity.User;
+import edu.citu.apeer.entity.UserRole;
+import edu.citu.apeer.repository.StudentGroupRepository;
+import edu.citu.apeer.security.JwtUtil;
+import edu.citu.apeer.service.StudentService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doThrow;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+class ReportBatchExportTest extends IntegrationTest {
+    
+    @Autowired
+    private MockMvc mockMvc;
+    
+    @Autowired
+    private JwtUtil jwtUtil;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Autowired
+    private StudentGroupRepository groupRepository;
+    
+    // Lets one student's report fail, which nothing in real data does reliably
+    @SpyBean
+    private StudentService studentService;
+    
+    private String teacher;
+    
+    @BeforeEach
+    void signInTeacher() {
+        User user = createUser("Report Teacher", UserRole.TEACHER);
+        teacher = "Bearer " + jwtUtil.generateToken(user.getEmail(), "TEACHER");
+    }
+    
+    @Test
+    void streamsOneFolderPerGroupAndListsFailedReports() throws Exception {
+        EvaluationActivity activity = createActivity();
+        StudentGroup teamA = group(activity, "Team A");
+        User alice = member(teamA, "Alice");
+        User bob = member(teamA, "Bob");
+        User carol = member(group(activity, "Team B/2"), "Carol");
+        doThrow(new IllegalStateException("report data unavailable"))
+                .when(studentService).getReportData(argThat(student -> student != null && student.getId().equals(bob.getId())));
+        
+        MvcResult started = mockMvc.perform(get("/api/teacher/reports/export")
+                        .param("activityId", activity.getId())
+                        .header(HttpHeaders.AUTHORIZATION, teacher))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        MvcResult response = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_TYPE, "application/zip"))
+                .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION, containsString("reports_")))
+                .andReturn();
+        
+        Map<String, byte[]> entries = unzip(response.getResponse().getContentAsByteArray());
+        assertEquals(List.of("Team A/" + entryName(alice), "Team B_2/" + entryName(carol), "errors.txt"),
+                List.copyOf(entries.keySet()), "group names are made safe for paths");
+        assertEquals("%PDF", new String(entries.get("Team A/" + entryName(alice)), 0, 4, StandardCharsets.US_ASCII));
+        assertEquals(bob.getEmail() + ": report data unavailable\n",
+                new String(entries.get("errors.txt"), StandardCharsets.UTF_8));
+        
+        ReportBatchStatus status = batchStatus(started.getResponse().getHeader("X-Report-Batch"));
+        assertEquals("COMPLETED", status.getState());
+        assertEquals(3, status.getTotal());
+        assertEquals(2, status.getCompleted());
+        assertEquals(1, status.getFailed());
+        assertFalse(status.isDownloadable(), "a streamed batch leaves no file behind");
+    }
+    
+    @Test
+    void fileBatchIsPolledAndThenDownloaded() throws Exception {
+        EvaluationActivity activity = createActivity();
+        StudentGroup group = group(activity, "Team C");
+        User dave = member(group, "Dave");
+        User erin = member(group, "Erin");
+        
+        String response = mockMvc.perform(post("/api/teacher/reports/batches")
+                        .param("activityId", activity.getId())
+                        .header(HttpHeaders.AUTHORIZATION, teacher))
+                .andExpect(status().isAccepted())
+                .andReturn().getResponse().getContentAsString();
+        String id = objectMapper.readValue(response, ReportBatchStatus.class).getId();
+        
+        long deadline = System.currentTimeMillis() + 30_000;
+        ReportBatchStatus status;
+        while (!(status = batchStatus(id)).isDownloadable()) {
+            assertNotEquals("FAILED", status.getState(), status.getError());
+            assertTrue(System.currentTimeMillis() < deadline, "batch was not finished in time");
+            Thread.sleep(50);
+        }
+        assertEquals(2, status.getCompleted());
+        
+        byte[] zip = mockMvc.perform(get("/api/teacher/reports/batches/" + id + "/download")
+                        .header(HttpHeaders.AUTHORIZATION, teacher))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsByteArray();
+        assertEquals(List.of("Team C/" + entryName(dave), "Team C/" + entryName(erin)), List.copyOf(unzip(zip).keySet()));
+    }
+    
+    @Test
+    void studentsCannotExport() throws Exception {
+        User student = createStudent("Curious Student");
+        mockMvc.perform(get("/api/teacher/reports/export")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + jwtUtil.generateToken(student.getEmail(), "STUDENT")))
+                .andExpect(status().isForbidden());
+    }
+    
+    private StudentGroup group(EvaluationActivity activity, String name) {
+        return groupRepository.save(StudentGroup.builder().name(name).activity(activity).build());
+    }
+    
+    private User member(StudentGroup group, String name) {
+        User student = createStudent(name);
+        student.setGroup(group);
+        return userRepository.save(student);
+    }
+    
+    private ReportBatchStatus batchStatus(String id) throws Exception {
+        String body = mockMvc.perform(get("/api/teacher/reports/batches/" + id).header(HttpHeaders.AUTHORIZATION, teacher))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readValue(body, ReportBatchStatus.class);
+    }
+    
+    private static String entryName(User student) {
+        return student.getName() + " (" + student.getEmail() + ").pdf";
+    }
+    
+    /** Entries by name; reports are written as they finish, so archive order varies */
+    private static Map<String, byte[]> unzip(byte[] zip) throws IOException {
+        Map<String, byte[]> entries = new TreeMap<>();
+        try (ZipInputStream input = new ZipInputStream(new ByteArrayInputStream(zip))) {
+            ZipEntry entry;
+            while ((entry = input.getNextEntry()) != null) {
+                entries.put(entry.getName(), input.readAllBytes());
+            }
+        }
+        return entries;
+    }
+}
@@ -0,0 +1,49 @@
+package edu.citu.apeer;
+
+import edu.citu.apeer.dto.StudentDashboardDTO;
+import edu.citu.apeer.entity.EvaluationActivity;
+import edu.citu.apeer.entity.User;
+import edu.citu.apeer.service.StudentService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StudentDashboardQueryTest extends IntegrationTest {
+    
+    @Autowired
+    private StudentService studentService;
+    
+    @Test
+    void dashboardStatementCountDoesNotGrowWithReceivedEvaluations() throws Exception {
+        EvaluationActivity activity = createActivity();
+        User student = createStudent("Dashboard Student");
+        
+        receiveEvaluations(student, activity, 2);
+        long few = dashboardStatements(student);
+        
+        receiveEvaluations(student, activity, 15);
+        long many = dashboardStatements(student);
+        
+        assertEquals(few, many, "dashboard statements should not depend on the number of evaluations received");
+        // Aggregate totals, the received-feedback snapshot and the recent submissions' scores
+        assertTrue(many <= 3, "dashboard took " + many + " statements");
+        StudentDashboardDTO dashboard = studentService.getDashboardData(student.getEmail());
+        assertEquals(17, dashboard.getEvaluationsReceived());
+    }
+    
+    private void receiveEvaluations(User student, EvaluationActivity activity, int count) throws Exception {
+        for (int i = 0; i < count; i++) {
+            User evaluator = createStudent("Evaluator " + i);
+            evaluate(evaluator, student, activity, "Great teammate, clear communication and helpful reviews " + i);
+        }
+        awaitAnalyses();
+    }
+    
+    private long dashboardStatements(User student) {
+        // The first call loads the user into the lookup cache
+        studentService.getDashboardData(student.getEmail());
+        return countStatements(() -> studentService.getDashboardData(student.getEmail()));
+    }
+}
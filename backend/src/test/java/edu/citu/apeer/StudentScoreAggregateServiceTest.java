@@ -0,0 +1,84 @@
+package edu.citu.apeer;
+
+import edu.citu.apeer.dto.StudentScoreTotals;
+import edu.citu.apeer.entity.EvaluationActivity;
+import edu.citu.apeer.entity.User;
+import edu.citu.apeer.service.StudentScoreAggregateService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StudentScoreAggregateServiceTest extends IntegrationTest {
+    
+    @Autowired
+    private StudentScoreAggregateService aggregateService;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Test
+    void rebuildMatchesIncrementalTotals() throws Exception {
+        EvaluationActivity activity = createActivity();
+        User student = createStudent("Rebuilt Student");
+        User evaluator = createStudent("Rebuilt Evaluator");
+        evaluate(evaluator, student, activity, "Clear explanations and steady contribution all sprint");
+        evaluate(createStudent("Second Evaluator"), student, activity, "Good work");
+        awaitAnalyses();
+        
+        StudentScoreTotals before = aggregateService.getTotals(student.getId());
+        StudentScoreTotals evaluatorBefore = aggregateService.getTotals(evaluator.getId());
+        aggregateService.rebuild();
+        
+        assertEquals(before, aggregateService.getTotals(student.getId()));
+        assertEquals(evaluatorBefore, aggregateService.getTotals(evaluator.getId()));
+    }
+    
+    @Test
+    void submitDuringRebuildWaitsAndIsCountedOnce() throws Exception {
+        EvaluationActivity activity = createActivity();
+        User student = createStudent("Contended Student");
+        User evaluator = createStudent("Contended Evaluator");
+        
+        CountDownLatch rebuilt = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> rebuild = CompletableFuture.runAsync(() ->
+                new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                    aggregateService.rebuild();
+                    rebuilt.countDown();
+                    await(release);
+                }));
+        assertTrue(rebuilt.await(10, TimeUnit.SECONDS));
+        
+        // A new (student, activity) row would otherwise slip in between the delete and the recompute
+        CompletableFuture<Void> submit = CompletableFuture.runAsync(() ->
+                evaluate(evaluator, student, activity, "Reliable and well organized"));
+        assertThrows(TimeoutException.class, () -> submit.get(500, TimeUnit.MILLISECONDS),
+                "submit should wait for the rebuild transaction");
+        
+        release.countDown();
+        rebuild.get(10, TimeUnit.SECONDS);
+        submit.get(10, TimeUnit.SECONDS);
+        
+        StudentScoreTotals totals = aggregateService.getTotals(student.getId());
+        assertEquals(1, totals.getReceivedCount());
+        assertEquals(7, totals.getScoreTotal());
+        assertEquals(1, aggregateService.getTotals(evaluator.getId()).getGivenCount());
+    }
+    
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
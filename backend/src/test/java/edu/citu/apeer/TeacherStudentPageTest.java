@@ -0,0 +1,173 @@
+package edu.citu.apeer;
+
+import edu.citu.apeer.dto.StudentSummaryDTO;
+import edu.citu.apeer.entity.EvaluationActivity;
+import edu.citu.apeer.entity.User;
+import edu.citu.apeer.entity.UserRole;
+import edu.citu.apeer.repository.StudentScoreAggregateRepository;
+import edu.citu.apeer.security.JwtUtil;
+import edu.citu.apeer.service.TeacherService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The teacher's student list, sorted and paged in the database. Other tests leave students
+ * behind, so orderings are checked relative to the students seeded here and across every page.
+ */
+class TeacherStudentPageTest extends IntegrationTest {
+    
+    // Small enough that runs of equal values span several pages
+    private static final int PAGE_SIZE = 7;
+    
+    @Autowired
+    private TeacherService teacherService;
+    
+    @Autowired
+    private StudentScoreAggregateRepository aggregateRepository;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Autowired
+    private MockMvc mockMvc;
+    
+    @Autowired
+    private JwtUtil jwtUtil;
+    
+    private User high;
+    private User middle;
+    private User low;
+    
+    @BeforeEach
+    void seedTotals() {
+        EvaluationActivity activity = createActivity();
+        // score out of 20, evaluations given, flagged analyses
+        high = seeded(activity, "High Scorer", 18, 1, 0);
+        middle = seeded(activity, "Middle Scorer", 12, 5, 2);
+        low = seeded(activity, "Low Scorer", 4, 3, 1);
+    }
+    
+    @Test
+    void sortsByScore() {
+        List<StudentSummaryDTO> descending = allPages("score", null);
+        assertOrder(descending, high, middle, low);
+        for (int i = 1; i < descending.size(); i++) {
+            assertTrue(descending.get(i - 1).getOverallScore() >= descending.get(i).getOverallScore(),
+                    "metrics sort highest first by default");
+        }
+        
+        assertOrder(allPages("score", "asc"), low, middle, high);
+    }
+    
+    @Test
+    void sortsByFlagsAndParticipation() {
+        List<StudentSummaryDTO> flagged = allPages("flagged", null);
+        assertOrder(flagged, middle, low, high);
+        for (int i = 1; i < flagged.size(); i++) {
+            assertFalse(flagged.get(i).getIsBiased() && !flagged.get(i - 1).getIsBiased(), "flagged students come first");
+        }
+        assertOrder(allPages("flag", "DESC"), middle, low, high);
+        
+        List<StudentSummaryDTO> participation = allPages("participation", null);
+        assertOrder(participation, middle, low, high);
+        for (int i = 1; i < participation.size(); i++) {
+            StudentSummaryDTO previous = participation.get(i - 1);
+            StudentSummaryDTO current = participation.get(i);
+            assertTrue(previous.getEvaluationsGiven() >= current.getEvaluationsGiven());
+            if (previous.getEvaluationsGiven().equals(current.getEvaluationsGiven())) {
+                assertTrue(previous.getId().compareTo(current.getId()) < 0, "equal counts fall back to id order");
+            }
+        }
+    }
+    
+    @Test
+    void equalValuesKeepTheirOrderAcrossPages() {
+        // Most students have given nothing and many share a name, so both sorts are mostly ties
+        for (String sort : List.of("participation", "name")) {
+            List<StudentSummaryDTO> students = allPages(sort, null);
+            Set<String> ids = new HashSet<>();
+            students.forEach(student -> assertTrue(ids.add(student.getId()), sort + ": no student on two pages"));
+            assertEquals(teacherService.getStudentPage(0, PAGE_SIZE, sort, null).getTotalElements(), students.size(),
+                    sort + ": no student skipped");
+        }
+        
+        List<StudentSummaryDTO> byName = allPages("name", null);
+        for (int i = 1; i < byName.size(); i++) {
+            if (byName.get(i - 1).getName().equals(byName.get(i).getName())) {
+                assertTrue(byName.get(i - 1).getId().compareTo(byName.get(i).getId()) < 0);
+            }
+        }
+    }
+    
+    @Test
+    void rejectsUnknownSortFieldsAndDirections() throws Exception {
+        User teacher = createUser("Sorting Teacher", UserRole.TEACHER);
+        String authorization = "Bearer " + jwtUtil.generateToken(teacher.getEmail(), "TEACHER");
+        
+        mockMvc.perform(get("/api/teacher/students/page").param("sort", "grade")
+                        .header(HttpHeaders.AUTHORIZATION, authorization))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Unsupported sort field: grade"));
+        mockMvc.perform(get("/api/teacher/students/page").param("sort", "score").param("direction", "sideways")
+                        .header(HttpHeaders.AUTHORIZATION, authorization))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message", containsString("sideways")));
+        mockMvc.perform(get("/api/teacher/students/page").param("sort", "Score").param("direction", "asc")
+                        .header(HttpHeaders.AUTHORIZATION, authorization))
+                .andExpect(status().isOk());
+    }
+    
+    /** A student with a score of {@code scoreTotal} out of 20 and the given activity counts */
+    private User seeded(EvaluationActivity activity, String name, int scoreTotal, int givenCount, int flaggedCount) {
+        User student = createStudent(name);
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                aggregateRepository.applyDelta(UUID.randomUUID().toString(), student.getId(), activity.getId(),
+                        scoreTotal, 20, 2, givenCount, givenCount, givenCount * 60, flaggedCount));
+        return student;
+    }
+    
+    private List<StudentSummaryDTO> allPages(String sort, String direction) {
+        List<StudentSummaryDTO> students = new ArrayList<>();
+        Page<StudentSummaryDTO> page;
+        int number = 0;
+        do {
+            page = teacherService.getStudentPage(number++, PAGE_SIZE, sort, direction);
+            students.addAll(page.getContent());
+        } while (page.hasNext());
+        return students;
+    }
+    
+    private static void assertOrder(List<StudentSummaryDTO> students, User... expected) {
+        for (int i = 1; i < expected.length; i++) {
+            assertTrue(indexOf(students, expected[i - 1]) < indexOf(students, expected[i]),
+                    expected[i - 1].getName() + " should come before " + expected[i].getName());
+        }
+    }
+    
+    private static int indexOf(List<StudentSummaryDTO> students, User student) {
+        for (int i = 0; i < students.size(); i++) {
+            if (students.get(i).getId().equals(student.getId())) {
+                return i;
+            }
+        }
+        return fail(student.getName() + " is missing from the list");
+    }
+}
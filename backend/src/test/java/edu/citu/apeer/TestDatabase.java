@@ -0,0 +1,35 @@
+package edu.citu.apeer;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * One embedded PostgreSQL server for the whole test run, started on first use
+ */
+public final class TestDatabase {
+    
+    private static EmbeddedPostgres postgres;
+    
+    private TestDatabase() {
+    }
+    
+    public static String jdbcUrl() {
+        return jdbcUrl("postgres");
+    }
+    
+    /**
+     * URL of {@code database} on the shared server; it must already exist unless it is {@code postgres}
+     */
+    public static synchronized String jdbcUrl(String database) {
+        if (postgres == null) {
+            try {
+                postgres = EmbeddedPostgres.builder().start();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not start embedded PostgreSQL", e);
+            }
+        }
+        return postgres.getJdbcUrl("postgres", database);
+    }
+}
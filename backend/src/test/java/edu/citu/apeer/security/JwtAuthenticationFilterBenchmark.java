@@ -0,0 +1,179 @@
+package edu.citu.apeer.security;
+
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One authenticated request through {@link JwtAuthenticationFilter#doFilterInternal}: the filter
+ * as it was, with validateToken, getEmailFromToken and getRoleFromToken each building a key and
+ * parser and verifying the token again, against the filter calling {@link JwtUtil#parse} once.
+ * Requests cycle through one token per user. 1,000 users fit the 10,000 entry token cache, so
+ * after warmup those are hits; 50,000 users overflow it, so most requests miss and verify.
+ * Runs four threads to model a burst of requests. Run with
+ * {@code mvn test -Pbench -Dtest=JwtAuthenticationFilterBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+@Fork(1)
+public class JwtAuthenticationFilterBenchmark {
+    
+    private static final String SECRET = "benchmark-secret-key-with-at-least-256-bits-of-material";
+    
+    @Param({"1000", "50000"})
+    public int users;
+    
+    private JwtAuthenticationFilter filter;
+    private LegacyJwtAuthenticationFilter legacyFilter;
+    private MockHttpServletRequest[] requests;
+    
+    @Setup
+    public void setUp() {
+        JwtUtil jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "jwtSecret", SECRET);
+        ReflectionTestUtils.setField(jwtUtil, "jwtExpiration", 3_600_000L);
+        ReflectionTestUtils.setField(jwtUtil, "cacheMaxEntries", 10_000L);
+        jwtUtil.init();
+        filter = new JwtAuthenticationFilter(jwtUtil);
+        legacyFilter = new LegacyJwtAuthenticationFilter();
+        
+        requests = new MockHttpServletRequest[users];
+        for (int i = 0; i < users; i++) {
+            MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/student/dashboard");
+            request.addHeader("Authorization", "Bearer " + jwtUtil.generateToken("student" + i + "@test.edu", "STUDENT"));
+            requests[i] = request;
+        }
+    }
+    
+    /** Each thread walks the users from its own starting point, like unrelated clients */
+    @State(Scope.Thread)
+    public static class Client {
+        
+        private final MockHttpServletResponse response = new MockHttpServletResponse();
+        private FilterChain chain;
+        private int next;
+        
+        @Setup
+        public void setUp(JwtAuthenticationFilterBenchmark benchmark, Blackhole blackhole) {
+            next = ThreadLocalRandom.current().nextInt(benchmark.users);
+            chain = (request, response) -> blackhole.consume(SecurityContextHolder.getContext().getAuthentication());
+        }
+        
+        MockHttpServletRequest nextRequest(MockHttpServletRequest[] requests) {
+            MockHttpServletRequest request = requests[next];
+            next = next + 1 == requests.length ? 0 : next + 1;
+            return request;
+        }
+    }
+    
+    @Benchmark
+    public void threeParses(Client client) throws ServletException, IOException {
+        try {
+            legacyFilter.doFilterInternal(client.nextRequest(requests), client.response, client.chain);
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+    
+    @Benchmark
+    public void parse(Client client) throws ServletException, IOException {
+        try {
+            filter.doFilterInternal(client.nextRequest(requests), client.response, client.chain);
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+    
+    @Test
+    void run() throws Exception {
+        new Runner(new OptionsBuilder()
+                .include(JwtAuthenticationFilterBenchmark.class.getName())
+                .build()).run();
+    }
+    
+    /**
+     * The filter before {@link JwtUtil#parse}, with the three JwtUtil methods it called inlined
+     */
+    private static class LegacyJwtAuthenticationFilter {
+        
+        void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+                throws ServletException, IOException {
+            String authHeader = request.getHeader("Authorization");
+            
+            if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+                filterChain.doFilter(request, response);
+                return;
+            }
+            
+            String token = authHeader.substring(7);
+            
+            if (validateToken(token)) {
+                String email = getEmailFromToken(token);
+                String role = getRoleFromToken(token);
+                
+                UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
+                        email, null, Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + role.toUpperCase())));
+                authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                SecurityContextHolder.getContext().setAuthentication(authentication);
+            }
+            
+            filterChain.doFilter(request, response);
+        }
+        
+        private static boolean validateToken(String token) {
+            try {
+                Jwts.parser()
+                        .verifyWith(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)))
+                        .build()
+                        .parseSignedClaims(token);
+                return true;
+            } catch (JwtException | IllegalArgumentException e) {
+                return false;
+            }
+        }
+        
+        private static String getEmailFromToken(String token) {
+            return Jwts.parser()
+                    .verifyWith(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)))
+                    .build()
+                    .parseSignedClaims(token)
+                    .getPayload()
+                    .getSubject();
+        }
+        
+        private static String getRoleFromToken(String token) {
+            return Jwts.parser()
+                    .verifyWith(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)))
+                    .build()
+                    .parseSignedClaims(token)
+                    .getPayload()
+                    .get("role", String.class);
+        }
+    }
+}
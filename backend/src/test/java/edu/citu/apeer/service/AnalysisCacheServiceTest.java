@@ -0,0 +1,75 @@
+package edu.citu.apeer.service;
+
+import edu.citu.apeer.IntegrationTest;
+import edu.citu.apeer.dto.AnalysisResultDTO;
+import edu.citu.apeer.entity.AnalysisCacheEntry;
+import edu.citu.apeer.repository.AnalysisCacheRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AnalysisCacheServiceTest extends IntegrationTest {
+    
+    @Autowired
+    private AnalysisCacheService analysisCacheService;
+    
+    @Autowired
+    private FakeAIService fakeAIService;
+    
+    @Autowired
+    private AnalysisCacheRepository cacheRepository;
+    
+    @Test
+    void commentsSharingAKeyGetTheAnalysisOfTheNormalizedText() {
+        String id = unique("note");
+        // Padded past 50 characters, the analyzer's length thresholds would score it differently
+        String padded = "  Good   work    on   the    report   " + id + "          ";
+        String compact = "GOOD WORK ON THE REPORT " + id.toUpperCase();
+        assertTrue(padded.length() >= 50 && AnalysisCacheService.normalize(padded).length() < 50);
+        
+        AnalysisResultDTO expected = fakeAIService.analyzeComment(AnalysisCacheService.normalize(padded));
+        AnalysisResultDTO first = analysisCacheService.analyze(padded);
+        AnalysisResultDTO second = analysisCacheService.analyze(compact);
+        
+        assertEquals(expected, first);
+        assertEquals(first, second);
+    }
+    
+    @Test
+    void longTagListsAreCutToFitTheTagsColumn() {
+        List<String> tags = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            tags.add("descriptive-tag-" + i);
+        }
+        tags.add(2, "has,comma");
+        AnalysisResultDTO result = AnalysisCacheService.fitColumns(AnalysisResultDTO.builder()
+                .tags(tags)
+                .sentimentScore(0.5)
+                .usefulnessScore(70)
+                .isFlagged(true)
+                .flagReason("x".repeat(800))
+                .analyzerVersion("test")
+                .build());
+        
+        String joined = String.join(",", result.getTags());
+        assertTrue(joined.length() <= 500);
+        assertTrue(joined.length() > 450, "as many whole tags as fit are kept");
+        assertEquals(List.of("descriptive-tag-0", "descriptive-tag-1", "descriptive-tag-2"), result.getTags().subList(0, 3));
+        assertEquals(500, result.getFlagReason().length());
+        
+        String hash = unique("hash");
+        cacheRepository.insertIfAbsent(hash, "test", joined, result.getSentimentScore(),
+                result.getUsefulnessScore(), result.getIsFlagged(), result.getFlagReason());
+        AnalysisCacheEntry stored = cacheRepository.findById(hash).orElseThrow();
+        assertEquals(joined, stored.getTags());
+    }
+    
+    @Test
+    void builderDefaultsToNotFlagged() {
+        assertFalse(AnalysisCacheEntry.builder().build().getIsFlagged());
+    }
+}
@@ -0,0 +1,218 @@
+package edu.citu.apeer.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import edu.citu.apeer.dto.AnalysisResultDTO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs {@link AnalysisClient} against a stub of the NLP service's batch endpoint
+ */
+class AnalysisClientTest {
+    
+    private static final String REMOTE_VERSION = "remote-test";
+    
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+    private final AtomicInteger concurrent = new AtomicInteger();
+    private final AtomicInteger maxConcurrent = new AtomicInteger();
+    private volatile int responseStatus = 200;
+    private volatile long responseDelayMs;
+    
+    private HttpServer server;
+    private ExecutorService callers;
+    private AnalysisClient client;
+    
+    @BeforeEach
+    void startStub() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/api/analyze_batch", this::analyzeBatch);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+        callers = Executors.newFixedThreadPool(16);
+    }
+    
+    @AfterEach
+    void stopStub() {
+        if (client != null) {
+            client.stop();
+        }
+        callers.shutdownNow();
+        server.stop(0);
+    }
+    
+    @Test
+    void concurrentCommentsTravelInOneBatch() throws Exception {
+        client = client(8, 500, 4, 30_000);
+        
+        List<Future<AnalysisResultDTO>> results = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            String comment = "Comment number " + i;
+            results.add(callers.submit(() -> client.analyzeComment(comment)));
+        }
+        for (Future<AnalysisResultDTO> result : results) {
+            assertEquals(REMOTE_VERSION, result.get().getAnalyzerVersion());
+        }
+        
+        assertEquals(List.of(8), batchSizes, "a full batch is sent without waiting for the linger");
+    }
+    
+    @Test
+    void singleCommentWaitsForTheLinger() {
+        client = client(8, 150, 4, 30_000);
+        
+        long started = System.nanoTime();
+        AnalysisResultDTO result = client.analyzeComment("Only comment in this window");
+        long elapsedMs = (System.nanoTime() - started) / 1_000_000;
+        
+        assertEquals(REMOTE_VERSION, result.getAnalyzerVersion());
+        assertEquals(List.of(1), batchSizes);
+        assertTrue(elapsedMs >= 140, "sent after " + elapsedMs + "ms");
+    }
+    
+    @Test
+    void inFlightRequestsAreCapped() throws Exception {
+        responseDelayMs = 100;
+        client = client(1, 0, 2, 30_000);
+        
+        List<Future<AnalysisResultDTO>> results = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            String comment = "Comment " + i;
+            results.add(callers.submit(() -> client.analyzeComment(comment)));
+        }
+        for (Future<AnalysisResultDTO> result : results) {
+            assertEquals(REMOTE_VERSION, result.get().getAnalyzerVersion());
+        }
+        
+        assertEquals(6, batchSizes.size());
+        assertTrue(maxConcurrent.get() <= 2, maxConcurrent.get() + " requests were open at once");
+    }
+    
+    @Test
+    void failingServiceFallsBackAndCoolsDown() {
+        responseStatus = 500;
+        client = client(4, 0, 4, 60_000);
+        
+        AnalysisResultDTO first = client.analyzeComment("Helpful and clear feedback");
+        assertEquals(FakeAIService.VERSION, first.getAnalyzerVersion());
+        assertEquals(1, batchSizes.size());
+        
+        // Within the cooldown the remote is not called at all
+        responseStatus = 200;
+        AnalysisResultDTO second = client.analyzeComment("Another comment");
+        assertEquals(FakeAIService.VERSION, second.getAnalyzerVersion());
+        assertEquals(1, batchSizes.size());
+    }
+    
+    @Test
+    void remoteIsRetriedOnceTheCooldownEnds() throws Exception {
+        responseStatus = 500;
+        client = client(4, 0, 4, 200);
+        
+        assertEquals(FakeAIService.VERSION, client.analyzeComment("First").getAnalyzerVersion());
+        responseStatus = 200;
+        Thread.sleep(300);
+        
+        assertEquals(REMOTE_VERSION, client.analyzeComment("Second").getAnalyzerVersion());
+        assertEquals(2, batchSizes.size());
+    }
+    
+    @Test
+    void slowServiceFallsBackWithoutCooldown() {
+        responseDelayMs = 1_000;
+        client = client(4, 0, 4, 60_000);
+        ReflectionTestUtils.setField(client, "timeoutMs", 200L);
+        
+        AnalysisResultDTO slow = client.analyzeComment("Too slow to wait for");
+        assertEquals(FakeAIService.VERSION, slow.getAnalyzerVersion());
+        
+        // A timeout only costs that caller; the next comment still goes to the remote
+        responseDelayMs = 0;
+        assertEquals(REMOTE_VERSION, client.analyzeComment("Answered quickly").getAnalyzerVersion());
+    }
+    
+    @Test
+    void unreachableServiceFallsBack() {
+        server.stop(0);
+        client = client(4, 0, 4, 60_000);
+        
+        AnalysisResultDTO result = client.analyzeComment("Nobody is listening");
+        
+        assertEquals(FakeAIService.VERSION, result.getAnalyzerVersion());
+        assertFalse(result.getTags().isEmpty());
+    }
+    
+    private AnalysisClient client(int batchSize, long lingerMs, int maxInFlight, long cooldownMs) {
+        FakeAIService fallback = new FakeAIService();
+        ReflectionTestUtils.setField(fallback, "keywords", new ClassPathResource("analysis/keywords.properties"));
+        try {
+            fallback.loadKeywords();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        
+        AnalysisClient analysisClient = new AnalysisClient(fallback, objectMapper);
+        ReflectionTestUtils.setField(analysisClient, "serviceUrl", "http://localhost:" + server.getAddress().getPort());
+        ReflectionTestUtils.setField(analysisClient, "batchPath", "/api/analyze_batch");
+        ReflectionTestUtils.setField(analysisClient, "modelVersion", REMOTE_VERSION);
+        ReflectionTestUtils.setField(analysisClient, "timeoutMs", 5_000L);
+        ReflectionTestUtils.setField(analysisClient, "summaryTimeoutMs", 1_000L);
+        ReflectionTestUtils.setField(analysisClient, "batchSize", batchSize);
+        ReflectionTestUtils.setField(analysisClient, "lingerMs", lingerMs);
+        ReflectionTestUtils.setField(analysisClient, "maxInFlight", maxInFlight);
+        ReflectionTestUtils.setField(analysisClient, "cooldownMs", cooldownMs);
+        analysisClient.start();
+        return analysisClient;
+    }
+    
+    private void analyzeBatch(HttpExchange exchange) throws IOException {
+        int open = concurrent.incrementAndGet();
+        maxConcurrent.accumulateAndGet(open, Math::max);
+        try {
+            JsonNode texts = objectMapper.readTree(exchange.getRequestBody()).path("texts");
+            batchSizes.add(texts.size());
+            if (responseDelayMs > 0) {
+                Thread.sleep(responseDelayMs);
+            }
+            
+            List<Map<String, Object>> results = new ArrayList<>();
+            texts.forEach(text -> results.add(Map.of(
+                    "tags", List.of("Remote"),
+                    "polarity_score", 0.5,
+                    "usefulness_score", 70,
+                    "flagged", false)));
+            byte[] body = objectMapper.writeValueAsString(Map.of("results", results)).getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(responseStatus, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            concurrent.decrementAndGet();
+            exchange.close();
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package edu.citu.apeer.service;
+
+import edu.citu.apeer.dto.AnalysisResultDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FakeAIServiceTest {
+    
+    // Keywords appear only as whole words here, where the old substring checks and the scanner must agree
+    private static final List<String> CORPUS = List.of(
+            "Good work on the database layer, thank you for the help.",
+            "The slides were clear and the demo was effective. You should add an example for the API.",
+            "Poor time management, the report was confusing and lacking detail.",
+            "Great teammate! I appreciate the strong code reviews and helpful comments.",
+            "You could improve the tests; consider edge cases and focus on the parser.",
+            "Weak documentation. Please try to write a README next time, for instance with setup steps.",
+            "ok",
+            "Outstanding effort, excellent presentation and better structure than last sprint. "
+                    + "Thanks again for mentoring the new members, it made the whole project run smoothly.",
+            "I suggest splitting the service into smaller classes; the current one is inadequate and bad for testing.",
+            "We recommend more examples in the user guide, it was clearly written but short.",
+            "THANK YOU, GREAT JOB ON THE FRONTEND!",
+            "Attended every meeting and kept the board updated.");
+    
+    private FakeAIService analyzer;
+    
+    @BeforeEach
+    void loadKeywords() throws Exception {
+        analyzer = new FakeAIService();
+        ReflectionTestUtils.setField(analyzer, "keywords", new ClassPathResource("analysis/keywords.properties"));
+        analyzer.loadKeywords();
+    }
+    
+    @Test
+    void matchesTheSubstringRulesOnWholeWords() {
+        for (String comment : CORPUS) {
+            // Comments reach the analyzer normalized, as AnalysisCacheService passes them
+            String normalized = AnalysisCacheService.normalize(comment);
+            AnalysisResultDTO expected = LegacyAnalyzer.analyze(normalized);
+            AnalysisResultDTO actual = analyzer.analyzeComment(normalized);
+            
+            assertEquals(expected.getTags(), actual.getTags(), comment);
+            assertEquals(expected.getSentimentScore(), actual.getSentimentScore(), comment);
+            assertEquals(expected.getUsefulnessScore(), actual.getUsefulnessScore(), comment);
+            assertEquals(expected.getIsFlagged(), actual.getIsFlagged(), comment);
+            assertEquals(expected.getFlagReason(), actual.getFlagReason(), comment);
+        }
+    }
+    
+    @Test
+    void noLongerMatchesKeywordsInsideOtherWords() {
+        String comment = "the goodness of the unclear plan";
+        
+        assertTrue(LegacyAnalyzer.analyze(comment).getTags().contains("Positive"));
+        assertFalse(analyzer.analyzeComment(comment).getTags().contains("Positive"));
+        // Old rules: clear and unclear cancel out; now it is only unclear
+        assertTrue(analyzer.analyzeComment(comment).getSentimentScore() < -0.8);
+    }
+    
+    @Test
+    void sameTextGetsTheSameResult() {
+        String comment = AnalysisCacheService.normalize(CORPUS.get(1));
+        assertEquals(analyzer.analyzeComment(comment), analyzer.analyzeComment(comment));
+    }
+    
+    /**
+     * The analyzer's keyword rules before the scanner, with String.contains on the lowercased comment
+     */
+    private static class LegacyAnalyzer {
+        
+        static AnalysisResultDTO analyze(String comment) {
+            String lower = comment.toLowerCase();
+            Random random = new Random(AnalysisCacheService.normalize(comment).hashCode());
+            
+            List<String> tags = new ArrayList<>();
+            if (comment.length() > 100) {
+                tags.add("Detailed");
+            }
+            if (comment.length() < 30) {
+                tags.add("Vague");
+            } else if (comment.length() > 50) {
+                tags.add("Constructive");
+            }
+            if (containsAny(lower, "good", "great", "excellent")) {
+                tags.add("Positive");
+            }
+            if (containsAny(lower, "improve", "better", "should")) {
+                tags.add("Actionable");
+            }
+            if (containsAny(lower, "thank", "appreciate")) {
+                tags.add("Polite");
+            }
+            if (tags.isEmpty()) {
+                tags.add("Neutral");
+            }
+            
+            int positive = countContained(lower, "good", "great", "excellent", "outstanding",
+                    "helpful", "clear", "strong", "effective");
+            int negative = countContained(lower, "poor", "bad", "weak", "unclear",
+                    "confusing", "inadequate", "lacking");
+            double sentiment = 0.0;
+            if (positive + negative > 0) {
+                sentiment = (double) (positive - negative) / (positive + negative);
+                sentiment += (random.nextDouble() - 0.5) * 0.2;
+                sentiment = Math.max(-1.0, Math.min(1.0, sentiment));
+            }
+            
+            int usefulness = 50;
+            if (comment.length() > 150) {
+                usefulness += 20;
+            } else if (comment.length() > 80) {
+                usefulness += 10;
+            } else if (comment.length() < 30) {
+                usefulness -= 20;
+            }
+            if (containsAny(lower, "should", "could", "improve", "consider", "suggest", "recommend", "try", "focus")) {
+                usefulness += 5;
+            }
+            if (containsAny(lower, "example", "instance")) {
+                usefulness += 10;
+            }
+            usefulness += random.nextInt(21) - 10;
+            usefulness = Math.max(0, Math.min(100, usefulness));
+            
+            boolean flagged = random.nextDouble() < 0.10;
+            String[] reasons = {
+                "Potential grade inflation detected",
+                "Score deviation > 2.5σ from class average",
+                "Comment lacks substantive feedback",
+                "Possible friendship bias detected",
+                "Statistical anomaly in scoring pattern"
+            };
+            return AnalysisResultDTO.builder()
+                    .tags(tags)
+                    .sentimentScore(sentiment)
+                    .usefulnessScore(usefulness)
+                    .isFlagged(flagged)
+                    .flagReason(flagged ? reasons[random.nextInt(reasons.length)] : null)
+                    .build();
+        }
+        
+        private static boolean containsAny(String text, String... words) {
+            return countContained(text, words) > 0;
+        }
+        
+        private static int countContained(String text, String... words) {
+            int count = 0;
+            for (String word : words) {
+                if (text.contains(word)) {
+                    count++;
+                }
+            }
+            return count;
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package edu.citu.apeer.service;
+
+import com.google.api.client.googleapis.auth.oauth2.GoogleIdTokenVerifier;
+import com.google.api.client.googleapis.auth.oauth2.GooglePublicKeysManager;
+import com.google.api.client.http.javanet.NetHttpTransport;
+import com.google.api.client.json.gson.GsonFactory;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.KeyStore;
+import java.security.PrivateKey;
+import java.security.cert.Certificate;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs {@link GoogleTokenVerificationService} against an in-process stand-in for Google's
+ * certificate endpoint, serving self-signed certificates in the v1/certs format
+ */
+class GoogleTokenVerificationServiceTest {
+    
+    private static final String CLIENT_ID = "test-client-id";
+    
+    private static SigningKey google;
+    private static SigningKey rotated;
+    private static SigningKey stranger;
+    
+    private final AtomicInteger fetches = new AtomicInteger();
+    
+    // What the stub serves; tests swap these to rotate keys or shorten the cache lifetime
+    private volatile SigningKey served;
+    private volatile long maxAgeSeconds = 3600;
+    
+    private HttpServer server;
+    private GoogleTokenVerificationService service;
+    
+    @BeforeAll
+    static void generateKeys(@TempDir Path keystores) throws Exception {
+        google = SigningKey.generate(keystores, "google-1");
+        rotated = SigningKey.generate(keystores, "google-2");
+        stranger = SigningKey.generate(keystores, "stranger");
+    }
+    
+    @BeforeEach
+    void start() throws IOException {
+        served = google;
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/oauth2/v1/certs", this::serveCerts);
+        server.start();
+        
+        GooglePublicKeysManager publicKeys = new GooglePublicKeysManager.Builder(new NetHttpTransport(),
+                GsonFactory.getDefaultInstance())
+                .setPublicCertsEncodedUrl("http://localhost:" + server.getAddress().getPort() + "/oauth2/v1/certs")
+                .build();
+        GoogleIdTokenVerifier verifier = new GoogleIdTokenVerifier.Builder(publicKeys)
+                .setAudience(List.of(CLIENT_ID))
+                .build();
+        service = new GoogleTokenVerificationService(verifier, publicKeys);
+        ReflectionTestUtils.setField(service, "refreshAheadMs", 600_000L);
+    }
+    
+    @AfterEach
+    void stop() {
+        server.stop(0);
+    }
+    
+    @Test
+    void verifiesTokensSignedWithTheServedKey() throws Exception {
+        service.refreshPublicKeys();
+        
+        GoogleTokenVerificationService.GoogleUserInfo user =
+                service.verifyToken(google.sign("jane.doe@cit.edu", CLIENT_ID));
+        assertNotNull(user);
+        assertEquals("jane.doe@cit.edu", user.getEmail());
+        assertEquals("jane doe", user.getName(), "no name claim, so it comes from the email");
+        
+        assertNull(service.verifyToken(stranger.sign("jane.doe@cit.edu", CLIENT_ID)), "signed with another key");
+        assertNull(service.verifyToken(google.sign("jane.doe@cit.edu", "another-client")), "issued for another app");
+        assertNull(service.verifyToken("not-a-token"));
+    }
+    
+    @Test
+    void loginsUseTheRefreshedKeysInsteadOfFetching() throws Exception {
+        service.refreshPublicKeys();
+        assertEquals(1, fetches.get());
+        
+        for (int i = 0; i < 5; i++) {
+            assertNotNull(service.verifyToken(google.sign("student" + i + "@cit.edu", CLIENT_ID)));
+        }
+        // Still well inside max-age, so the scheduled check leaves the keys alone too
+        service.refreshPublicKeys();
+        
+        assertEquals(1, fetches.get(), "logins and the periodic check must not hit the certificate endpoint");
+    }
+    
+    @Test
+    void refreshesKeysThatExpireWithinTheRefreshWindow() throws Exception {
+        // Longer than the keys manager's 5 minute skew, so logins alone would keep using the cached keys,
+        // but inside the 10 minute refresh window
+        maxAgeSeconds = 400;
+        service.refreshPublicKeys();
+        served = rotated;
+        
+        assertNull(service.verifyToken(rotated.sign("jane.doe@cit.edu", CLIENT_ID)), "the new key is not fetched yet");
+        assertEquals(1, fetches.get());
+        
+        service.refreshPublicKeys();
+        assertEquals(2, fetches.get());
+        assertNotNull(service.verifyToken(rotated.sign("jane.doe@cit.edu", CLIENT_ID)));
+        assertNull(service.verifyToken(google.sign("jane.doe@cit.edu", CLIENT_ID)), "the retired key is dropped");
+    }
+    
+    @Test
+    void failedRefreshLeavesLoginsToFetchTheKeys() throws Exception {
+        server.removeContext("/oauth2/v1/certs");
+        service.refreshPublicKeys();
+        server.createContext("/oauth2/v1/certs", this::serveCerts);
+        
+        assertNotNull(service.verifyToken(google.sign("jane.doe@cit.edu", CLIENT_ID)));
+        assertEquals(1, fetches.get());
+    }
+    
+    private void serveCerts(HttpExchange exchange) throws IOException {
+        fetches.incrementAndGet();
+        SigningKey key = served;
+        byte[] body = ("{\"" + key.kid + "\": \"" + key.certificatePem.replace("\n", "\\n") + "\"}")
+                .getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=UTF-8");
+        exchange.getResponseHeaders().set("Cache-Control", "public, max-age=" + maxAgeSeconds + ", must-revalidate, no-transform");
+        exchange.sendResponseHeaders(200, body.length);
+        exchange.getResponseBody().write(body);
+        exchange.close();
+    }
+    
+    /**
+     * An RSA key with a self-signed certificate, made by keytool since the JDK has no public API
+     * for issuing certificates
+     */
+    private record SigningKey(String kid, PrivateKey privateKey, String certificatePem) {
+        
+        static SigningKey generate(Path directory, String kid) throws Exception {
+            Path keystore = directory.resolve(kid + ".p12");
+            Process keytool = new ProcessBuilder(Path.of(System.getProperty("java.home"), "bin", "keytool").toString(),
+                    "-genkeypair", "-alias", kid, "-keyalg", "RSA", "-keysize", "2048", "-sigalg", "SHA256withRSA",
+                    "-dname", "CN=" + kid, "-validity", "1", "-storetype", "PKCS12",
+                    "-keystore", keystore.toString(), "-storepass", "changeit")
+                    .redirectErrorStream(true)
+                    .start();
+            String output = new String(keytool.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+            assertEquals(0, keytool.waitFor(), output);
+            
+            KeyStore store = KeyStore.getInstance("PKCS12");
+            try (InputStream input = Files.newInputStream(keystore)) {
+                store.load(input, "changeit".toCharArray());
+            }
+            Certificate certificate = store.getCertificate(kid);
+            String pem = "-----BEGIN CERTIFICATE-----\n"
+                    + Base64.getMimeEncoder(64, "\n".getBytes(StandardCharsets.US_ASCII)).encodeToString(certificate.getEncoded())
+                    + "\n-----END CERTIFICATE-----\n";
+            return new SigningKey(kid, (PrivateKey) store.getKey(kid, "changeit".toCharArray()), pem);
+        }
+        
+        /** An ID token as Google issues it, for the given audience */
+        String sign(String email, String audience) throws Exception {
+            long now = System.currentTimeMillis();
+            JWTClaimsSet claims = new JWTClaimsSet.Builder()
+                    .issuer("https://accounts.google.com")
+                    .audience(audience)
+                    .subject(email)
+                    .claim("email", email)
+                    .claim("email_verified", true)
+                    .issueTime(new Date(now))
+                    .expirationTime(new Date(now + 3_600_000))
+                    .build();
+            SignedJWT token = new SignedJWT(new JWSHeader.Builder(JWSAlgorithm.RS256).keyID(kid).build(), claims);
+            token.sign(new RSASSASigner(privateKey));
+            return token.serialize();
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package edu.citu.apeer.service;
+
+import edu.citu.apeer.IntegrationTest;
+import edu.citu.apeer.dto.AutoGroupRequest;
+import edu.citu.apeer.dto.GroupDTO;
+import edu.citu.apeer.dto.UserDTO;
+import edu.citu.apeer.entity.EvaluationActivity;
+import edu.citu.apeer.entity.User;
+import edu.citu.apeer.entity.UserRole;
+import edu.citu.apeer.repository.StudentScoreAggregateRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GroupServiceTest extends IntegrationTest {
+    
+    @Autowired
+    private GroupService groupService;
+    
+    @Autowired
+    private StudentScoreAggregateRepository aggregateRepository;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Test
+    void importsQuotedCellsAndSkipsTheHeader() {
+        User ana = createStudent("Ana");
+        User ben = createStudent("Ben");
+        String team = unique("Team, \"Blue\"");
+        
+        List<GroupDTO> groups = groupService.importRoster(roster("\uFEFFEmail,Group\n"
+                + ana.getEmail() + ",\"" + team.replace("\"", "\"\"") + "\"\n"
+                + "\n"
+                + " " + ben.getEmail() + " , \"" + team.replace("\"", "\"\"") + "\"\n"
+                // Listing someone twice in the same group is harmless
+                + ana.getEmail() + ",\"" + team.replace("\"", "\"\"") + "\"\n"));
+        
+        assertEquals(1, groups.size());
+        assertEquals(team, groups.get(0).getName());
+        assertEquals(Set.of(ana.getId(), ben.getId()), memberIds(groups.get(0)));
+    }
+    
+    @Test
+    void rejectsMalformedRowsWithTheirLineNumbers() {
+        User ana = createStudent("Ana");
+        User ben = createStudent("Ben");
+        
+        RuntimeException error = assertThrows(RuntimeException.class, () -> groupService.importRoster(roster(
+                "email,group\n"
+                + ana.getEmail() + ",Team A\n"
+                + ben.getEmail() + "\n"
+                + ",Team B\n"
+                + ana.getEmail() + ",Team B\n")));
+        
+        assertEquals("Roster rejected: Line 3: expected email,group; Line 4: expected email,group; "
+                + "Line 5: " + ana.getEmail() + " is already listed in Team A", error.getMessage());
+        assertNull(userRepository.findById(ana.getId()).orElseThrow().getGroup(), "nothing is imported");
+    }
+    
+    @Test
+    void rejectsUnknownEmailsAndNonStudents() {
+        User ana = createStudent("Ana");
+        User teacher = createUser("Roster Teacher", UserRole.TEACHER);
+        String missing = unique("nobody") + "@test.edu";
+        
+        RuntimeException error = assertThrows(RuntimeException.class, () -> groupService.importRoster(roster(
+                ana.getEmail() + ",Team A\n" + teacher.getEmail() + ",Team A\n" + missing + ",Team A\n")));
+        
+        assertTrue(error.getMessage().contains(teacher.getEmail() + " is not a student"), error.getMessage());
+        assertTrue(error.getMessage().contains("No user with email " + missing), error.getMessage());
+        assertNull(userRepository.findById(ana.getId()).orElseThrow().getGroup());
+    }
+    
+    @Test
+    void rejectsEmptyRostersAndCapsTheReportedErrors() {
+        assertEquals("Roster file is empty",
+                assertThrows(RuntimeException.class, () -> groupService.importRoster(roster(""))).getMessage());
+        assertEquals("Roster file has no rows",
+                assertThrows(RuntimeException.class, () -> groupService.importRoster(roster("email,group\n\n"))).getMessage());
+        
+        RuntimeException error = assertThrows(RuntimeException.class,
+                () -> groupService.importRoster(roster("no-group\n".repeat(25))));
+        assertTrue(error.getMessage().startsWith("Roster rejected: Line 1: expected email,group;"), error.getMessage());
+        assertTrue(error.getMessage().endsWith("Line 20: expected email,group (and 5 more)"), error.getMessage());
+    }
+    
+    @Test
+    void balancedGroupsAreDealtInSnakeOrder() {
+        parkUngroupedStudents();
+        EvaluationActivity activity = createActivity();
+        User s95 = scored(activity, 95);
+        User s85 = scored(activity, 85);
+        User s75 = scored(activity, 75);
+        User s65 = scored(activity, 65);
+        User s55 = scored(activity, 55);
+        User s45 = scored(activity, 45);
+        User unscored = createStudent("Unscored Student");
+        String prefix = unique("Snake");
+        
+        List<GroupDTO> groups = groupService.autoGroup(new AutoGroupRequest(3, null, true, prefix, null)).stream()
+                .sorted(Comparator.comparing(GroupDTO::getName))
+                .toList();
+        
+        // Best to worst across the groups, then back; the unscored student starts the next round
+        assertEquals(List.of(prefix + " 1", prefix + " 2", prefix + " 3"), groups.stream().map(GroupDTO::getName).toList());
+        assertEquals(Set.of(s95.getId(), s45.getId(), unscored.getId()), memberIds(groups.get(0)));
+        assertEquals(Set.of(s85.getId(), s55.getId()), memberIds(groups.get(1)));
+        assertEquals(Set.of(s75.getId(), s65.getId()), memberIds(groups.get(2)));
+    }
+    
+    @Test
+    void groupSizeDecidesTheNumberOfGroups() {
+        parkUngroupedStudents();
+        for (int i = 0; i < 7; i++) {
+            createStudent("Sized Student " + i);
+        }
+        
+        List<GroupDTO> groups = groupService.autoGroup(new AutoGroupRequest(null, 3, false, unique("Sized"), null));
+        
+        assertEquals(List.of(2, 2, 3), groups.stream().map(GroupDTO::getMemberCount).sorted().toList(),
+                "sizes differ by at most one");
+        assertTrue(userRepository.findUngroupedStudents().isEmpty());
+        assertEquals("There are no ungrouped students", assertThrows(RuntimeException.class,
+                () -> groupService.autoGroup(new AutoGroupRequest(2, null, false, null, null))).getMessage());
+    }
+    
+    /** Move the students other tests left ungrouped out of the way, so autoGroup sees only ours */
+    private void parkUngroupedStudents() {
+        List<User> ungrouped = userRepository.findUngroupedStudents();
+        if (!ungrouped.isEmpty()) {
+            String parked = unique("Parked");
+            groupService.importRoster(roster(ungrouped.stream()
+                    .map(student -> student.getEmail() + "," + parked)
+                    .collect(Collectors.joining("\n"))));
+        }
+    }
+    
+    /** A student whose received scores average {@code percent} */
+    private User scored(EvaluationActivity activity, int percent) {
+        User student = createStudent("Scored " + percent);
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                aggregateRepository.applyDelta(UUID.randomUUID().toString(), student.getId(), activity.getId(),
+                        percent, 100, 1, 0, 0, 0, 0));
+        return student;
+    }
+    
+    private static MockMultipartFile roster(String csv) {
+        return new MockMultipartFile("file", "roster.csv", "text/csv", csv.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    private static Set<String> memberIds(GroupDTO group) {
+        return group.getMembers().stream().map(UserDTO::getId).collect(Collectors.toSet());
+    }
+}
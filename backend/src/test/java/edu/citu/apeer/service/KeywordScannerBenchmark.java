@@ -0,0 +1,86 @@
+package edu.citu.apeer.service;
+
+import edu.citu.apeer.service.KeywordScanner.Category;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.support.PropertiesLoaderUtils;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One Aho-Corasick pass of {@link KeywordScanner} against the per-keyword {@code contains}
+ * checks FakeAIService used to run, over the shipped keyword lists. Run with
+ * {@code mvn test -Pbench -Dtest=KeywordScannerBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KeywordScannerBenchmark {
+    
+    @Param({"short", "long"})
+    public String length;
+    
+    private KeywordScanner scanner;
+    private Map<Category, List<String>> lexicon;
+    private String comment;
+    
+    @Setup
+    public void setUp() throws IOException {
+        Properties properties = PropertiesLoaderUtils.loadProperties(new ClassPathResource("analysis/keywords.properties"));
+        scanner = KeywordScanner.fromProperties(properties);
+        lexicon = new EnumMap<>(Category.class);
+        for (Category category : Category.values()) {
+            lexicon.put(category, Arrays.stream(properties.getProperty(category.getKey(), "").split(","))
+                    .map(keyword -> keyword.trim().replace("*", ""))
+                    .filter(keyword -> !keyword.isEmpty())
+                    .toList());
+        }
+        
+        String sentence = "Thanks for the clear slides; the examples were helpful, but you should " +
+                "consider a stronger conclusion and try to focus the demo. ";
+        comment = "short".equals(length) ? sentence : sentence.repeat(12);
+    }
+    
+    @Benchmark
+    public void scanner(Blackhole blackhole) {
+        KeywordScanner.Matches matches = scanner.scan(comment);
+        for (Category category : Category.values()) {
+            blackhole.consume(matches.count(category));
+        }
+    }
+    
+    @Benchmark
+    public void contains(Blackhole blackhole) {
+        for (Map.Entry<Category, List<String>> list : lexicon.entrySet()) {
+            // The old analyzer lowercased the comment again for each check
+            int count = 0;
+            for (String keyword : list.getValue()) {
+                if (comment.toLowerCase(Locale.ROOT).contains(keyword)) {
+                    count++;
+                }
+            }
+            blackhole.consume(count);
+        }
+    }
+    
+    @Test
+    void run() throws Exception {
+        new Runner(new OptionsBuilder()
+                .include(KeywordScannerBenchmark.class.getName())
+                .build()).run();
+    }
+}
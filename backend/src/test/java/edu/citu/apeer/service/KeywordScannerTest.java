@@ -0,0 +1,121 @@
+package edu.citu.apeer.service;
+
+import edu.citu.apeer.service.KeywordScanner.Category;
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeywordScannerTest {
+    
+    @Test
+    void matchesWholeWordsOnly() {
+        KeywordScanner scanner = scanner(Category.POSITIVE, List.of("good", "clear"),
+                Category.NEGATIVE, List.of("unclear"));
+        
+        assertEquals(0, scanner.scan("goodness, goods and feelgood").count(Category.POSITIVE));
+        assertEquals(0, scanner.scan("good2 and 4clear").count(Category.POSITIVE), "digits are part of a word");
+        
+        KeywordScanner.Matches unclear = scanner.scan("The goal was unclear");
+        assertEquals(0, unclear.count(Category.POSITIVE), "clear must not match inside unclear");
+        assertEquals(1, unclear.count(Category.NEGATIVE));
+        
+        assertEquals(2, scanner.scan("good and clear").count(Category.POSITIVE));
+    }
+    
+    @Test
+    void starredKeywordsMatchWordPrefixes() {
+        KeywordScanner scanner = scanner(Category.ACTIONABLE, List.of("improve*"),
+                Category.POLITE_TAG, List.of("thank*"));
+        
+        assertTrue(scanner.scan("improve").any(Category.ACTIONABLE));
+        assertTrue(scanner.scan("Several improvements landed").any(Category.ACTIONABLE));
+        assertFalse(scanner.scan("disimprove").any(Category.ACTIONABLE), "a prefix still starts a word");
+        assertTrue(scanner.scan("thanks!").any(Category.POLITE_TAG));
+        assertFalse(scanner.scan("than").any(Category.POLITE_TAG));
+    }
+    
+    @Test
+    void overlappingKeywordsAreFoundThroughFailureLinks() {
+        KeywordScanner scanner = scanner(Category.SPECIFIC, List.of("he", "she", "his", "hers"));
+        
+        assertEquals(4, scanner.scan("she said his, then hers; he agreed").count(Category.SPECIFIC));
+        // The automaton passes through she, he and hers here, but none of them is a whole word
+        assertEquals(0, scanner.scan("ushers").count(Category.SPECIFIC));
+        assertEquals(1, scanner.scan("ushers hers").count(Category.SPECIFIC));
+        // After the "sh" path fails on the space, the scan restarts cleanly at "he"
+        assertEquals(1, scanner.scan("sh he").count(Category.SPECIFIC));
+    }
+    
+    @Test
+    void keywordEndingInsideALongerOneIsReportedToo() {
+        KeywordScanner scanner = scanner(Category.NEGATIVE, List.of("not good"),
+                Category.POSITIVE, List.of("good"));
+        
+        // "good" is only reachable from the "not good" path by its failure link
+        KeywordScanner.Matches matches = scanner.scan("it was not good");
+        assertEquals(1, matches.count(Category.NEGATIVE));
+        assertEquals(1, matches.count(Category.POSITIVE));
+        
+        matches = scanner.scan("nothing good");
+        assertEquals(0, matches.count(Category.NEGATIVE));
+        assertEquals(1, matches.count(Category.POSITIVE));
+    }
+    
+    @Test
+    void keywordInTwoListsCountsOncePerList() {
+        KeywordScanner scanner = scanner(Category.POSITIVE_TAG, List.of("good", "great"),
+                Category.POSITIVE, List.of("good", "helpful"));
+        
+        KeywordScanner.Matches matches = scanner.scan("good");
+        assertEquals(1, matches.count(Category.POSITIVE_TAG));
+        assertEquals(1, matches.count(Category.POSITIVE));
+        assertEquals(0, matches.count(Category.NEGATIVE));
+    }
+    
+    @Test
+    void repeatedKeywordsCountOnce() {
+        KeywordScanner scanner = scanner(Category.POSITIVE, List.of("good", "great"));
+        
+        assertEquals(1, scanner.scan("good good GOOD, good.").count(Category.POSITIVE));
+        assertEquals(2, scanner.scan("good, great, good, great").count(Category.POSITIVE));
+    }
+    
+    @Test
+    void ignoresCaseAndPunctuationAtWordEdges() {
+        KeywordScanner scanner = scanner(Category.POSITIVE, List.of("good", "Clear", "helpful"));
+        
+        assertEquals(3, scanner.scan("GOOD! (clear) \"Helpful\"").count(Category.POSITIVE));
+        assertEquals(1, scanner.scan("Good").count(Category.POSITIVE), "at the very start and end of the text");
+        assertEquals(1, scanner.scan("...good...").count(Category.POSITIVE));
+        assertEquals(0, scanner.scan("").count(Category.POSITIVE));
+    }
+    
+    @Test
+    void readsCommaSeparatedListsFromProperties() {
+        Properties properties = new Properties();
+        properties.setProperty("tag.positive", " good , great,, ");
+        properties.setProperty("usefulness.specific", "example*");
+        KeywordScanner scanner = KeywordScanner.fromProperties(properties);
+        
+        assertEquals(2, scanner.scan("good and great").count(Category.POSITIVE_TAG));
+        assertTrue(scanner.scan("for examples").any(Category.SPECIFIC));
+        assertFalse(scanner.scan("good").any(Category.NEGATIVE), "missing keys are empty lists");
+    }
+    
+    private static KeywordScanner scanner(Category category, List<String> keywords) {
+        return new KeywordScanner(Map.of(category, keywords));
+    }
+    
+    private static KeywordScanner scanner(Category first, List<String> firstKeywords,
+                                          Category second, List<String> secondKeywords) {
+        Map<Category, List<String>> lexicon = new EnumMap<>(Category.class);
+        lexicon.put(first, firstKeywords);
+        lexicon.put(second, secondKeywords);
+        return new KeywordScanner(lexicon);
+    }
+}
@@ -0,0 +1,78 @@
+package edu.citu.apeer.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LocalBlobStoreTest {
+    
+    @TempDir
+    Path uploadDir;
+    
+    @Test
+    void startupMovesFlatAvatarsIntoShards() throws IOException {
+        Path flat = Files.createDirectories(uploadDir.resolve("avatars"));
+        Files.writeString(flat.resolve("u1_legacy.png"), "legacy avatar");
+        Files.writeString(flat.resolve(".upload-123.png"), "interrupted upload");
+        
+        LocalBlobStore store = start();
+        
+        Path sharded = store.localPath("avatars/u1_legacy.png");
+        assertTrue(sharded.startsWith(flat), sharded + " is under avatars/");
+        assertEquals(3, flat.relativize(sharded).getNameCount(), "two shard levels, then the file");
+        assertEquals("legacy avatar", Files.readString(sharded));
+        assertFalse(Files.exists(flat.resolve("u1_legacy.png")), "the flat copy is moved, not copied");
+        assertFalse(Files.exists(flat.resolve(".upload-123.png")), "leftover temp files are removed");
+        assertEquals("legacy avatar", read(store, "avatars/u1_legacy.png"));
+        
+        // Already migrated: a second start finds nothing to move
+        LocalBlobStore restarted = start();
+        assertEquals(sharded, restarted.localPath("avatars/u1_legacy.png"));
+        assertEquals("legacy avatar", read(restarted, "avatars/u1_legacy.png"));
+    }
+    
+    @Test
+    void putStatOpenAndDelete() throws IOException {
+        LocalBlobStore store = start();
+        Path upload = Files.writeString(Files.createTempFile(uploadDir, ".upload-", ".jpg"), "image bytes");
+        
+        store.put("avatars/abc.jpg", upload, "image/jpeg");
+        
+        assertFalse(Files.exists(upload), "the upload is moved into place");
+        BlobStore.BlobInfo info = store.stat("avatars/abc.jpg");
+        assertEquals(11, info.getSize());
+        assertEquals("image bytes", read(store, "avatars/abc.jpg"));
+        
+        store.delete("avatars/abc.jpg");
+        assertNull(store.stat("avatars/abc.jpg"));
+    }
+    
+    @Test
+    void rejectsKeysOutsideTheStore() throws IOException {
+        LocalBlobStore store = start();
+        assertThrows(IllegalArgumentException.class, () -> store.localPath("avatars/.hidden"));
+        assertThrows(IllegalArgumentException.class, () -> store.localPath("avatars/"));
+        assertThrows(IllegalArgumentException.class, () -> store.localPath("../../../etc/passwd"));
+    }
+    
+    private LocalBlobStore start() throws IOException {
+        LocalBlobStore store = new LocalBlobStore();
+        ReflectionTestUtils.setField(store, "uploadDir", uploadDir.toString());
+        store.init();
+        return store;
+    }
+    
+    private static String read(BlobStore store, String key) throws IOException {
+        try (InputStream input = store.open(key)) {
+            return new String(input.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
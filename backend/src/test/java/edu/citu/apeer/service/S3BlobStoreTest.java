@@ -0,0 +1,218 @@
+package edu.citu.apeer.service;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs {@link S3BlobStore} against an in-process stand-in for an S3-compatible service,
+ * addressed path-style like MinIO
+ */
+class S3BlobStoreTest {
+    
+    private static final String BUCKET = "apeer-test";
+    
+    private final Map<String, StoredObject> objects = new ConcurrentHashMap<>();
+    private final List<String> requests = new CopyOnWriteArrayList<>();
+    
+    @TempDir
+    Path scratch;
+    
+    private HttpServer server;
+    private S3BlobStore store;
+    
+    @BeforeEach
+    void start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/" + BUCKET + "/", this::handle);
+        server.start();
+        
+        store = new S3BlobStore();
+        ReflectionTestUtils.setField(store, "bucket", BUCKET);
+        ReflectionTestUtils.setField(store, "endpoint", "http://localhost:" + server.getAddress().getPort());
+        ReflectionTestUtils.setField(store, "region", "us-east-1");
+        ReflectionTestUtils.setField(store, "accessKey", "test-access");
+        ReflectionTestUtils.setField(store, "secretKey", "test-secret");
+        ReflectionTestUtils.setField(store, "pathStyle", true);
+        store.init();
+    }
+    
+    @AfterEach
+    void stop() {
+        store.close();
+        server.stop(0);
+    }
+    
+    @Test
+    void putStatOpenAndDelete() throws IOException {
+        Path upload = Files.writeString(scratch.resolve("upload.png"), "avatar bytes");
+        
+        store.put("avatars/ab/cd/abcd.png", upload, "image/png");
+        
+        StoredObject stored = objects.get("avatars/ab/cd/abcd.png");
+        assertNotNull(stored, "stored under the key, in the configured bucket");
+        assertEquals("image/png", stored.contentType);
+        assertTrue(Files.exists(upload), "the caller's file is left alone");
+        
+        BlobStore.BlobInfo info = store.stat("avatars/ab/cd/abcd.png");
+        assertEquals(12, info.getSize());
+        assertEquals(stored.lastModified, info.getLastModified());
+        assertEquals("avatar bytes", read("avatars/ab/cd/abcd.png"));
+        
+        store.delete("avatars/ab/cd/abcd.png");
+        assertFalse(objects.containsKey("avatars/ab/cd/abcd.png"));
+        assertNull(store.stat("avatars/ab/cd/abcd.png"));
+    }
+    
+    @Test
+    void missingKeys() throws IOException {
+        // HEAD has no body to carry NoSuchKey, so this is the bare 404 path
+        assertNull(store.stat("avatars/missing.png"));
+        assertTrue(requests.contains("HEAD /" + BUCKET + "/avatars/missing.png"));
+        
+        NoSuchFileException error = assertThrows(NoSuchFileException.class, () -> store.open("avatars/missing.png"));
+        assertEquals("avatars/missing.png", error.getMessage());
+        
+        // Deleting what isn't there succeeds, as in S3
+        store.delete("avatars/missing.png");
+    }
+    
+    @Test
+    void serverErrorsSurfaceAsIOException() {
+        objects.put("avatars/broken.png", new StoredObject(new byte[0], "image/png", null));
+        
+        IOException error = assertThrows(IOException.class, () -> store.stat("avatars/broken.png"));
+        assertFalse(error instanceof NoSuchFileException);
+    }
+    
+    private String read(String key) throws IOException {
+        try (InputStream input = store.open(key)) {
+            return new String(input.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+    
+    private void handle(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        String key = path.substring(BUCKET.length() + 2);
+        String method = exchange.getRequestMethod();
+        requests.add(method + " " + path);
+        
+        StoredObject object = objects.get(key);
+        switch (method) {
+            case "PUT" -> {
+                byte[] body = decodeBody(exchange);
+                StoredObject stored = new StoredObject(body, exchange.getRequestHeaders().getFirst("Content-Type"),
+                        Instant.now().truncatedTo(ChronoUnit.SECONDS));
+                objects.put(key, stored);
+                exchange.getResponseHeaders().set("ETag", stored.etag());
+                exchange.sendResponseHeaders(200, -1);
+            }
+            case "HEAD", "GET" -> {
+                if (object == null) {
+                    if (method.equals("HEAD")) {
+                        exchange.sendResponseHeaders(404, -1);
+                    } else {
+                        sendError(exchange, 404, "NoSuchKey");
+                    }
+                } else if (object.lastModified == null) {
+                    exchange.sendResponseHeaders(500, -1);
+                } else {
+                    exchange.getResponseHeaders().set("ETag", object.etag());
+                    exchange.getResponseHeaders().set("Content-Type", object.contentType);
+                    exchange.getResponseHeaders().set("Last-Modified",
+                            DateTimeFormatter.RFC_1123_DATE_TIME.format(object.lastModified.atOffset(ZoneOffset.UTC)));
+                    if (method.equals("HEAD")) {
+                        exchange.getResponseHeaders().set("Content-Length", String.valueOf(object.body.length));
+                        exchange.sendResponseHeaders(200, -1);
+                    } else {
+                        exchange.sendResponseHeaders(200, object.body.length);
+                        exchange.getResponseBody().write(object.body);
+                    }
+                }
+            }
+            case "DELETE" -> {
+                objects.remove(key);
+                exchange.sendResponseHeaders(204, -1);
+            }
+            default -> sendError(exchange, 405, "MethodNotAllowed");
+        }
+        exchange.close();
+    }
+    
+    /**
+     * The request body, unwrapped from the signed aws-chunked framing the SDK uses for uploads
+     * over plain HTTP
+     */
+    private static byte[] decodeBody(HttpExchange exchange) throws IOException {
+        byte[] raw = exchange.getRequestBody().readAllBytes();
+        if (exchange.getRequestHeaders().getFirst("x-amz-decoded-content-length") == null) {
+            return raw;
+        }
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        int position = 0;
+        while (true) {
+            int lineEnd = indexOfCrlf(raw, position);
+            String header = new String(raw, position, lineEnd - position, StandardCharsets.US_ASCII);
+            int size = Integer.parseInt(header.split(";")[0], 16);
+            position = lineEnd + 2;
+            if (size == 0) {
+                return body.toByteArray();
+            }
+            body.write(raw, position, size);
+            position += size + 2;
+        }
+    }
+    
+    private static int indexOfCrlf(byte[] bytes, int from) {
+        for (int i = from; i < bytes.length - 1; i++) {
+            if (bytes[i] == '\r' && bytes[i + 1] == '\n') {
+                return i;
+            }
+        }
+        throw new IllegalStateException("Malformed chunked body");
+    }
+    
+    private static void sendError(HttpExchange exchange, int status, String code) throws IOException {
+        byte[] body = ("<?xml version=\"1.0\" encoding=\"UTF-8\"?><Error><Code>" + code
+                + "</Code><Message>" + code + "</Message></Error>").getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/xml");
+        exchange.sendResponseHeaders(status, body.length);
+        exchange.getResponseBody().write(body);
+    }
+    
+    private record StoredObject(byte[] body, String contentType, Instant lastModified) {
+        
+        String etag() {
+            try {
+                return "\"" + HexFormat.of().formatHex(MessageDigest.getInstance("MD5").digest(body)) + "\"";
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package edu.citu.apeer.service;
+
+import edu.citu.apeer.IntegrationTest;
+import edu.citu.apeer.dto.CurrentUser;
+import edu.citu.apeer.dto.GroupDTO;
+import edu.citu.apeer.entity.User;
+import edu.citu.apeer.entity.UserRole;
+import edu.citu.apeer.entity.UserStatus;
+import edu.citu.apeer.security.JwtUtil;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class UserLookupServiceTest extends IntegrationTest {
+    
+    @Autowired
+    private UserLookupService userLookupService;
+    
+    @Autowired
+    private GroupService groupService;
+    
+    @Autowired
+    private MockMvc mockMvc;
+    
+    @Autowired
+    private JwtUtil jwtUtil;
+    
+    @Test
+    void repeatLookupsAreServedFromTheCache() {
+        User student = createStudent("Cached Student");
+        
+        CurrentUser first = userLookupService.findByEmail(student.getEmail()).orElseThrow();
+        long statements = countStatements(() -> assertSame(first,
+                userLookupService.findByEmail(student.getEmail()).orElseThrow()));
+        
+        assertEquals(0, statements);
+        assertEquals(student.getId(), first.getId());
+        assertEquals(UserRole.STUDENT, first.getRole());
+        assertNull(first.getGroupId());
+    }
+    
+    @Test
+    void unknownEmailsAreNotCached() {
+        String email = unique("later") + "@test.edu";
+        assertTrue(userLookupService.findByEmail(email).isEmpty());
+        
+        User created = userRepository.save(User.builder()
+                .email(email).name("Later").role(UserRole.STUDENT).status(UserStatus.ACTIVE).build());
+        assertEquals(created.getId(), userLookupService.findByEmail(email).orElseThrow().getId());
+    }
+    
+    @Test
+    void groupChangesEvictTheMovedUsers() {
+        User moved = createStudent("Moved Student");
+        User imported = createStudent("Imported Student");
+        userLookupService.findByEmail(moved.getEmail());
+        userLookupService.findByEmail(imported.getEmail());
+        
+        GroupDTO group = groupService.importRoster(new MockMultipartFile("file", "roster.csv", "text/csv",
+                (imported.getEmail() + "," + unique("Roster Team")).getBytes(StandardCharsets.UTF_8))).get(0);
+        assertEquals(group.getId(), userLookupService.findByEmail(imported.getEmail()).orElseThrow().getGroupId());
+        
+        groupService.assignStudentToGroup(group.getId(), moved.getId());
+        assertEquals(group.getId(), userLookupService.findByEmail(moved.getEmail()).orElseThrow().getGroupId());
+        
+        groupService.removeStudentFromGroup(group.getId(), moved.getId());
+        assertNull(userLookupService.findByEmail(moved.getEmail()).orElseThrow().getGroupId());
+    }
+    
+    @Test
+    void statusUpdatesEvictTheUser() throws Exception {
+        User student = createStudent("Suspended Student");
+        User admin = createUser("Cache Admin", UserRole.ADMIN);
+        userLookupService.findByEmail(student.getEmail());
+        
+        mockMvc.perform(put("/api/admin/users/" + student.getId() + "/status")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + jwtUtil.generateToken(admin.getEmail(), "ADMIN"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"status\":\"inactive\"}"))
+                .andExpect(status().isOk());
+        
+        assertEquals(UserStatus.INACTIVE, userLookupService.findByEmail(student.getEmail()).orElseThrow().getStatus());
+    }
+}
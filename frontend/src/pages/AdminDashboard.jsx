@@ -9,6 +9,8 @@ import { mockData } from '../services/mockData';
 import { Button } from '../components/ui/Button';
 import { Card } from '../components/ui/Card';
 
+const PAGE_SIZE = 50;
+
 // ============================================================================
 // ADMIN DASHBOARD
 // ============================================================================
@@ -16,15 +18,25 @@ const AdminDashboard = () => {
   const { logout, user } = useAuth();
   const navigate = useNavigate();
   const [users, setUsers] = useState([]);
+  const [search, setSearch] = useState('');
+  const [roleFilter, setRoleFilter] = useState('');
+  const [statusFilter, setStatusFilter] = useState('');
+  const [page, setPage] = useState(0);
+  const [pageInfo, setPageInfo] = useState({ totalElements: 0, totalPages: 1, first: true, last: true });
   const [profile, setProfile] = useState(null);
   const [isLoading, setIsLoading] = useState(true);
   const [error, setError] = useState(null);
 
   useEffect(() => {
-    fetchUsers();
     fetchProfile();
   }, []);
 
+  // Debounce typing so each keystroke doesn't hit the server
+  useEffect(() => {
+    const timer = setTimeout(() => fetchUsers(), search ? 300 : 0);
+    return () => clearTimeout(timer);
+  }, [search, roleFilter, statusFilter, page]);
+
   const fetchProfile = async () => {
     try {
       const profileData = await profileService.getProfile();
@@ -34,12 +46,19 @@ const AdminDashboard = () => {
     }
   };
 
+  // Only the first load shows the full-page spinner; later fetches keep the filters on screen
   const fetchUsers = async () => {
     try {
-      setIsLoading(true);
       setError(null);
-      const userList = await adminService.getAllUsers();
-      setUsers(userList);
+      const result = await adminService.getUserPage({
+        page,
+        size: PAGE_SIZE,
+        q: search.trim(),
+        role: roleFilter,
+        status: statusFilter
+      });
+      setUsers(result.content);
+      setPageInfo(result);
     } catch (err) {
       console.error('Error fetching users:', err);
       setError('Failed to load users. Using mock data.');
@@ -104,7 +123,7 @@ const AdminDashboard = () => {
           >
             {profile?.avatarUrl ? (
               <img
-                src={profile.avatarUrl.startsWith('http') ? profile.avatarUrl : `http://localhost:8080${profile.avatarUrl}`}
+                src={profile.avatarUrl.startsWith('http') ? profile.avatarUrl : `http://localhost:8080${profile.avatarUrl}?size=80`}
                 alt="Profile"
                 className="w-full h-full object-cover"
                 onError={(e) => {
@@ -134,6 +153,35 @@ const AdminDashboard = () => {
       {/* User Table */}
       <Card spotlight>
         <h3 className="admin-table-title">Registered Users</h3>
+        <div className="admin-filters">
+          <input
+            type="search"
+            className="admin-filter-search"
+            placeholder="Search name or email"
+            value={search}
+            onChange={(e) => { setSearch(e.target.value); setPage(0); }}
+          />
+          <select
+            className="admin-filter-select"
+            value={roleFilter}
+            onChange={(e) => { setRoleFilter(e.target.value); setPage(0); }}
+          >
+            <option value="">All roles</option>
+            <option value="student">Students</option>
+            <option value="teacher">Teachers</option>
+            <option value="admin">Admins</option>
+          </select>
+          <select
+            className="admin-filter-select"
+            value={statusFilter}
+            onChange={(e) => { setStatusFilter(e.target.value); setPage(0); }}
+          >
+            <option value="">All statuses</option>
+            <option value="active">Active</option>
+            <option value="inactive">Suspended</option>
+          </select>
+          <span className="admin-filter-count">{pageInfo.totalElements} users</span>
+        </div>
         <div className="admin-table-wrapper">
           <table className="admin-table">
             <thead>
@@ -186,6 +234,19 @@ const AdminDashboard = () => {
             </tbody>
           </table>
         </div>
+        {pageInfo.totalPages > 1 && (
+          <div className="admin-pagination">
+            <Button variant="ghost" disabled={pageInfo.first} onClick={() => setPage(p => p - 1)}>
+              Previous
+            </Button>
+            <span className="admin-pagination-label">
+              Page {page + 1} of {pageInfo.totalPages}
+            </span>
+            <Button variant="ghost" disabled={pageInfo.last} onClick={() => setPage(p => p + 1)}>
+              Next
+            </Button>
+          </div>
+        )}
       </Card>
     </div>
   );
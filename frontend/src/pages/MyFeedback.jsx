@@ -11,7 +11,9 @@ const MyFeedback = () => {
   const { user } = useAuth();
   const navigate = useNavigate();
   const [feedbackHistory, setFeedbackHistory] = useState([]);
+  const [nextCursor, setNextCursor] = useState(null);
   const [isLoading, setIsLoading] = useState(true);
+  const [isLoadingMore, setIsLoadingMore] = useState(false);
   const [error, setError] = useState(null);
 
   useEffect(() => {
@@ -23,7 +25,8 @@ const MyFeedback = () => {
       setIsLoading(true);
       setError(null);
       const history = await studentService.getFeedbackHistory();
-      setFeedbackHistory(history);
+      setFeedbackHistory(history.items);
+      setNextCursor(history.nextCursor);
     } catch (err) {
       console.error('Error fetching feedback history:', err);
       setError('Failed to load feedback history');
@@ -32,6 +35,20 @@ const MyFeedback = () => {
     }
   };
 
+  const loadMore = async () => {
+    try {
+      setIsLoadingMore(true);
+      const history = await studentService.getFeedbackHistory({ cursor: nextCursor });
+      setFeedbackHistory((current) => [...current, ...history.items]);
+      setNextCursor(history.nextCursor);
+    } catch (err) {
+      console.error('Error fetching more feedback:', err);
+      setError('Failed to load more feedback');
+    } finally {
+      setIsLoadingMore(false);
+    }
+  };
+
   const getSentimentIcon = (label) => {
     if (!label) return <Meh className="w-5 h-5 text-yellow-400" />;
     
@@ -99,6 +116,7 @@ const MyFeedback = () => {
             )}
 
             {feedbackHistory.length > 0 ? (
+              <>
               <div className="grid grid-cols-1 md:grid-cols-2 lg:grid-cols-3 gap-6">
                 {feedbackHistory.map((feedback, idx) => {
                   const isSelfEval = feedback.isSelfEvaluation === true;
@@ -111,7 +129,7 @@ const MyFeedback = () => {
                       key={feedback.id}
                       initial={{ opacity: 0, y: 20 }}
                       animate={{ opacity: 1, y: 0 }}
-                      transition={{ delay: idx * 0.1 }}
+                      transition={{ delay: (idx % 20) * 0.1 }}
                       className={`bg-gray-900/50 border ${borderColor} rounded-xl p-6 transition-colors backdrop-blur-lg`}
                     >
                       {/* Header */}
@@ -196,6 +214,14 @@ const MyFeedback = () => {
                   );
                 })}
               </div>
+              {nextCursor && (
+                <div className="flex justify-center mt-8">
+                  <Button variant="secondary" onClick={loadMore} disabled={isLoadingMore}>
+                    {isLoadingMore ? 'Loading...' : 'Load more feedback'}
+                  </Button>
+                </div>
+              )}
+              </>
             ) : (
               <div className="text-center py-16">
                 <MessageSquare className="w-16 h-16 mx-auto mb-4 text-gray-600 opacity-50" />
@@ -36,7 +36,7 @@ const ProfilePage = () => {
       if (profileData.avatarUrl) {
         const avatarUrl = profileData.avatarUrl.startsWith('http') 
           ? profileData.avatarUrl 
-          : `http://localhost:8080${profileData.avatarUrl}`;
+          : `http://localhost:8080${profileData.avatarUrl}?size=256`;
         setAvatarPreview(avatarUrl);
       } else {
         setAvatarPreview(null);
@@ -63,7 +63,7 @@ const ProfilePage = () => {
         // If avatarUrl already includes http://, use it as is, otherwise prepend base URL
         const avatarUrl = updated.avatarUrl.startsWith('http') 
           ? updated.avatarUrl 
-          : `http://localhost:8080${updated.avatarUrl}`;
+          : `http://localhost:8080${updated.avatarUrl}?size=256`;
         setAvatarPreview(avatarUrl);
       } else {
         setAvatarPreview(null);
@@ -174,7 +174,7 @@ const ProfilePage = () => {
                   <div className="relative mb-4">
                     {avatarPreview || profile.avatarUrl ? (
                       <img
-                        src={avatarPreview || (profile.avatarUrl?.startsWith('http') ? profile.avatarUrl : `http://localhost:8080${profile.avatarUrl}`)}
+                        src={avatarPreview || (profile.avatarUrl?.startsWith('http') ? profile.avatarUrl : `http://localhost:8080${profile.avatarUrl}?size=256`)}
                         alt="Profile"
                         className="w-32 h-32 rounded-full object-cover border-4 border-teal-500/50"
                         onError={(e) => {
@@ -298,7 +298,7 @@ const ProfilePage = () => {
                             if (profile?.avatarUrl) {
                               const avatarUrl = profile.avatarUrl.startsWith('http') 
                                 ? profile.avatarUrl 
-                                : `http://localhost:8080${profile.avatarUrl}`;
+                                : `http://localhost:8080${profile.avatarUrl}?size=256`;
                               setAvatarPreview(avatarUrl);
                             } else {
                               setAvatarPreview(null);
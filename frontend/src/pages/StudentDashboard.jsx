@@ -37,7 +37,7 @@ const StudentDashboard = () => {
           profileService.getProfile().catch(() => null)
         ]);
         setStudent(dashboardData);
-        setFeedbackHistory(history);
+        setFeedbackHistory(history.items);
         setProfile(profileData);
       } catch (err) {
         console.error('Error fetching student dashboard:', err);
@@ -139,7 +139,7 @@ const StudentDashboard = () => {
           >
             {profile?.avatarUrl ? (
               <img
-                src={profile.avatarUrl.startsWith('http') ? profile.avatarUrl : `http://localhost:8080${profile.avatarUrl}`}
+                src={profile.avatarUrl.startsWith('http') ? profile.avatarUrl : `http://localhost:8080${profile.avatarUrl}?size=80`}
                 alt="Profile"
                 className="w-full h-full object-cover"
                 onError={(e) => {
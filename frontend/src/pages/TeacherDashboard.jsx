@@ -145,7 +145,7 @@ const TeacherDashboard = () => {
           >
             {profile?.avatarUrl ? (
               <img
-                src={profile.avatarUrl.startsWith('http') ? profile.avatarUrl : `http://localhost:8080${profile.avatarUrl}`}
+                src={profile.avatarUrl.startsWith('http') ? profile.avatarUrl : `http://localhost:8080${profile.avatarUrl}?size=80`}
                 alt="Profile"
                 className="w-full h-full object-cover"
                 onError={(e) => {
@@ -352,6 +352,9 @@ const TeacherDashboard = () => {
                         </td>
                         <td className="py-4 px-4">
                           {activity.submissionCount || 0} / {activity.totalParticipants || activity.participants || 0}
+                          <span className="ml-2 text-xs text-gray-500">
+                            {activity.completionRate || 0}% complete
+                          </span>
                         </td>
                         <td className="py-4 px-4 text-gray-400">
                           {activity.totalParticipants || activity.participants || 0}
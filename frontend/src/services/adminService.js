@@ -25,6 +25,32 @@ export const adminService = {
     }
   },
 
+  /**
+   * One page of users. params: { page, size, q, role, status, groupId, sort }
+   */
+  async getUserPage(params = {}) {
+    if (USE_MOCK) {
+      const q = (params.q || '').toLowerCase();
+      const content = mockData.users.filter(u =>
+        (!q || u.name.toLowerCase().includes(q) || u.email.toLowerCase().includes(q)) &&
+        (!params.role || u.role.toLowerCase() === params.role.toLowerCase()) &&
+        (!params.status || u.status.toLowerCase() === params.status.toLowerCase())
+      );
+      return { content, totalElements: content.length, totalPages: 1, number: 0, first: true, last: true };
+    }
+
+    try {
+      const query = Object.fromEntries(
+        Object.entries(params).filter(([, value]) => value !== undefined && value !== null && value !== '')
+      );
+      const response = await api.get('/admin/users/page', { params: query });
+      return response.data;
+    } catch (error) {
+      console.error('Error fetching users:', error);
+      throw error;
+    }
+  },
+
   /**
    * Update user status
    */
@@ -74,6 +74,57 @@ export const dashboardService = {
       console.error('Error fetching ungrouped students:', error);
       throw error;
     }
+  },
+
+  /**
+   * Build every student's report into a ZIP on the server
+   * (optionally { groupId } or { activityId }); returns the batch status
+   */
+  async startReportBatch(filters = {}) {
+    try {
+      const response = await api.post('/teacher/reports/batches', null, { params: filters });
+      return response.data;
+    } catch (error) {
+      console.error('Error starting report batch:', error);
+      throw error;
+    }
+  },
+
+  /**
+   * Progress of a report batch: state, total, completed, failed, downloadable
+   */
+  async getReportBatch(batchId) {
+    try {
+      const response = await api.get(`/teacher/reports/batches/${batchId}`);
+      return response.data;
+    } catch (error) {
+      console.error('Error fetching report batch:', error);
+      throw error;
+    }
+  },
+
+  /**
+   * Download a finished report batch
+   */
+  async downloadReportBatch(batchId) {
+    try {
+      const response = await api.get(`/teacher/reports/batches/${batchId}/download`, {
+        responseType: 'blob'
+      });
+
+      // Create download link
+      const url = window.URL.createObjectURL(new Blob([response.data]));
+      const link = document.createElement('a');
+      link.href = url;
+      link.setAttribute('download', 'student_reports.zip');
+      document.body.appendChild(link);
+      link.click();
+      link.remove();
+      window.URL.revokeObjectURL(url);
+    } catch (error) {
+      console.error('Error downloading report batch:', error);
+      throw error;
+    }
   }
 };
 
@@ -38,6 +38,45 @@ export const groupService = {
     }
   },
 
+  /**
+   * Import a CSV roster of email,group rows; returns the groups it touched
+   */
+  async importRoster(file) {
+    if (USE_MOCK) {
+      return [];
+    }
+
+    try {
+      const formData = new FormData();
+      formData.append('file', file);
+      const response = await api.post('/groups/import', formData, {
+        headers: { 'Content-Type': 'multipart/form-data' }
+      });
+      return response.data;
+    } catch (error) {
+      console.error('Error importing roster:', error);
+      throw error;
+    }
+  },
+
+  /**
+   * Split all ungrouped students into new groups.
+   * options: { groupCount | groupSize, balanceByScore, namePrefix, activityId }
+   */
+  async autoGroup(options) {
+    if (USE_MOCK) {
+      return [];
+    }
+
+    try {
+      const response = await api.post('/groups/auto', options);
+      return response.data;
+    } catch (error) {
+      console.error('Error creating groups automatically:', error);
+      throw error;
+    }
+  },
+
   async assignStudentToGroup(groupId, studentId) {
     if (USE_MOCK) {
       return { id: groupId, members: [], memberCount: 0 };
@@ -4,9 +4,14 @@ import { mockData } from './mockData';
 const USE_MOCK = import.meta.env.VITE_USE_MOCK_DATA === 'true';
 
 export const studentService = {
-  async getFeedbackHistory() {
+  /**
+   * One page of received feedback, newest first.
+   * Pass the returned nextCursor back in to get the following page; it is null on the last page.
+   */
+  async getFeedbackHistory({ cursor = null, size = 20 } = {}) {
     if (USE_MOCK) {
-      return [
+      return {
+        items: [
         {
           id: '1',
           comment: 'Great collaboration skills!',
@@ -17,11 +22,15 @@ export const studentService = {
           submittedAt: new Date().toISOString(),
           activityName: 'Midterm Peer Review'
         }
-      ];
+        ],
+        nextCursor: null
+      };
     }
 
     try {
-      const response = await api.get('/student/feedback-history');
+      const params = { size };
+      if (cursor) params.cursor = cursor;
+      const response = await api.get('/student/feedback-history', { params });
       return response.data;
     } catch (error) {
       console.error('Error fetching feedback history:', error);